@@ -0,0 +1,184 @@
+package com.web.server.benchmark;
+
+import com.web.server.config.AppConfig;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * Benchmark inputs: submissions in every supported language, and server
+ * components wired by hand instead of by Spring.
+ */
+final class Fixtures {
+
+    private Fixtures() {}
+
+    // A typical program: allowed imports, functions, comments and string literals
+    private static final Map<String, String> REALISTIC = Map.of(
+        "Python", """
+            import math
+            from collections import deque
+
+            # Breadth-first search over a grid
+            def solve(grid, start):
+                seen = {start}
+                queue = deque([start])
+                while queue:
+                    x, y = queue.popleft()
+                    for dx, dy in ((1, 0), (-1, 0), (0, 1), (0, -1)):
+                        cell = (x + dx, y + dy)
+                        if cell not in seen and grid.get(cell) == '.':
+                            seen.add(cell)
+                            queue.append(cell)
+                return len(seen), f"cost={math.sqrt(len(seen)):.2f}"
+
+            """,
+        "JavaScript", """
+            const { performance } = require('perf_hooks');
+            // Memoised fibonacci with a cost counter
+            const memo = new Map();
+            function fib(n) {
+                if (n < 2) return n;
+                if (memo.has(n)) return memo.get(n);
+                const value = fib(n - 1) + fib(n - 2);
+                memo.set(n, value);
+                return value;
+            }
+            console.log(`fib(${40}) = ${fib(40)}`, /os|fs/.test('cost'), performance.now() / 1000);
+
+            """,
+        "Java", """
+            import java.util.*;
+            import java.util.stream.Collectors;
+
+            /* Counts words read from standard input */
+            class WordCount {
+                static Map<String, Integer> count(Scanner in) {
+                    Map<String, Integer> counts = new TreeMap<>();
+                    while (in.hasNext()) {
+                        counts.merge(in.next().toLowerCase(), 1, Integer::sum);
+                    }
+                    return counts;
+                }
+                static String render(Map<String, Integer> counts) {
+                    return counts.entrySet().stream().map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.joining(", "));
+                }
+            }
+
+            """,
+        "C++", """
+            #include <bits/stdc++.h>
+            using namespace std;
+
+            // Dijkstra over an adjacency list
+            vector<long long> shortest(const vector<vector<pair<int, int>>>& adj, int source) {
+                vector<long long> dist(adj.size(), LLONG_MAX);
+                priority_queue<pair<long long, int>, vector<pair<long long, int>>, greater<>> pq;
+                dist[source] = 0;
+                pq.push({0, source});
+                while (!pq.empty()) {
+                    auto [d, u] = pq.top(); pq.pop();
+                    if (d != dist[u]) continue;
+                    for (auto [v, w] : adj[u]) if (d + w < dist[v]) { dist[v] = d + w; pq.push({dist[v], v}); }
+                }
+                printf("%s\\n", "done");
+                return dist;
+            }
+
+            """,
+        "Go", """
+            package main
+
+            import (
+                "bufio"
+                "fmt"
+                "strings"
+            )
+
+            // Reverses each line read from standard input
+            func reverse(s string) string {
+                runes := []rune(s)
+                for i, j := 0, len(runes)-1; i < j; i, j = i+1, j-1 {
+                    runes[i], runes[j] = runes[j], runes[i]
+                }
+                return strings.TrimSpace(string(runes))
+            }
+
+            func run(r *bufio.Reader) { line, _ := r.ReadString('\\n'); fmt.Println(reverse(line), "cost") }
+
+            """
+    );
+
+    // Near misses for the import scanner: module names in comments, strings and identifiers
+    private static final Map<String, String> ADVERSARIAL = Map.of(
+        "Python", """
+            cost = hosts = os_name = "import os; import sys"  # import subprocess
+            text = '''from os import path
+            import socket'''; f"{cost!r} {'import os'}" ; __import__ ; r"\\" ; b'\\x6fs'
+            """,
+        "JavaScript", """
+            const cost = 'require("fs")', r = /require\\('fs'\\)/g, t = `import os from 'os' ${cost}`;
+            x = a / b / c; // require('child_process') import('net')
+            /* import fs from "fs" */ obj.import = 1; const fs_name = "fs";
+            """,
+        "Java", """
+            String s = "java.io.File java.lang.Runtime"; // java.net.Socket
+            char c = '"'; /* java.lang.reflect.Method */ java.util.List<java.util.Map<String, java.util.Set<Integer>>> deep;
+            Object o = java.util.concurrent.atomic.AtomicLong.class; ThreadLocal<String> local;
+            """,
+        "C++", """
+            const char* a = "#include <unistd.h>"; // #include <sys/socket.h>
+            /* #include <pthread.h> */ #define CAT(a, b) a##b
+            auto raw = R"x(#include <signal.h>)x"; int cost = 1 < 2 && 3 > 2;
+            """,
+        "Go", """
+            var cost = "import \\"os\\"" // import "net"
+            /* import ( "syscall" ) */ var unsafeName = `os/exec`
+            func imports() { fmt.Println("net/http", 'o', "os") }
+            """
+    );
+
+    // Generated source of roughly the given size, built from whole snippets
+    static String source(String language, String shape, int size) {
+        String snippet = ("adversarial".equals(shape) ? ADVERSARIAL : REALISTIC).get(language);
+        if (snippet == null) {
+            throw new IllegalArgumentException("No " + shape + " source for " + language);
+        }
+        StringBuilder code = new StringBuilder(size + snippet.length());
+        while (code.length() + snippet.length() <= size || code.length() == 0) {
+            code.append(snippet);
+        }
+        return code.toString();
+    }
+
+    // A Java submission whose public class comes after the given amount of other code
+    static String javaProgram(String shape, int size) {
+        String main = "public class Main {\n    public static void main(String[] args) {}\n}\n";
+        String filler = "adversarial".equals(shape)
+            // "public" without "class": every occurrence starts a failed match
+            ? "public static   public final  public    /* public class */ \n"
+            : REALISTIC.get("Java");
+        StringBuilder code = new StringBuilder(size);
+        while (code.length() + filler.length() + main.length() <= size) {
+            code.append(filler);
+        }
+        return code.append(main).toString();
+    }
+
+    // An AppConfig with the given @Value fields set, as Spring would
+    static AppConfig config(Map<String, Object> values) {
+        AppConfig config = new AppConfig();
+        values.forEach((name, value) -> set(config, name, value));
+        return config;
+    }
+
+    static void set(Object target, String field, Object value) {
+        try {
+            Field declared = target.getClass().getDeclaredField(field);
+            declared.setAccessible(true);
+            declared.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + field + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.web.server.benchmark;
+
+import com.web.server.util.JavaClassExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JavaClassExtractor#extractClassName} with the public class at the end
+ * of the submission, the worst position for a forward search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaClassExtractorBenchmark {
+
+    @Param({"realistic", "adversarial"})
+    private String shape;
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private final JavaClassExtractor extractor = new JavaClassExtractor();
+    private String code;
+
+    @Setup
+    public void setUp() {
+        code = Fixtures.javaProgram(shape, size);
+    }
+
+    @Benchmark
+    public String extractClassName() {
+        return extractor.extractClassName(code);
+    }
+}
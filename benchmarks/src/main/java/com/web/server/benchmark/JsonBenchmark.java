@@ -0,0 +1,66 @@
+package com.web.server.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.server.dto.RequestData;
+import com.web.server.dto.ResponseSuccess;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a {@link RequestData} body and writing a {@link ResponseSuccess}, with
+ * an ObjectMapper configured the way Spring MVC builds its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    // 20 is app.max-inputs
+    @Param({"1", "20"})
+    private int inputs;
+
+    @Param({"100", "65536"})
+    private int outputBytes;
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private byte[] requestBody;
+    private ResponseSuccess response;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<String> inputList = new ArrayList<>(Collections.nCopies(inputs, "3\n1 2 3\n"));
+        requestBody = mapper.writeValueAsBytes(
+            new RequestData(Fixtures.source("Python", "realistic", 10000), "Python", inputList, "default-secret-key"));
+
+        String output = "line of \"program\" output\n".repeat(Math.max(1, outputBytes / 26));
+        response = new ResponseSuccess("success", new ArrayList<>(Collections.nCopies(inputs, output)));
+    }
+
+    @Benchmark
+    public RequestData readRequest() throws Exception {
+        return mapper.readValue(requestBody, RequestData.class);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws Exception {
+        return mapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,65 @@
+package com.web.server.benchmark;
+
+import com.web.server.util.StreamCapture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process spawn and output capture as done by CodeExecutionService.executeSingleInput:
+ * start a child, drain stdout and stderr concurrently with the output cap, write
+ * stdin, wait for exit. The child is cat, so the measured cost is the server's
+ * and the input size is also the output size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessSpawnBenchmark {
+
+    // Matches app.max-output-bytes and CodeExecutionService's drain grace period
+    private static final int MAX_OUTPUT_BYTES = 1048576;
+    private static final long OUTPUT_DRAIN_GRACE_MS = 200;
+
+    @Param({"0", "65536", "1048576"})
+    private int outputBytes;
+
+    private byte[] input;
+
+    @Setup
+    public void setUp() {
+        input = "x".repeat(outputBytes).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String spawnAndCapture() throws Exception {
+        Process process = new ProcessBuilder("cat").start();
+
+        StreamCapture output = StreamCapture.start(process.getInputStream(), MAX_OUTPUT_BYTES, "stdout");
+        StreamCapture error = StreamCapture.start(process.getErrorStream(), MAX_OUTPUT_BYTES, "stderr");
+
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(input);
+        } catch (IOException e) {
+            // Same as the server: the child may exit without reading everything
+        }
+
+        process.waitFor();
+        return output.await(OUTPUT_DRAIN_GRACE_MS) + error.await(OUTPUT_DRAIN_GRACE_MS);
+    }
+}
@@ -0,0 +1,129 @@
+package com.web.server.benchmark;
+
+import com.web.server.service.WorkspaceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Cleaning up a populated job directory.
+ *
+ * {@code deleteTree} is the synchronous walk-and-delete that used to run in the
+ * response path; {@code release} is what a request pays with {@link WorkspaceManager};
+ * {@code recycle} waits until the reaper has emptied the slot, i.e. the full
+ * background cost. Set -Dbenchmark.workspace=/dev/shm/... to measure tmpfs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkspaceCleanupBenchmark {
+
+    // Source, binary and scratch files, as a compiled C++ job leaves behind
+    @Param({"3", "50"})
+    private int files;
+
+    @Param({"4096", "1048576"})
+    private int fileBytes;
+
+    private WorkspaceManager workspaceManager;
+    private Path root;
+    private byte[] content;
+    private Path jobDir;
+
+    @Setup(Level.Trial)
+    public void startWorkspace() throws Exception {
+        root = Path.of(System.getProperty("benchmark.workspace", "target/bench-workspace"), UUID.randomUUID().toString());
+        content = new byte[fileBytes];
+        workspaceManager = new WorkspaceManager();
+        Fixtures.set(workspaceManager, "config", Fixtures.config(Map.of(
+            "workspaceDir", root.toString(),
+            "workspacePoolSize", 1)));
+        workspaceManager.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopWorkspace() {
+        workspaceManager.shutdown();
+        deleteTree(root);
+    }
+
+    @Setup(Level.Invocation)
+    public void populate() throws IOException {
+        awaitFreeSlot();
+        jobDir = workspaceManager.acquire();
+        Files.createDirectories(jobDir.resolve("tmp"));
+        for (int i = 0; i < files; i++) {
+            Files.write(jobDir.resolve((i % 2 == 0 ? "" : "tmp/") + "file-" + i), content);
+        }
+    }
+
+    @Benchmark
+    public void deleteTree() {
+        deleteTree(jobDir);
+        // The old per-request cleanup; recreate the slot so the pool stays intact
+        try {
+            Files.createDirectories(jobDir);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        workspaceManager.release(jobDir);
+    }
+
+    @Benchmark
+    public void release() {
+        workspaceManager.release(jobDir);
+    }
+
+    @Benchmark
+    public void recycle() {
+        workspaceManager.release(jobDir);
+        awaitFreeSlot();
+    }
+
+    private void awaitFreeSlot() {
+        while (workspaceManager.getFreeSlots() == 0) {
+            // Park rather than spin, so the reaper gets the CPU on small machines
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    private static void deleteTree(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +1,5 @@
 // App.jsx
-import React, { useState, useEffect, useCallback } from "react";
+import React, { useState, useEffect, useCallback, useRef } from "react";
 
 import { useTheme } from "./hooks/useTheme";
 import { useLocalStorage } from "./hooks/useLocalStorage";
@@ -13,7 +13,7 @@ import VerticalResizableHandle from "./components/VerticalResizableHandle";
 import ControlsPanel from "./components/ControlsPanel";
 import LoadingSpinner from "./components/LoadingSpinner";
 
-import { executeCode } from "./api/codeExecution";
+import { executeCodeStream } from "./api/codeExecution";
 import { Terminal, CheckCircle, XCircle, AlertCircle } from "lucide-react";
 
 import { languageOptions } from "./constants/languages";
@@ -33,13 +33,29 @@ export default function App() {
   const [userOutput, setUserOutput] = useState([]);
   const [loading, setLoading] = useState(false);
 
+  const runAbort = useRef(null);
+
   const runCode = useCallback(async () => {
     if (!userCode) return;
+    // A new run cancels the previous one on the server
+    runAbort.current?.abort();
+    const controller = new AbortController();
+    runAbort.current = controller;
+
     setLoading(true);
-    setUserOutput([]); // Clear previous output immediately
-    const { outputs } = await executeCode(userLang.apiValue, userCode, userInput);
-    setUserOutput(outputs);
-    setLoading(false);
+    const pending = userInput.map(() => "Running...");
+    setUserOutput(pending); // Clear previous output immediately
+    const { outputs } = await executeCodeStream(userLang.apiValue, userCode, userInput, {
+      signal: controller.signal,
+      onResult: (index, output) => {
+        pending[index] = output;
+        setUserOutput([...pending]);
+      },
+    });
+    if (runAbort.current === controller) {
+      setUserOutput(outputs);
+      setLoading(false);
+    }
   }, [userCode, userLang.apiValue, userInput]);
 
   const loadCodeFromFile = (e) => {
@@ -1,17 +1,39 @@
 // src/api/codeExecution.js
 import axios from "axios";
 
+// Request bodies larger than this are gzipped when the browser can do it (the server inflates them)
+const COMPRESS_MIN_BYTES = 16 * 1024;
+
+// JSON body and headers for a request, gzipped when large
+const encodeBody = async (payload) => {
+  const json = JSON.stringify(payload);
+  if (json.length < COMPRESS_MIN_BYTES || typeof CompressionStream === "undefined") {
+    return { body: json, headers: { "Content-Type": "application/json" } };
+  }
+  const gzipped = new Blob([json]).stream().pipeThrough(new CompressionStream("gzip"));
+  return {
+    body: await new Response(gzipped).arrayBuffer(),
+    headers: { "Content-Type": "application/json", "Content-Encoding": "gzip" },
+  };
+};
+
+// With dedupeOutputs the server sends each distinct output once; outputRefs maps inputs to them
+const expandOutputs = (data) =>
+  data.outputRefs ? data.outputRefs.map((ref) => data.outputs[ref]) : data.outputs;
+
 export const executeCode = async (language, code, inputs) => {
   try {
     console.log("Sending request to:", import.meta.env.VITE_API_URL);
     console.log("Request data:", { language, code: code.substring(0, 100) + "...", inputs, key: "***" });
     
-    const response = await axios.post(import.meta.env.VITE_API_URL, {
+    const { body, headers } = await encodeBody({
       language: language,
       code: code,
       inputs: inputs,
       key: import.meta.env.VITE_API_KEY,
+      dedupeOutputs: true,
     });
+    const response = await axios.post(import.meta.env.VITE_API_URL, body, { headers });
 
     console.log("Response received:", response.status, response.data);
 
@@ -19,7 +41,7 @@ export const executeCode = async (language, code, inputs) => {
       // Return a structured error response
       return { error: true, outputs: [response.data.message] };
     }
-    return { error: false, outputs: response.data.outputs };
+    return { error: false, outputs: expandOutputs(response.data) };
   } catch (err) {
     console.error("API Error:", err);
     console.error("Error details:", err.response?.data);
@@ -34,4 +56,71 @@ export const executeCode = async (language, code, inputs) => {
       return { error: true, outputs: [`Error: ${err.message}`] };
     }
   }
-};
\ No newline at end of file
+};
+
+const streamUrl = () => `${import.meta.env.VITE_API_URL.replace(/\/$/, "")}/stream`;
+
+// Parses one Server-Sent Events block ("event:" / "data:" lines) into { event, data }
+const parseEvent = (block) => {
+  let event = "message";
+  const data = [];
+  for (const line of block.split("\n")) {
+    if (line.startsWith("event:")) {
+      event = line.slice(6).trim();
+    } else if (line.startsWith("data:")) {
+      data.push(line.slice(5).replace(/^ /, ""));
+    }
+  }
+  return data.length ? { event, data: JSON.parse(data.join("\n")) } : null;
+};
+
+// Same result shape as executeCode, but reports each input through onResult(index, output)
+// as soon as it finishes. Aborting the signal stops the runs on the server.
+export const executeCodeStream = async (language, code, inputs, { onResult, signal } = {}) => {
+  const outputs = inputs.map(() => "");
+  try {
+    const { body, headers } = await encodeBody({ language, code, inputs, key: import.meta.env.VITE_API_KEY });
+    const response = await fetch(streamUrl(), {
+      method: "POST",
+      headers: { ...headers, Accept: "text/event-stream" },
+      body,
+      signal,
+    });
+    if (!response.ok) {
+      const body = await response.json().catch(() => ({}));
+      return { error: true, outputs: [body.message || `Error: ${response.status}`] };
+    }
+
+    const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = "";
+    for (;;) {
+      const { value, done } = await reader.read();
+      if (done) break;
+      buffer += value;
+
+      let boundary;
+      while ((boundary = buffer.indexOf("\n\n")) !== -1) {
+        const parsed = parseEvent(buffer.slice(0, boundary));
+        buffer = buffer.slice(boundary + 2);
+        if (!parsed) continue;
+
+        const { event, data } = parsed;
+        if (event === "compile" && data.status === "error") {
+          return { error: false, outputs: [data.message] };
+        } else if (event === "result") {
+          outputs[data.index] = data.output;
+          onResult?.(data.index, data.output, data);
+        } else if (event === "error") {
+          return { error: true, outputs: [data.message] };
+        }
+      }
+    }
+    return { error: false, outputs };
+  } catch (err) {
+    if (err.name === "AbortError") {
+      return { error: true, outputs: ["Run cancelled."] };
+    }
+    console.error("Streaming API Error:", err);
+    return { error: true, outputs: ["Error: Could not connect to the execution service."] };
+  }
+};
@@ -0,0 +1,380 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test for POST /.
+ *
+ * Boots the server jar with the stub toolchains in ./stubs first on PATH (warm
+ * pools and the compile cache off, so every request compiles and spawns),
+ * then drives it at each concurrency level for a fixed time and reports
+ * throughput, latency percentiles, error/timeout/rejection rates and the peak
+ * number of child processes. Needs only a JDK and the built jar; no network.
+ *
+ * Run from the loadtest directory: java LoadTest.java [--option value ...]
+ * See README.md for the options.
+ */
+public class LoadTest {
+
+    // Shared by the coordinator and workers started here; the cluster refuses to use the API key
+    private static final String CLUSTER_KEY = "loadtest-cluster-key";
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("jar", "../server/target/server-0.0.1-SNAPSHOT.jar");
+        DEFAULTS.put("port", "5099");
+        DEFAULTS.put("url", "");                    // drive an already running server instead
+        DEFAULTS.put("key", "default-secret-key");
+        DEFAULTS.put("concurrency", "1,2,4,8,16,32");
+        DEFAULTS.put("duration", "10");             // seconds per concurrency level
+        DEFAULTS.put("languages", "C,C++,Go,Java,Python,JavaScript");
+        DEFAULTS.put("inputs", "1");
+        DEFAULTS.put("compile-ms", "50");
+        DEFAULTS.put("compile-error-percent", "0");
+        DEFAULTS.put("run-ms", "20");
+        DEFAULTS.put("output-bytes", "64");
+        DEFAULTS.put("hang-percent", "0");
+        DEFAULTS.put("exec-timeout", "2000");
+        DEFAULTS.put("server-args", "");            // extra --app.x=y arguments, space separated
+        DEFAULTS.put("workers", "0");               // >0: a coordinator on port, workers on the ports after it
+        DEFAULTS.put("kill-worker-after", "0");     // seconds into the run to kill the first worker
+        DEFAULTS.put("max-p99-ms", "0");            // fail (exit 1) if any level exceeds this
+        DEFAULTS.put("max-error-rate", "-1");       // fail if any level's error rate exceeds this (0..1)
+    }
+
+    private static final Map<String, String> PROGRAMS = Map.of(
+        "C", "#include <stdio.h>\nint main() { puts(\"hi\"); return 0; }\n",
+        "C++", "#include <iostream>\nint main() { std::cout << \"hi\"; }\n",
+        "Go", "package main\nimport \"fmt\"\nfunc main() { fmt.Println(\"hi\") }\n",
+        "Java", "public class Main {\n    public static void main(String[] args) { System.out.println(\"hi\"); }\n}\n",
+        "Python", "print(input())\n",
+        "JavaScript", "console.log('hi');\n"
+    );
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        List<Process> servers = new ArrayList<>();
+        String url = options.get("url");
+        if (url.isEmpty()) {
+            int port = Integer.parseInt(options.get("port"));
+            int workerCount = Integer.parseInt(options.get("workers"));
+            List<String> workerUrls = new ArrayList<>();
+            for (int i = 1; i <= workerCount; i++) {
+                Process worker = startServer(options, port + i, "worker-" + i, List.of("--app.cluster.role=worker", "--app.cluster.key=" + CLUSTER_KEY));
+                servers.add(worker);
+                workerUrls.add("http://localhost:" + (port + i));
+                awaitHealthy(client, workerUrls.get(i - 1), worker);
+            }
+            List<String> roleArgs = workerCount == 0 ? List.of()
+                : List.of("--app.cluster.role=coordinator", "--app.cluster.workers=" + String.join(",", workerUrls),
+                    "--app.cluster.key=" + CLUSTER_KEY);
+            Process server = startServer(options, port, workerCount == 0 ? "server" : "coordinator", roleArgs);
+            servers.add(server);
+            url = "http://localhost:" + port;
+            awaitHealthy(client, url, server);
+            scheduleWorkerKill(options, servers, workerUrls);
+        }
+
+        boolean passed = true;
+        try {
+            System.out.printf("%-12s %9s %9s %9s %9s %9s %8s %8s %8s %10s%n",
+                "concurrency", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "errors", "timeouts", "rejected", "peak procs");
+            for (String level : options.get("concurrency").split(",")) {
+                Stage stage = new Stage(client, url, options, Integer.parseInt(level.trim()), servers);
+                Result result = stage.run();
+                System.out.println(result.format());
+                passed &= result.check(options);
+            }
+        } finally {
+            for (Process server : servers) {
+                server.descendants().forEach(ProcessHandle::destroyForcibly);
+                server.destroy();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i].replaceFirst("^--", "");
+            if (!options.containsKey(name) || i + 1 >= args.length) {
+                System.err.println("Unknown option or missing value: " + args[i]);
+                System.err.println("Options (with defaults): " + DEFAULTS);
+                System.exit(2);
+            }
+            options.put(name, args[++i]);
+        }
+        return options;
+    }
+
+    // Simulates a worker dying mid-job; the coordinator should retry its jobs elsewhere
+    private static void scheduleWorkerKill(Map<String, String> options, List<Process> servers, List<String> workerUrls) {
+        long delaySeconds = Long.parseLong(options.get("kill-worker-after"));
+        if (delaySeconds <= 0 || workerUrls.isEmpty()) {
+            return;
+        }
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(Duration.ofSeconds(delaySeconds));
+            } catch (InterruptedException e) {
+                return;
+            }
+            Process worker = servers.get(0);
+            worker.descendants().forEach(ProcessHandle::destroyForcibly);
+            worker.destroyForcibly();
+            System.out.println("Killed worker " + workerUrls.get(0));
+        });
+    }
+
+    private static Process startServer(Map<String, String> options, int port, String name, List<String> roleArgs) throws IOException {
+        Path jar = Path.of(options.get("jar")).toAbsolutePath();
+        if (!Files.exists(jar)) {
+            throw new IllegalStateException("Server jar not found: " + jar + " (run mvn package in server/)");
+        }
+        Path stubs = Path.of("stubs").toAbsolutePath();
+        Path workDir = Files.createTempDirectory("codeplayground-loadtest-" + name + "-");
+
+        // The stubs shadow java too, so start the server with this JVM's binary
+        String javaBin = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(javaBin, "-jar", jar.toString(),
+            "--server.port=" + port,
+            "--app.exec-timeout=" + options.get("exec-timeout"),
+            "--app.java-runner.enabled=false",
+            "--app.interpreter-pool.enabled=false",
+            "--app.compile-cache.enabled=false",
+            // The stub gcc cannot build the resource launcher or precompiled headers
+            "--app.limits.enabled=false",
+            "--app.toolchain.enabled=false",
+            // Warm-up programs would run against the stubs and skew their counts
+            "--app.warmup.enabled=false",
+            "--logging.level.org.springframework.web=WARN"));
+        command.addAll(roleArgs);
+        if (!options.get("server-args").isBlank()) {
+            command.addAll(Arrays.asList(options.get("server-args").trim().split("\\s+")));
+        }
+
+        ProcessBuilder pb = new ProcessBuilder(command)
+            .directory(workDir.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(workDir.resolve("server.log").toFile());
+        Map<String, String> env = pb.environment();
+        env.put("PATH", stubs + ":" + env.getOrDefault("PATH", "/usr/bin:/bin"));
+        env.put("STUB_COMPILE_MS", options.get("compile-ms"));
+        env.put("STUB_COMPILE_ERROR_PERCENT", options.get("compile-error-percent"));
+        env.put("STUB_RUN_MS", options.get("run-ms"));
+        env.put("STUB_OUTPUT_BYTES", options.get("output-bytes"));
+        env.put("STUB_HANG_PERCENT", options.get("hang-percent"));
+
+        System.out.println("Starting " + name + " on port " + port + " in " + workDir + " (log: server.log)");
+        return pb.start();
+    }
+
+    private static void awaitHealthy(HttpClient client, String url, Process server) throws Exception {
+        HttpRequest health = HttpRequest.newBuilder(URI.create(url + "/health")).GET().build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Server exited with code " + server.exitValue());
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("Server did not become healthy within 60s");
+    }
+
+    // One concurrency level: N closed-loop clients for a fixed duration
+    private static class Stage {
+
+        private final HttpClient client;
+        private final String url;
+        private final Map<String, String> options;
+        private final int concurrency;
+        private final List<Process> servers;
+        private final ConcurrentLinkedQueue<Long> latenciesNanos = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger errors = new AtomicInteger();
+        private final AtomicInteger timeouts = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private final AtomicLong sequence = new AtomicLong();
+        private volatile int peakProcesses;
+
+        Stage(HttpClient client, String url, Map<String, String> options, int concurrency, List<Process> servers) {
+            this.client = client;
+            this.url = url;
+            this.options = options;
+            this.concurrency = concurrency;
+            this.servers = servers;
+        }
+
+        Result run() throws InterruptedException {
+            String[] languages = options.get("languages").split(",");
+            long durationNanos = Duration.ofSeconds(Long.parseLong(options.get("duration"))).toNanos();
+            long start = System.nanoTime();
+            long deadline = start + durationNanos;
+
+            Thread sampler = Thread.ofVirtual().start(() -> sampleProcesses(deadline));
+            CountDownLatch done = new CountDownLatch(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                int client = i;
+                Thread.ofVirtual().start(() -> {
+                    try {
+                        int n = client;
+                        while (System.nanoTime() < deadline) {
+                            send(languages[n++ % languages.length].trim());
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            sampler.join();
+            return new Result(concurrency, new ArrayList<>(latenciesNanos), System.nanoTime() - start,
+                errors.get(), timeouts.get(), rejected.get(), servers.isEmpty() ? -1 : peakProcesses);
+        }
+
+        private void send(String language) {
+            // A unique comment keeps requests distinct if the compile cache is turned back on
+            String code = PROGRAMS.get(language) + (language.equals("Python") ? "# " : "// ") + sequence.incrementAndGet() + "\n";
+            List<String> inputs = new ArrayList<>();
+            for (int i = 0; i < Integer.parseInt(options.get("inputs")); i++) {
+                inputs.add("input " + i);
+            }
+            String body = "{\"language\":" + json(language) + ",\"code\":" + json(code)
+                + ",\"inputs\":[" + String.join(",", inputs.stream().map(LoadTest::json).toList()) + "]"
+                + ",\"key\":" + json(options.get("key")) + "}";
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(2))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+            long sent = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                latenciesNanos.add(System.nanoTime() - sent);
+                if (response.statusCode() == 503) {
+                    rejected.incrementAndGet();
+                } else if (response.statusCode() != 200 || !response.body().contains("\"status\":\"success\"")) {
+                    errors.incrementAndGet();
+                } else if (response.body().contains("timed out")) {
+                    timeouts.incrementAndGet();
+                }
+            } catch (IOException e) {
+                latenciesNanos.add(System.nanoTime() - sent);
+                errors.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void sampleProcesses(long deadline) {
+            if (servers.isEmpty()) {
+                return;
+            }
+            while (System.nanoTime() < deadline) {
+                int count = (int) servers.stream().mapToLong(server -> server.descendants().count()).sum();
+                if (count > peakProcesses) {
+                    peakProcesses = count;
+                }
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private record Result(int concurrency, List<Long> latenciesNanos, long elapsedNanos,
+                          int errors, int timeouts, int rejected, int peakProcesses) {
+
+        double percentileMs(double p) {
+            if (latenciesNanos.isEmpty()) {
+                return 0;
+            }
+            List<Long> sorted = latenciesNanos.stream().sorted().toList();
+            int index = (int) Math.ceil(p * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1))) / 1_000_000.0;
+        }
+
+        double errorRate() {
+            return latenciesNanos.isEmpty() ? 0 : errors / (double) latenciesNanos.size();
+        }
+
+        String format() {
+            int requests = latenciesNanos.size();
+            return String.format("%-12d %9d %9.1f %9.1f %9.1f %9.1f %7.1f%% %7.1f%% %7.1f%% %10s",
+                concurrency, requests, requests / (elapsedNanos / 1e9),
+                percentileMs(0.50), percentileMs(0.99), percentileMs(1.0),
+                rate(errors), rate(timeouts), rate(rejected),
+                peakProcesses < 0 ? "n/a" : String.valueOf(peakProcesses));
+        }
+
+        boolean check(Map<String, String> options) {
+            double maxP99 = Double.parseDouble(options.get("max-p99-ms"));
+            double maxErrorRate = Double.parseDouble(options.get("max-error-rate"));
+            boolean ok = true;
+            if (maxP99 > 0 && percentileMs(0.99) > maxP99) {
+                System.out.printf("  FAIL: p99 %.1f ms exceeds %.1f ms%n", percentileMs(0.99), maxP99);
+                ok = false;
+            }
+            if (maxErrorRate >= 0 && errorRate() > maxErrorRate) {
+                System.out.printf("  FAIL: error rate %.3f exceeds %.3f%n", errorRate(), maxErrorRate);
+                ok = false;
+            }
+            return ok;
+        }
+
+        private double rate(int count) {
+            return latenciesNanos.isEmpty() ? 0 : 100.0 * count / latenciesNanos.size();
+        }
+    }
+
+    private static String json(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.web.server.config;
+
+// A caller identified by its API key, with its share of the scheduler and its quotas; zero means unlimited
+public class ApiClient {
+
+    // Work a server runs for itself rather than for a caller
+    public static final ApiClient INTERNAL = new ApiClient("internal", null, 1.0, 0, 0, 0);
+
+    private final String name;
+    private final String key;
+    private final double weight;
+    private final int maxConcurrent;
+    private final double requestsPerSecond;
+    private final int burst;
+
+    // Constructor with parameters
+    public ApiClient(String name, String key, double weight, int maxConcurrent, double requestsPerSecond, int burst) {
+        this.name = name;
+        this.key = key;
+        this.weight = weight;
+        this.maxConcurrent = maxConcurrent;
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+    }
+
+    // Getters
+    public String getName() {
+        return name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    // Relative share of compile and run slots when clients compete for them
+    public double getWeight() {
+        return weight;
+    }
+
+    // Executions in progress at once
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    // Requests allowed in a burst above the steady rate
+    public int getBurst() {
+        return burst;
+    }
+}
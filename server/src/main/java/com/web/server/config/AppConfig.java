@@ -1,14 +1,29 @@
 package com.web.server.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 public class AppConfig {
     
+    @Autowired
+    private Environment environment;
+    
     @Value("${app.base-dir:jobs}")
     private String baseDir;
     
+    @Value("${app.workspace.dir:${app.base-dir:jobs}}")
+    private String workspaceDir;
+    
+    @Value("${app.workspace.pool-size:16}")
+    private int workspacePoolSize;
+    
     @Value("${app.exec-timeout:10000}")
     private long execTimeoutMs;
     
@@ -24,6 +39,168 @@ public class AppConfig {
     @Value("${app.secret-key}")
     private String secretKey;
     
+    @Value("${app.max-output-bytes:1048576}")
+    private int maxOutputBytes;
+    
+    @Value("${app.max-compile-output-bytes:65536}")
+    private int maxCompileOutputBytes;
+    
+    @Value("${app.scheduler.threads:0}")
+    private int schedulerThreads;
+    
+    @Value("${app.scheduler.queue-capacity:100}")
+    private int schedulerQueueCapacity;
+    
+    @Value("${app.clients:}")
+    private List<String> clientNames;
+    
+    @Value("${app.session.enabled:true}")
+    private boolean sessionEnabled;
+    
+    @Value("${app.session.max-sessions:50}")
+    private int sessionMaxSessions;
+    
+    @Value("${app.session.max-workspace-mb:512}")
+    private long sessionMaxWorkspaceMb;
+    
+    @Value("${app.session.idle-timeout-ms:300000}")
+    private long sessionIdleTimeoutMs;
+    
+    @Value("${app.session.run-timeout-ms:300000}")
+    private long sessionRunTimeoutMs;
+    
+    @Value("${app.warmup.enabled:true}")
+    private boolean warmupEnabled;
+    
+    @Value("${app.warmup.rounds:2}")
+    private int warmupRounds;
+    
+    @Value("${app.warmup.timeout-ms:120000}")
+    private long warmupTimeoutMs;
+    
+    @Value("${app.warmup.fast-request-ms:1000}")
+    private long warmupFastRequestMs;
+    
+    @Value("${app.tracing.enabled:true}")
+    private boolean tracingEnabled;
+    
+    @Value("${app.tracing.ring-size:200}")
+    private int tracingRingSize;
+    
+    @Value("${app.tracing.admin-key:}")
+    private String tracingAdminKey;
+    
+    @Value("${app.tracing.export:none}")
+    private String tracingExport;
+    
+    @Value("${app.tracing.file:traces.jsonl}")
+    private String tracingFile;
+    
+    @Value("${app.tracing.otlp-endpoint:http://localhost:4318/v1/traces}")
+    private String tracingOtlpEndpoint;
+    
+    @Value("${app.compression.max-request-bytes:10485760}")
+    private long compressionMaxRequestBytes;
+    
+    @Value("${app.judge.parallel-submissions:0}")
+    private int judgeParallelSubmissions;
+    
+    @Value("${app.judge.timeout-ms:600000}")
+    private long judgeTimeoutMs;
+    
+    @Value("${app.scheduler.compile-threads:0}")
+    private int schedulerCompileThreads;
+    
+    @Value("${app.scheduler.compile-queue-capacity:100}")
+    private int schedulerCompileQueueCapacity;
+    
+    @Value("${app.scheduler.retry-after-seconds:1}")
+    private int schedulerRetryAfterSeconds;
+    
+    @Value("${app.java-runner.enabled:true}")
+    private boolean javaRunnerEnabled;
+    
+    @Value("${app.java-runner.dir:java-runner}")
+    private String javaRunnerDir;
+    
+    @Value("${app.java-runner.pool-size:0}")
+    private int javaRunnerPoolSize;
+    
+    @Value("${app.java-runner.max-jobs:100}")
+    private int javaRunnerMaxJobs;
+    
+    @Value("${app.java-runner.max-heap:256m}")
+    private String javaRunnerMaxHeap;
+    
+    @Value("${app.interpreter-pool.enabled:true}")
+    private boolean interpreterPoolEnabled;
+    
+    @Value("${app.interpreter-pool.dir:interpreter-pool}")
+    private String interpreterPoolDir;
+    
+    @Value("${app.interpreter-pool.size:0}")
+    private int interpreterPoolSize;
+    
+    @Value("${app.compile-cache.enabled:true}")
+    private boolean compileCacheEnabled;
+    
+    @Value("${app.compile-cache.dir:compile-cache}")
+    private String compileCacheDir;
+    
+    @Value("${app.compile-cache.max-bytes:268435456}")
+    private long compileCacheMaxBytes;
+    
+    @Value("${app.result-cache.enabled:false}")
+    private boolean resultCacheEnabled;
+    
+    @Value("${app.result-cache.max-entries:10000}")
+    private int resultCacheMaxEntries;
+    
+    @Value("${app.result-cache.max-bytes:67108864}")
+    private long resultCacheMaxBytes;
+    
+    @Value("${app.result-cache.ttl-seconds:600}")
+    private long resultCacheTtlSeconds;
+    
+    @Value("${app.toolchain.enabled:true}")
+    private boolean toolchainEnabled;
+    
+    @Value("${app.toolchain.dir:toolchain}")
+    private String toolchainDir;
+    
+    @Value("${app.single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+    
+    @Value("${app.limits.enabled:true}")
+    private boolean limitsEnabled;
+    
+    @Value("${app.limits.dir:limits}")
+    private String limitsDir;
+    
+    @Value("${app.limits.cgroup-dir:}")
+    private String limitsCgroupDir;
+    
+    @Value("${app.cluster.role:standalone}")
+    private String clusterRole;
+    
+    @Value("${app.cluster.workers:}")
+    private List<String> clusterWorkers;
+    
+    @Value("${app.cluster.key:}")
+    private String clusterKey;
+    
+    @Value("${app.cluster.status-interval-ms:1000}")
+    private long clusterStatusIntervalMs;
+    
+    @Value("${app.cluster.max-attempts:3}")
+    private int clusterMaxAttempts;
+    
+    @Value("${app.cluster.affinity-max-load:0.75}")
+    private double clusterAffinityMaxLoad;
+    
+    @Value("${app.cluster.request-timeout-ms:120000}")
+    private long clusterRequestTimeoutMs;
+    
     // Get executable extension based on OS
     public String getExecExt() {
         return System.getProperty("os.name").toLowerCase().contains("windows") ? ".exe" : "";
@@ -39,6 +216,14 @@ public class AppConfig {
         return baseDir;
     }
     
+    public String getWorkspaceDir() {
+        return workspaceDir;
+    }
+    
+    public int getWorkspacePoolSize() {
+        return workspacePoolSize;
+    }
+    
     public long getExecTimeoutMs() {
         return execTimeoutMs;
     }
@@ -58,4 +243,312 @@ public class AppConfig {
     public String getSecretKey() {
         return secretKey;
     }
+    
+    public int getMaxOutputBytes() {
+        return maxOutputBytes;
+    }
+    
+    public int getMaxCompileOutputBytes() {
+        return maxCompileOutputBytes;
+    }
+    
+    // Zero means one execution thread per available core
+    public int getSchedulerThreads() {
+        return schedulerThreads > 0 ? schedulerThreads : Runtime.getRuntime().availableProcessors();
+    }
+    
+    public int getSchedulerQueueCapacity() {
+        return schedulerQueueCapacity;
+    }
+    
+    // Interactive sessions run programs locally, so a coordinator does not offer them
+    public boolean isSessionEnabled() {
+        return sessionEnabled && !isClusterCoordinator();
+    }
+    
+    public int getSessionMaxSessions() {
+        return sessionMaxSessions;
+    }
+    
+    public long getSessionMaxWorkspaceBytes() {
+        return sessionMaxWorkspaceMb * 1024 * 1024;
+    }
+    
+    public long getSessionIdleTimeoutMs() {
+        return sessionIdleTimeoutMs;
+    }
+    
+    public long getSessionRunTimeoutMs() {
+        return sessionRunTimeoutMs;
+    }
+    
+    // Toolchains live on the workers, so a coordinator has nothing to warm up
+    public boolean isWarmupEnabled() {
+        return warmupEnabled && !isClusterCoordinator();
+    }
+    
+    public int getWarmupRounds() {
+        return warmupRounds;
+    }
+    
+    public long getWarmupTimeoutMs() {
+        return warmupTimeoutMs;
+    }
+    
+    // Requests completing within this count as fast for the startup report
+    public long getWarmupFastRequestMs() {
+        return warmupFastRequestMs;
+    }
+    
+    public boolean isTracingEnabled() {
+        return tracingEnabled;
+    }
+    
+    // Recent request traces kept for /admin/traces
+    public int getTracingRingSize() {
+        return tracingRingSize;
+    }
+    
+    // Blank disables /admin; never the secret key, which the frontend ships to every browser
+    public String getTracingAdminKey() {
+        return tracingAdminKey;
+    }
+    
+    // none, file or otlp
+    public String getTracingExport() {
+        return tracingExport.trim().toLowerCase();
+    }
+    
+    public String getTracingFile() {
+        return tracingFile;
+    }
+    
+    public String getTracingOtlpEndpoint() {
+        return tracingOtlpEndpoint;
+    }
+    
+    // Largest body a compressed request may inflate to
+    public long getCompressionMaxRequestBytes() {
+        return compressionMaxRequestBytes;
+    }
+    
+    // Submissions of one judge batch graded at once
+    public int getJudgeParallelSubmissions() {
+        return judgeParallelSubmissions > 0 ? judgeParallelSubmissions : getSchedulerThreads();
+    }
+    
+    public long getJudgeTimeoutMs() {
+        return judgeTimeoutMs;
+    }
+    
+    // Compilers are heavier than runs, so by default half as many compile at once
+    public int getSchedulerCompileThreads() {
+        return schedulerCompileThreads > 0 ? schedulerCompileThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+    
+    public int getSchedulerCompileQueueCapacity() {
+        return schedulerCompileQueueCapacity;
+    }
+    
+    public int getSchedulerRetryAfterSeconds() {
+        return schedulerRetryAfterSeconds;
+    }
+    
+    // A coordinator runs no programs, so it keeps no warm runners or workers
+    public boolean isJavaRunnerEnabled() {
+        return javaRunnerEnabled && !isClusterCoordinator();
+    }
+    
+    public String getJavaRunnerDir() {
+        return javaRunnerDir;
+    }
+    
+    // Zero means one runner per execution thread
+    public int getJavaRunnerPoolSize() {
+        return javaRunnerPoolSize > 0 ? javaRunnerPoolSize : getSchedulerThreads();
+    }
+    
+    public int getJavaRunnerMaxJobs() {
+        return javaRunnerMaxJobs;
+    }
+    
+    public String getJavaRunnerMaxHeap() {
+        return javaRunnerMaxHeap;
+    }
+    
+    // False falls back to starting a fresh interpreter per input
+    public boolean isInterpreterPoolEnabled() {
+        return interpreterPoolEnabled && !isClusterCoordinator();
+    }
+    
+    public String getInterpreterPoolDir() {
+        return interpreterPoolDir;
+    }
+    
+    // Zero means one warm worker per execution thread, per language
+    public int getInterpreterPoolSize() {
+        return interpreterPoolSize > 0 ? interpreterPoolSize : getSchedulerThreads();
+    }
+    
+    public boolean isCompileCacheEnabled() {
+        return compileCacheEnabled;
+    }
+    
+    public String getCompileCacheDir() {
+        return compileCacheDir;
+    }
+    
+    public long getCompileCacheMaxBytes() {
+        return compileCacheMaxBytes;
+    }
+    
+    public boolean isResultCacheEnabled() {
+        return resultCacheEnabled;
+    }
+    
+    public int getResultCacheMaxEntries() {
+        return resultCacheMaxEntries;
+    }
+    
+    public long getResultCacheMaxBytes() {
+        return resultCacheMaxBytes;
+    }
+    
+    public long getResultCacheTtlSeconds() {
+        return resultCacheTtlSeconds;
+    }
+    
+    public boolean isToolchainEnabled() {
+        return toolchainEnabled;
+    }
+    
+    public String getToolchainDir() {
+        return toolchainDir;
+    }
+    
+    // Compiler flags from app.toolchain.<language>.optimization, e.g. -O2 for C and C++
+    public List<String> getToolchainOptimization(String language) {
+        return words(environment.getProperty("app.toolchain." + languageId(language) + ".optimization", ""), " ");
+    }
+    
+    // Headers to precompile from app.toolchain.<language>.pch-headers, e.g. bits/stdc++.h
+    public List<String> getPchHeaders(String language) {
+        return words(environment.getProperty("app.toolchain." + languageId(language) + ".pch-headers", ""), ",");
+    }
+    
+    public boolean isSingleFlightEnabled() {
+        return singleFlightEnabled;
+    }
+    
+    public boolean isLimitsEnabled() {
+        return limitsEnabled;
+    }
+    
+    public String getLimitsDir() {
+        return limitsDir;
+    }
+    
+    // Empty when no delegated cgroup v2 directory is configured
+    public String getLimitsCgroupDir() {
+        return limitsCgroupDir;
+    }
+    
+    // standalone, coordinator (dispatches to workers) or worker (also serves /internal)
+    public String getClusterRole() {
+        return clusterRole;
+    }
+    
+    public boolean isClusterCoordinator() {
+        return "coordinator".equals(clusterRole);
+    }
+    
+    public boolean isClusterWorker() {
+        return "worker".equals(clusterRole);
+    }
+    
+    // Base URLs of the workers, e.g. http://10.0.0.5:5000
+    public List<String> getClusterWorkers() {
+        return clusterWorkers;
+    }
+    
+    public String getClusterKey() {
+        return clusterKey;
+    }
+    
+    public long getClusterStatusIntervalMs() {
+        return clusterStatusIntervalMs;
+    }
+    
+    public int getClusterMaxAttempts() {
+        return clusterMaxAttempts;
+    }
+    
+    public double getClusterAffinityMaxLoad() {
+        return clusterAffinityMaxLoad;
+    }
+    
+    public long getClusterRequestTimeoutMs() {
+        return clusterRequestTimeoutMs;
+    }
+    
+    // The client using app.secret-key, then one per name in app.clients with its key in app.clients.<name>.key
+    public List<ApiClient> getApiClients() {
+        List<ApiClient> clients = new ArrayList<>();
+        clients.add(apiClient("default", secretKey));
+        for (String name : clientNames) {
+            if (name.isBlank()) {
+                continue;
+            }
+            String key = environment.getProperty("app.clients." + name.trim() + ".key");
+            if (key == null || key.isBlank()) {
+                throw new IllegalStateException("app.clients." + name.trim() + ".key is not set");
+            }
+            clients.add(apiClient(name.trim(), key));
+        }
+        return clients;
+    }
+    
+    // Settings from app.clients.<name>.<setting>, falling back to app.clients.<setting>
+    private ApiClient apiClient(String name, String key) {
+        String prefix = "app.clients." + name + ".";
+        return new ApiClient(
+            name,
+            key,
+            clientSetting(prefix, "weight", Double.class, 1.0),
+            clientSetting(prefix, "max-concurrent", Integer.class, 0),
+            clientSetting(prefix, "requests-per-second", Double.class, 0.0),
+            clientSetting(prefix, "burst", Integer.class, 10)
+        );
+    }
+    
+    private <T> T clientSetting(String prefix, String name, Class<T> type, T defaultValue) {
+        T value = environment.getProperty(prefix + name, type);
+        return value != null ? value : environment.getProperty("app.clients." + name, type, defaultValue);
+    }
+    
+    // app.limits.<language>.<limit> (e.g. app.limits.cpp.memory-mb), falling back to app.limits.<limit>
+    public ResourceLimits getResourceLimits(String language) {
+        String prefix = "app.limits." + languageId(language) + ".";
+        return new ResourceLimits(
+            limit(prefix, "cpu-seconds", 10),
+            limit(prefix, "memory-mb", 256),
+            limit(prefix, "processes", 64),
+            limit(prefix, "file-size-mb", 16),
+            limit(prefix, "open-files", 64)
+        );
+    }
+    
+    private long limit(String prefix, String name, long defaultValue) {
+        Long value = environment.getProperty(prefix + name, Long.class);
+        return value != null ? value : environment.getProperty("app.limits." + name, Long.class, defaultValue);
+    }
+    
+    // Language name as used in property names: python, c, cpp, java, javascript or go
+    private static String languageId(String language) {
+        return language.toLowerCase().replace("++", "pp");
+    }
+    
+    private static List<String> words(String value, String separator) {
+        return Arrays.stream(value.split(separator)).map(String::trim).filter(word -> !word.isEmpty()).toList();
+    }
 }
@@ -0,0 +1,189 @@
+package com.web.server.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.server.dto.ResponseError;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates request bodies sent with {@code Content-Encoding: gzip} or
+ * {@code deflate}, so that large code and inputs can travel compressed.
+ *
+ * The inflated body is capped at {@code app.compression.max-request-bytes},
+ * with 413 beyond it: a few kilobytes of gzip can inflate to gigabytes.
+ * Other encodings are refused with 415 and an {@code Accept-Encoding} header
+ * listing the ones understood here.
+ */
+@Component
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.isBlank() || encoding.trim().equalsIgnoreCase("identity")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body;
+        try (InputStream inflated = inflate(encoding, request.getInputStream())) {
+            if (inflated == null) {
+                response.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+                reject(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported content encoding: " + encoding);
+                return;
+            }
+            // Inflated up front: the message converters read the whole body into memory anyway
+            long limit = config.getCompressionMaxRequestBytes();
+            body = inflated.readNBytes((int) Math.min(limit + 1, Integer.MAX_VALUE - 8));
+            if (body.length > limit) {
+                reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body exceeds " + limit + " bytes when decompressed");
+                return;
+            }
+        } catch (ZipException | EOFException e) {
+            reject(response, HttpStatus.BAD_REQUEST, "Invalid " + encoding + " body");
+            return;
+        }
+        chain.doFilter(new InflatedRequest(request, body), response);
+    }
+
+    // The decoding stream for the encoding, or null if it is not one understood here
+    private static InputStream inflate(String encoding, InputStream body) throws IOException {
+        return switch (encoding.trim().toLowerCase()) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(body);
+            case "deflate" -> new InflaterInputStream(body);
+            default -> null;
+        };
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        System.out.println("Compressed request rejected: " + message);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ResponseError("error", message));
+    }
+
+    // The request as the handlers see it: the inflated body and its length, with no encoding
+    private static class InflatedRequest extends HttpServletRequestWrapper {
+        private final int length;
+        private final ServletInputStream body;
+
+        InflatedRequest(HttpServletRequest request, byte[] content) {
+            super(request);
+            this.length = content.length;
+            ByteArrayInputStream inflated = new ByteArrayInputStream(content);
+            this.body = new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    return inflated.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    return inflated.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return inflated.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is all available at once
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(body, charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return length;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                return String.valueOf(length);
+            }
+            return name.equalsIgnoreCase(HttpHeaders.CONTENT_ENCODING) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            String value = getHeader(name);
+            if (name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH) || name.equalsIgnoreCase(HttpHeaders.CONTENT_ENCODING)) {
+                return value == null ? Collections.emptyEnumeration() : Collections.enumeration(List.of(value));
+            }
+            return super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames()).stream()
+                .filter(name -> !name.equalsIgnoreCase(HttpHeaders.CONTENT_ENCODING))
+                .toList();
+            return Collections.enumeration(names);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.web.server.config;
+
+// Limits applied to each execution of one language; zero means unlimited
+public class ResourceLimits {
+
+    private final long cpuSeconds;
+    private final long memoryMb;
+    private final long processes;
+    private final long fileSizeMb;
+    private final long openFiles;
+
+    // Constructor with parameters
+    public ResourceLimits(long cpuSeconds, long memoryMb, long processes, long fileSizeMb, long openFiles) {
+        this.cpuSeconds = cpuSeconds;
+        this.memoryMb = memoryMb;
+        this.processes = processes;
+        this.fileSizeMb = fileSizeMb;
+        this.openFiles = openFiles;
+    }
+
+    // Getters
+    public long getCpuSeconds() {
+        return cpuSeconds;
+    }
+
+    public long getMemoryMb() {
+        return memoryMb;
+    }
+
+    public long getProcesses() {
+        return processes;
+    }
+
+    public long getFileSizeMb() {
+        return fileSizeMb;
+    }
+
+    public long getOpenFiles() {
+        return openFiles;
+    }
+}
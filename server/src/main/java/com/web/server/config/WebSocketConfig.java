@@ -0,0 +1,33 @@
+package com.web.server.config;
+
+import com.web.server.controller.SessionHandshakeInterceptor;
+import com.web.server.controller.SessionSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+// Serves interactive sessions at /session when they are enabled, to clients with a valid key; the message size limit is set in application.properties
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private SessionSocketHandler sessionSocketHandler;
+
+    @Autowired
+    private SessionHandshakeInterceptor sessionHandshakeInterceptor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        if (config.isSessionEnabled()) {
+            registry.addHandler(sessionSocketHandler, "/session")
+                .addInterceptors(sessionHandshakeInterceptor)
+                .setAllowedOrigins("*");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.web.server.controller;
+
+import com.web.server.config.AppConfig;
+import com.web.server.dto.ResponseError;
+import com.web.server.dto.TraceRecord;
+import com.web.server.service.Tracer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// Recent request traces, for finding out where slow requests spent their time
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    static final String KEY_HEADER = "X-Admin-Key";
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private Tracer tracer;
+
+    // The slowest of the last app.tracing.ring-size requests, slowest first
+    @GetMapping("/traces")
+    public ResponseEntity<?> traces(@RequestHeader(value = KEY_HEADER, required = false) String key,
+                                    @RequestParam(defaultValue = "20") int limit) {
+        ResponseEntity<?> rejection = checkCaller(key);
+        if (rejection != null) {
+            return rejection;
+        }
+        return ResponseEntity.ok(tracer.getSlowest(limit));
+    }
+
+    @GetMapping("/traces/{traceId}")
+    public ResponseEntity<?> trace(@RequestHeader(value = KEY_HEADER, required = false) String key,
+                                   @PathVariable String traceId) {
+        ResponseEntity<?> rejection = checkCaller(key);
+        if (rejection != null) {
+            return rejection;
+        }
+        TraceRecord trace = tracer.find(traceId);
+        if (trace == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ResponseError("error", "Trace not found"));
+        }
+        return ResponseEntity.ok(trace);
+    }
+
+    private ResponseEntity<?> checkCaller(String key) {
+        if (!config.isTracingEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ResponseError("error", "Tracing is disabled"));
+        }
+        String adminKey = config.getTracingAdminKey();
+        if (adminKey == null || adminKey.isBlank() || adminKey.equals(config.getSecretKey())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ResponseError("error", "Admin endpoints are disabled: set app.tracing.admin-key"));
+        }
+        // Constant time, so timing does not reveal how much of the key matched
+        if (key == null || !MessageDigest.isEqual(adminKey.getBytes(StandardCharsets.UTF_8),
+                key.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new ResponseError("error", "Invalid admin key"));
+        }
+        return null;
+    }
+}
@@ -1,22 +1,41 @@
 package com.web.server.controller;
 
 import com.web.server.config.AppConfig;
+import com.web.server.dto.InputResult;
 import com.web.server.dto.RequestData;
 import com.web.server.dto.ResponseError;
 import com.web.server.dto.ResponseSuccess;
+import com.web.server.service.ClientQuotas;
 import com.web.server.service.CodeExecutionService;
+import com.web.server.service.ExecutionMetrics;
+import com.web.server.service.ExecutionListener;
+import com.web.server.service.ExecutionRejectedException;
+import com.web.server.service.QuotaExceededException;
+import com.web.server.service.RequestTrace;
+import com.web.server.service.ResourceLimiter;
+import com.web.server.service.ResultCache;
+import com.web.server.service.Tracer;
 import com.web.server.util.CodeValidator;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = CodeExecutionController.SERVER_TIMING)
 public class CodeExecutionController {
     
     @Autowired
@@ -28,7 +47,26 @@ public class CodeExecutionController {
     @Autowired
     private CodeValidator codeValidator;
     
-    private static final List<String> SUPPORTED_LANGUAGES = Arrays.asList(
+    @Autowired
+    private ExecutionMetrics executionMetrics;
+    
+    @Autowired
+    private ResultCache resultCache;
+    
+    @Autowired
+    private ResourceLimiter resourceLimiter;
+    
+    @Autowired
+    private ClientQuotas clientQuotas;
+    
+    @Autowired
+    private Tracer tracer;
+    
+    private static final long STREAM_TIMEOUT_SLACK_MS = 5000;
+    
+    static final String SERVER_TIMING = "Server-Timing";
+    
+    public static final List<String> SUPPORTED_LANGUAGES = Arrays.asList(
         "Python", "C", "C++", "Java", "JavaScript", "Go"
     );
     
@@ -38,49 +76,199 @@ public class CodeExecutionController {
     }
     
     @PostMapping("/")
-    public ResponseEntity<?> executeCode(@Valid @RequestBody RequestData requestData) {
+    public DeferredResult<ResponseEntity<?>> executeCode(@Valid @RequestBody RequestData requestData) {
+        System.out.println("Received request: " + requestData.getLanguage() + " with " + requestData.getInputs().size() + " inputs");
+        DeferredResult<ResponseEntity<?>> response = new DeferredResult<>();
+        RequestTrace trace = startTrace(requestData);
+        
+        ResponseEntity<?> rejection = checkRequest(requestData, trace.getRoot());
+        if (rejection != null) {
+            response.setResult(traced(rejection, trace, requestData));
+            return response;
+        }
+        
+        ClientQuotas.Lease lease;
         try {
-            System.out.println("Received request: " + requestData.getLanguage() + " with " + requestData.getInputs().size() + " inputs");
-            
-            // Validate secret key
-            if (!config.getSecretKey().equals(requestData.getKey())) {
-                System.out.println("Invalid secret key provided");
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body(new ResponseError("error", "Invalid secret key"));
+            lease = clientQuotas.admit(clientQuotas.authenticate(requestData.getKey()));
+        } catch (QuotaExceededException e) {
+            response.setResult(traced(errorResponse(e), trace, requestData));
+            return response;
+        }
+        trace.getRoot().attribute("client", lease.getClient().getName());
+        
+        // Execute code; the servlet thread is released until the result is ready
+        System.out.println("Executing code for language: " + requestData.getLanguage());
+        CompletableFuture<List<InputResult>> execution = codeExecutionService.executeAsync(
+            requestData.getLanguage(), 
+            requestData.getCode(), 
+            requestData.getInputs(),
+            ExecutionListener.NONE,
+            lease.getClient(),
+            trace.getRoot()
+        );
+        
+        // Stop the run if the request times out or the connection fails
+        response.onTimeout(() -> execution.cancel(true));
+        response.onError(error -> execution.cancel(true));
+        
+        execution.whenComplete((results, error) -> {
+            lease.close(results);
+            if (error == null) {
+                System.out.println("Code execution completed successfully");
+                response.setResult(traced(ResponseEntity.ok()
+                    .body(successResponse(results, requestData.isDedupeOutputs())), trace, requestData));
+            } else if (!(error instanceof CancellationException)) {
+                response.setResult(traced(errorResponse(error instanceof CompletionException ? error.getCause() : error),
+                    trace, requestData));
+            } else {
+                tracer.finish(trace);
             }
-            
-            // Validate language support
-            if (!SUPPORTED_LANGUAGES.contains(requestData.getLanguage())) {
-                System.out.println("Unsupported language: " + requestData.getLanguage());
-                return ResponseEntity.badRequest()
-                    .body(new ResponseError("error", "Unsupported language"));
+        });
+        return response;
+    }
+    
+    private RequestTrace startTrace(RequestData requestData) {
+        RequestTrace trace = tracer.start("request");
+        trace.getRoot()
+            .attribute("language", requestData.getLanguage())
+            .attribute("inputs", requestData.getInputs().size());
+        return trace;
+    }
+    
+    // Finishes the trace and adds its phases to the response: always as a Server-Timing header, in the body when asked
+    private ResponseEntity<?> traced(ResponseEntity<?> response, RequestTrace trace, RequestData requestData) {
+        tracer.finish(trace);
+        String serverTiming = tracer.serverTiming(trace);
+        if (serverTiming == null) {
+            return response;
+        }
+        if (requestData.isTimings() && response.getBody() instanceof ResponseSuccess success) {
+            success.setTimings(tracer.timings(trace));
+        }
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .header(SERVER_TIMING, serverTiming)
+            .body(response.getBody());
+    }
+    
+    private ResponseSuccess successResponse(List<InputResult> results, boolean dedupeOutputs) {
+        List<String> outputs = results.stream().map(InputResult::getOutput).toList();
+        List<Integer> outputRefs = null;
+        if (dedupeOutputs) {
+            // Inputs often produce the same (possibly large) output; send each one once
+            Map<String, Integer> distinct = new LinkedHashMap<>();
+            outputRefs = outputs.stream().map(output -> distinct.computeIfAbsent(output, added -> distinct.size())).toList();
+            outputs = new ArrayList<>(distinct.keySet());
+        }
+        ResponseSuccess response = resultCache.isEnabled()
+            ? new ResponseSuccess("success", outputs, results.stream().map(InputResult::isCached).toList())
+            : new ResponseSuccess("success", outputs);
+        response.setOutputRefs(outputRefs);
+        if (resourceLimiter.isEnabled()) {
+            response.setUsage(results.stream().map(InputResult::getUsage).toList());
+        }
+        return response;
+    }
+    
+    private ResponseEntity<?> errorResponse(Throwable e) {
+        if (e instanceof QuotaExceededException exceeded) {
+            System.out.println("Quota exceeded: " + exceeded.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exceeded.getRetryAfterSeconds()))
+                .body(new ResponseError("error", exceeded.getMessage()));
+        }
+        if (e instanceof ExecutionRejectedException rejected) {
+            System.out.println("Execution rejected: " + rejected.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()))
+                .body(new ResponseError("error", rejected.getMessage()));
+        }
+        System.err.println("Error executing code: " + e.getMessage());
+        e.printStackTrace();
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(new ResponseError("error", "Internal server error: " + e.getMessage()));
+    }
+    
+    // Streams compile status and each input's result as Server-Sent Events
+    @PostMapping("/stream")
+    public SseEmitter executeCodeStream(@Valid @RequestBody RequestData requestData) {
+        System.out.println("Received streaming request: " + requestData.getLanguage() + " with " + requestData.getInputs().size() + " inputs");
+        
+        long timeoutMs = config.getCompileTimeoutMs() + config.getExecTimeoutMs() * requestData.getInputs().size() + STREAM_TIMEOUT_SLACK_MS;
+        ExecutionEventStream stream = new ExecutionEventStream(timeoutMs);
+        // Headers are sent before the run, so streamed phases only reach the admin endpoint and the exporter
+        RequestTrace trace = startTrace(requestData);
+        
+        ResponseEntity<?> rejection = checkRequest(requestData, trace.getRoot());
+        if (rejection != null) {
+            tracer.finish(trace);
+            if (rejection.getBody() instanceof ResponseSuccess validation) {
+                // Restricted import: reported like a compile error
+                stream.start(listener -> listener.onCompiled(validation.getOutputs().get(0)));
+            } else {
+                stream.error(((ResponseError) rejection.getBody()).getMessage());
             }
-            
-            // Validate code for restricted imports
-            String validationError = codeValidator.validateCode(requestData.getLanguage(), requestData.getCode());
-            if (validationError != null) {
-                System.out.println("Code validation failed: " + validationError);
-                return ResponseEntity.ok()
-                    .body(new ResponseSuccess("success", Arrays.asList(validationError)));
+            return stream.getEmitter();
+        }
+        
+        ClientQuotas.Lease lease;
+        try {
+            lease = clientQuotas.admit(clientQuotas.authenticate(requestData.getKey()));
+        } catch (QuotaExceededException e) {
+            tracer.finish(trace);
+            stream.error(e.getMessage());
+            return stream.getEmitter();
+        }
+        trace.getRoot().attribute("client", lease.getClient().getName());
+        
+        stream.start(listener -> {
+            List<InputResult> results = null;
+            try {
+                results = codeExecutionService.execute(
+                    requestData.getLanguage(),
+                    requestData.getCode(),
+                    requestData.getInputs(),
+                    listener,
+                    lease.getClient(),
+                    trace.getRoot()
+                );
+            } finally {
+                lease.close(results);
+                tracer.finish(trace);
             }
-            
-            // Execute code
-            System.out.println("Executing code for language: " + requestData.getLanguage());
-            List<String> outputs = codeExecutionService.execute(
-                requestData.getLanguage(), 
-                requestData.getCode(), 
-                requestData.getInputs()
-            );
-            
-            System.out.println("Code execution completed successfully");
+        });
+        return stream.getEmitter();
+    }
+    
+    // Returns the response to send instead of executing, or null if the request may run
+    private ResponseEntity<?> checkRequest(RequestData requestData, RequestTrace.Span span) {
+        // Validate the API key (app.secret-key or one of app.clients)
+        if (clientQuotas.authenticate(requestData.getKey()) == null) {
+            System.out.println("Invalid secret key provided");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new ResponseError("error", "Invalid secret key"));
+        }
+        
+        // Validate language support
+        if (!SUPPORTED_LANGUAGES.contains(requestData.getLanguage())) {
+            System.out.println("Unsupported language: " + requestData.getLanguage());
+            return ResponseEntity.badRequest()
+                .body(new ResponseError("error", "Unsupported language"));
+        }
+        
+        // Validate code for restricted imports
+        long validationStart = System.nanoTime();
+        String validationError = codeValidator.validateCode(requestData.getLanguage(), requestData.getCode());
+        long validationEnd = System.nanoTime();
+        String outcome = validationError == null ? "passed" : "rejected";
+        executionMetrics.recordValidation(requestData.getLanguage(), outcome, validationEnd - validationStart);
+        span.record("validation", validationStart, validationEnd).attribute("outcome", outcome);
+        if (validationError != null) {
+            System.out.println("Code validation failed: " + validationError);
             return ResponseEntity.ok()
-                .body(new ResponseSuccess("success", outputs));
-                
-        } catch (Exception e) {
-            System.err.println("Error executing code: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ResponseError("error", "Internal server error: " + e.getMessage()));
+                .body(new ResponseSuccess("success", Arrays.asList(validationError)));
         }
+        
+        return null;
     }
 }
@@ -0,0 +1,112 @@
+package com.web.server.controller;
+
+import com.web.server.dto.InputResult;
+import com.web.server.dto.ResponseError;
+import com.web.server.service.ExecutionListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events view of one execution.
+ *
+ * Emits a {@code compile} event, one {@code result} event per input as soon as
+ * it finishes, then {@code done} (or {@code error}). A periodic comment detects
+ * clients that went away; when the client disconnects the thread running the
+ * execution is interrupted, which kills its processes.
+ */
+class ExecutionEventStream implements ExecutionListener {
+
+    private static final long HEARTBEAT_MS = 1000;
+
+    private static final ScheduledExecutorService HEARTBEATS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sse-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SseEmitter emitter;
+    private final ScheduledFuture<?> heartbeat;
+    private volatile Thread worker;
+    private volatile boolean closed;
+
+    ExecutionEventStream(long timeoutMs) {
+        this.emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(this::cancel);
+        emitter.onTimeout(this::cancel);
+        emitter.onError(error -> cancel());
+        this.heartbeat = HEARTBEATS.scheduleWithFixedDelay(() -> send(SseEmitter.event().comment("keep-alive")),
+            HEARTBEAT_MS, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    // Run the execution on its own virtual thread so the servlet thread is released
+    void start(Execution execution) {
+        worker = Thread.ofVirtual().name("sse-execution").start(() -> {
+            try {
+                execution.run(this);
+                send(SseEmitter.event().name("done").data(Map.of("status", "success")));
+                emitter.complete();
+            } catch (InterruptedException e) {
+                // Client went away; processes were killed on the way out
+            } catch (Exception e) {
+                error(e.getMessage());
+            } finally {
+                heartbeat.cancel(false);
+            }
+        });
+    }
+
+    void error(String message) {
+        send(SseEmitter.event().name("error").data(new ResponseError("error", message)));
+        emitter.complete();
+        heartbeat.cancel(false);
+    }
+
+    @Override
+    public void onCompiled(String compileError) {
+        if (compileError.isEmpty()) {
+            send(SseEmitter.event().name("compile").data(Map.of("status", "success")));
+        } else {
+            send(SseEmitter.event().name("compile").data(Map.of("status", "error", "message", compileError)));
+        }
+    }
+
+    @Override
+    public void onResult(InputResult result) {
+        send(SseEmitter.event().name("result").data(result));
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) {
+        if (closed) {
+            return;
+        }
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            cancel();
+        }
+    }
+
+    private void cancel() {
+        closed = true;
+        heartbeat.cancel(false);
+        Thread running = worker;
+        if (running != null && running.isAlive()) {
+            running.interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    interface Execution {
+        void run(ExecutionListener listener) throws Exception;
+    }
+}
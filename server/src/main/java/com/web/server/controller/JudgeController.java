@@ -0,0 +1,117 @@
+package com.web.server.controller;
+
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import com.web.server.dto.JudgeRequest;
+import com.web.server.dto.JudgeResponse;
+import com.web.server.dto.JudgeSubmission;
+import com.web.server.dto.ResponseError;
+import com.web.server.dto.SubmissionVerdict;
+import com.web.server.service.ClientQuotas;
+import com.web.server.service.ExecutionMetrics;
+import com.web.server.service.JudgeService;
+import com.web.server.service.QuotaExceededException;
+import com.web.server.util.CodeValidator;
+import com.web.server.util.OutputComparator;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Grades a batch of submissions against tests with expected outputs, returning only verdicts
+@RestController
+@CrossOrigin(origins = "*")
+public class JudgeController {
+    
+    @Autowired
+    private AppConfig config;
+    
+    @Autowired
+    private JudgeService judgeService;
+    
+    @Autowired
+    private ClientQuotas clientQuotas;
+    
+    @Autowired
+    private CodeValidator codeValidator;
+    
+    @Autowired
+    private ExecutionMetrics executionMetrics;
+    
+    @PostMapping("/judge")
+    public DeferredResult<ResponseEntity<?>> judge(@Valid @RequestBody JudgeRequest request) {
+        System.out.println("Received judge request: " + request.getSubmissions().size() + " submissions, "
+            + request.getTests().size() + " tests");
+        DeferredResult<ResponseEntity<?>> response = new DeferredResult<>(config.getJudgeTimeoutMs());
+        
+        ApiClient client = clientQuotas.authenticate(request.getKey());
+        if (client == null) {
+            System.out.println("Invalid secret key provided");
+            response.setResult(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new ResponseError("error", "Invalid secret key")));
+            return response;
+        }
+        
+        OutputComparator comparator;
+        try {
+            comparator = new OutputComparator(OutputComparator.parseMode(request.getComparison()), request.getTolerance());
+        } catch (IllegalArgumentException e) {
+            response.setResult(ResponseEntity.badRequest().body(new ResponseError("error", e.getMessage())));
+            return response;
+        }
+        
+        // Admits the first submission, so that a client already over its quotas is refused at once;
+        // the batch admits each further submission as it runs it
+        ClientQuotas.Lease lease;
+        try {
+            lease = clientQuotas.admit(client);
+        } catch (QuotaExceededException e) {
+            System.out.println("Quota exceeded: " + e.getMessage());
+            response.setResult(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ResponseError("error", e.getMessage())));
+            return response;
+        }
+        
+        JudgeService.Batch batch = judgeService.newBatch(request.getTests(), comparator, request.isStopOnFirstFailure(), lease);
+        List<CompletableFuture<SubmissionVerdict>> verdicts = new ArrayList<>();
+        for (JudgeSubmission submission : request.getSubmissions()) {
+            String problem = checkSubmission(submission);
+            verdicts.add(problem == null ? batch.submit(submission) : batch.reject(submission, problem));
+        }
+        
+        // Stop grading if the batch runs past its deadline or the connection fails
+        response.onTimeout(batch::cancel);
+        response.onError(error -> batch.cancel());
+        
+        CompletableFuture.allOf(verdicts.toArray(new CompletableFuture<?>[0])).whenComplete((done, error) -> {
+            batch.close();
+            if (error == null) {
+                System.out.println("Judge request completed");
+                response.setResult(ResponseEntity.ok(new JudgeResponse("success",
+                    verdicts.stream().map(CompletableFuture::join).toList())));
+            }
+        });
+        return response;
+    }
+    
+    // Why a submission cannot run, or null if it may
+    private String checkSubmission(JudgeSubmission submission) {
+        if (!CodeExecutionController.SUPPORTED_LANGUAGES.contains(submission.getLanguage())) {
+            return "Unsupported language";
+        }
+        
+        long validationStart = System.nanoTime();
+        String validationError = codeValidator.validateCode(submission.getLanguage(), submission.getCode());
+        executionMetrics.recordValidation(submission.getLanguage(), validationError == null ? "passed" : "rejected",
+            System.nanoTime() - validationStart);
+        return validationError;
+    }
+}
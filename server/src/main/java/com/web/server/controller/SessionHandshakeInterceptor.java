@@ -0,0 +1,52 @@
+package com.web.server.controller;
+
+import com.web.server.config.ApiClient;
+import com.web.server.service.ClientQuotas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Refuses the WebSocket upgrade unless it carries a valid API key, so that no session exists (or evicts others) before then
+@Component
+public class SessionHandshakeInterceptor implements HandshakeInterceptor {
+
+    // Browsers cannot set headers on a WebSocket, so the key may also come as ?key=
+    static final String KEY_HEADER = "X-API-Key";
+    static final String KEY_PARAMETER = "key";
+    static final String CLIENT_ATTRIBUTE = "client";
+
+    @Autowired
+    private ClientQuotas clientQuotas;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler handler,
+                                   Map<String, Object> attributes) {
+        String key = request.getHeaders().getFirst(KEY_HEADER);
+        if (key == null) {
+            String parameter = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst(KEY_PARAMETER);
+            key = parameter == null ? null : UriUtils.decode(parameter, StandardCharsets.UTF_8);
+        }
+        ApiClient client = key == null ? null : clientQuotas.authenticate(key);
+        if (client == null) {
+            System.out.println("Interactive session refused: invalid secret key");
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+        attributes.put(CLIENT_ATTRIBUTE, client);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler handler,
+                               Exception exception) {
+    }
+}
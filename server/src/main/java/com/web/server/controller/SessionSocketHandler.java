@@ -0,0 +1,168 @@
+package com.web.server.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.server.config.ApiClient;
+import com.web.server.dto.SessionMessage;
+import com.web.server.service.ExecutionMetrics;
+import com.web.server.service.ExecutionRejectedException;
+import com.web.server.service.InteractiveSessions;
+import com.web.server.service.QuotaExceededException;
+import com.web.server.service.SessionOutput;
+import com.web.server.util.CodeValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Interactive sessions over a WebSocket: one session per connection, JSON messages both ways
+@Component
+public class SessionSocketHandler extends TextWebSocketHandler {
+
+    private static final int MAX_CODE_LENGTH = 10000;
+    // Output is sent faster than a slow client reads it; beyond these the connection is closed
+    private static final int SEND_TIME_LIMIT_MS = 10000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 1024 * 1024;
+
+    @Autowired
+    private InteractiveSessions interactiveSessions;
+
+    @Autowired
+    private CodeValidator codeValidator;
+
+    @Autowired
+    private ExecutionMetrics executionMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession connection) throws Exception {
+        WebSocketSession socket = new ConcurrentWebSocketSessionDecorator(connection, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT_BYTES);
+        // Authenticated by SessionHandshakeInterceptor
+        ApiClient client = (ApiClient) connection.getAttributes().get(SessionHandshakeInterceptor.CLIENT_ATTRIBUTE);
+        try {
+            interactiveSessions.open(connection.getId(), client, new SocketOutput(socket));
+        } catch (ExecutionRejectedException e) {
+            System.out.println("Interactive session rejected: " + e.getMessage());
+            connection.close(CloseStatus.SERVICE_OVERLOAD.withReason(e.getMessage()));
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession connection, TextMessage message) throws Exception {
+        InteractiveSessions.Session session = interactiveSessions.get(connection.getId());
+        if (session == null) {
+            return;
+        }
+
+        SessionMessage request;
+        try {
+            request = objectMapper.readValue(message.getPayload(), SessionMessage.class);
+        } catch (JsonProcessingException e) {
+            sendError(connection, "Invalid message");
+            return;
+        }
+
+        switch (request.getType() == null ? "" : request.getType()) {
+            case "start" -> start(connection, session, request);
+            case "stdin" -> session.stdin(request.getData() == null ? "" : request.getData());
+            case "eof" -> session.closeStdin();
+            case "stop" -> session.stop();
+            default -> sendError(connection, "Unknown message type");
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession connection, CloseStatus status) {
+        interactiveSessions.close(connection.getId());
+    }
+
+    private void start(WebSocketSession connection, InteractiveSessions.Session session, SessionMessage request) {
+        if (!CodeExecutionController.SUPPORTED_LANGUAGES.contains(request.getLanguage())) {
+            sendError(connection, "Unsupported language");
+            return;
+        }
+        if (request.getCode() == null || request.getCode().isEmpty()) {
+            sendError(connection, "Code cannot be empty");
+            return;
+        }
+        if (request.getCode().length() > MAX_CODE_LENGTH) {
+            sendError(connection, "Code size cannot exceed " + MAX_CODE_LENGTH + " characters");
+            return;
+        }
+
+        long validationStart = System.nanoTime();
+        String validationError = codeValidator.validateCode(request.getLanguage(), request.getCode());
+        executionMetrics.recordValidation(request.getLanguage(), validationError == null ? "passed" : "rejected",
+            System.nanoTime() - validationStart);
+        if (validationError != null) {
+            send(connection, event("compile", "status", "error", "message", validationError));
+            return;
+        }
+
+        try {
+            session.start(request.getLanguage(), request.getCode());
+        } catch (QuotaExceededException e) {
+            System.out.println("Quota exceeded: " + e.getMessage());
+            send(connection, event("error", "message", e.getMessage(), "retryAfter", e.getRetryAfterSeconds()));
+        }
+    }
+
+    private void sendError(WebSocketSession connection, String message) {
+        send(connection, event("error", "message", message));
+    }
+
+    // Replies on the receiving thread go through the session's own output, which serializes sends
+    private void send(WebSocketSession connection, Map<String, Object> event) {
+        InteractiveSessions.Session session = interactiveSessions.get(connection.getId());
+        if (session != null) {
+            session.send(event);
+        }
+    }
+
+    private static Map<String, Object> event(String type, Object... fields) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", type);
+        for (int i = 0; i < fields.length; i += 2) {
+            event.put((String) fields[i], fields[i + 1]);
+        }
+        return event;
+    }
+
+    private class SocketOutput implements SessionOutput {
+        private final WebSocketSession socket;
+
+        SocketOutput(WebSocketSession socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void send(Map<String, Object> event) {
+            if (!socket.isOpen()) {
+                return;
+            }
+            try {
+                socket.sendMessage(new TextMessage(objectMapper.writeValueAsString(event)));
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or fell too far behind; the decorator closes the connection
+            }
+        }
+
+        @Override
+        public void close(String reason) {
+            try {
+                socket.close(CloseStatus.GOING_AWAY.withReason(reason));
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
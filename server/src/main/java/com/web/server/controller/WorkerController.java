@@ -0,0 +1,155 @@
+package com.web.server.controller;
+
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import com.web.server.dto.InputResult;
+import com.web.server.dto.ResponseError;
+import com.web.server.dto.WorkerJob;
+import com.web.server.dto.WorkerResult;
+import com.web.server.dto.WorkerStatus;
+import com.web.server.service.ClusterDispatcher;
+import com.web.server.service.CodeExecutionService;
+import com.web.server.service.ExecutionListener;
+import com.web.server.service.ExecutionRejectedException;
+import com.web.server.service.ExecutionScheduler;
+import com.web.server.util.CodeValidator;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Endpoints a coordinator uses to run jobs on this server when it is a worker
+@RestController
+@RequestMapping("/internal")
+public class WorkerController {
+    
+    @Autowired
+    private AppConfig config;
+    
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+    
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+    
+    @Autowired
+    private ApplicationAvailability availability;
+    
+    @Autowired
+    private CodeValidator codeValidator;
+    
+    @GetMapping("/status")
+    public ResponseEntity<?> status(@RequestHeader(value = ClusterDispatcher.KEY_HEADER, required = false) String key) {
+        ResponseEntity<?> rejection = checkCaller(key);
+        if (rejection != null) {
+            return rejection;
+        }
+        // Not ready until the warm-up is done, so the coordinator keeps jobs away until then
+        if (availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ResponseError("error", "Warming up"));
+        }
+        return ResponseEntity.ok(new WorkerStatus(
+            config.getSchedulerThreads(),
+            executionScheduler.getActiveCount(),
+            executionScheduler.getQueueDepth(),
+            executionScheduler.getAvailableSlots()
+        ));
+    }
+    
+    @PostMapping("/execute")
+    public DeferredResult<ResponseEntity<?>> execute(@RequestHeader(value = ClusterDispatcher.KEY_HEADER, required = false) String key,
+                                                     @Valid @RequestBody WorkerJob job) {
+        DeferredResult<ResponseEntity<?>> response = new DeferredResult<>(config.getClusterRequestTimeoutMs());
+        ResponseEntity<?> rejection = checkCaller(key);
+        if (rejection == null) {
+            rejection = checkJob(job);
+        }
+        if (rejection != null) {
+            response.setResult(rejection);
+            return response;
+        }
+        
+        CompilationListener listener = new CompilationListener();
+        // Quotas were enforced by the coordinator; only the client's fair share applies here
+        ApiClient client = job.getClient() == null ? ApiClient.INTERNAL
+            : new ApiClient(job.getClient(), null, job.getWeight() > 0 ? job.getWeight() : 1.0, 0, 0, 0);
+        CompletableFuture<List<InputResult>> execution = codeExecutionService.executeAsync(
+            job.getLanguage(), job.getCode(), job.getInputs(), listener, client);
+        
+        // The coordinator gave up or its connection dropped
+        response.onTimeout(() -> execution.cancel(true));
+        response.onError(error -> execution.cancel(true));
+        
+        execution.whenComplete((results, error) -> {
+            if (error == null) {
+                response.setResult(ResponseEntity.ok(new WorkerResult(listener.compileError, results)));
+            } else if (!(error instanceof CancellationException)) {
+                response.setResult(errorResponse(error instanceof CompletionException ? error.getCause() : error));
+            }
+        });
+        return response;
+    }
+    
+    private ResponseEntity<?> checkCaller(String key) {
+        if (!config.isClusterWorker()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ResponseError("error", "Not a worker"));
+        }
+        // Constant time, so timing does not reveal how much of the key matched
+        if (key == null || !MessageDigest.isEqual(config.getClusterKey().getBytes(StandardCharsets.UTF_8),
+                key.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new ResponseError("error", "Invalid cluster key"));
+        }
+        return null;
+    }
+    
+    // The coordinator checks jobs before sending them, but a worker does not take that on trust
+    private ResponseEntity<?> checkJob(WorkerJob job) {
+        if (!CodeExecutionController.SUPPORTED_LANGUAGES.contains(job.getLanguage())) {
+            return ResponseEntity.badRequest()
+                .body(new ResponseError("error", "Unsupported language"));
+        }
+        String validationError = codeValidator.validateCode(job.getLanguage(), job.getCode());
+        if (validationError != null) {
+            System.out.println("Rejected job with restricted code: " + validationError);
+            return ResponseEntity.badRequest()
+                .body(new ResponseError("error", validationError));
+        }
+        return null;
+    }
+    
+    private ResponseEntity<?> errorResponse(Throwable e) {
+        if (e instanceof ExecutionRejectedException rejected) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()))
+                .body(new ResponseError("error", rejected.getMessage()));
+        }
+        System.err.println("Error executing job for coordinator: " + e.getMessage());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(new ResponseError("error", "Internal server error: " + e.getMessage()));
+    }
+    
+    // Keeps the compile message, which the coordinator replays to its own listener
+    private static class CompilationListener implements ExecutionListener {
+        private volatile String compileError = "";
+        
+        @Override
+        public void onCompiled(String compileError) {
+            this.compileError = compileError;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.web.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+public class InputResult {
+
+    private int index;
+    private String output;
+    private int exitCode;
+    private boolean timedOut;
+    private long timeMs;
+    private boolean cached;
+
+    // Measured CPU time, wall time and peak memory; omitted when limits are off
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ResourceUsage usage;
+
+    // Default constructor
+    public InputResult() {}
+
+    // Constructor with parameters
+    public InputResult(int index, String output, int exitCode, boolean timedOut, long timeMs) {
+        this.index = index;
+        this.output = output;
+        this.exitCode = exitCode;
+        this.timedOut = timedOut;
+        this.timeMs = timeMs;
+    }
+
+    // Getters and setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public void setOutput(String output) {
+        this.output = output;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public void setExitCode(int exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public void setTimeMs(long timeMs) {
+        this.timeMs = timeMs;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public ResourceUsage getUsage() {
+        return usage;
+    }
+
+    public void setUsage(ResourceUsage usage) {
+        this.usage = usage;
+    }
+}
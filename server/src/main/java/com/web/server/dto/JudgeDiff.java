@@ -0,0 +1,56 @@
+package com.web.server.dto;
+
+// Where a test's output first differs from the expected output
+public class JudgeDiff {
+
+    private int test;
+
+    // e.g. "line 3" or "token 5"
+    private String position;
+    private String expected;
+    private String actual;
+
+    // Default constructor
+    public JudgeDiff() {}
+
+    // Constructor with parameters
+    public JudgeDiff(int test, String position, String expected, String actual) {
+        this.test = test;
+        this.position = position;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    // Getters and setters
+    public int getTest() {
+        return test;
+    }
+
+    public void setTest(int test) {
+        this.test = test;
+    }
+
+    public String getPosition() {
+        return position;
+    }
+
+    public void setPosition(String position) {
+        this.position = position;
+    }
+
+    public String getExpected() {
+        return expected;
+    }
+
+    public void setExpected(String expected) {
+        this.expected = expected;
+    }
+
+    public String getActual() {
+        return actual;
+    }
+
+    public void setActual(String actual) {
+        this.actual = actual;
+    }
+}
@@ -0,0 +1,96 @@
+package com.web.server.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// A batch of submissions to grade against the same tests
+public class JudgeRequest {
+
+    @NotBlank(message = "Key cannot be blank")
+    private String key;
+
+    @Valid
+    @NotEmpty(message = "Submissions cannot be empty")
+    @Size(max = 100, message = "Cannot have more than 100 submissions")
+    private List<JudgeSubmission> submissions;
+
+    @Valid
+    @NotEmpty(message = "Tests cannot be empty")
+    @Size(max = 20, message = "Cannot have more than 20 tests")
+    private List<JudgeTest> tests;
+
+    // exact, whitespace (the default) or float
+    private String comparison;
+
+    // Absolute or relative difference allowed between numbers in float comparison
+    private double tolerance = 1e-6;
+
+    // Skip a submission's remaining tests once one fails
+    private boolean stopOnFirstFailure;
+
+    // Default constructor
+    public JudgeRequest() {}
+
+    // Constructor with parameters
+    public JudgeRequest(String key, List<JudgeSubmission> submissions, List<JudgeTest> tests, String comparison, double tolerance, boolean stopOnFirstFailure) {
+        this.key = key;
+        this.submissions = submissions;
+        this.tests = tests;
+        this.comparison = comparison;
+        this.tolerance = tolerance;
+        this.stopOnFirstFailure = stopOnFirstFailure;
+    }
+
+    // Getters and setters
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public List<JudgeSubmission> getSubmissions() {
+        return submissions;
+    }
+
+    public void setSubmissions(List<JudgeSubmission> submissions) {
+        this.submissions = submissions;
+    }
+
+    public List<JudgeTest> getTests() {
+        return tests;
+    }
+
+    public void setTests(List<JudgeTest> tests) {
+        this.tests = tests;
+    }
+
+    public String getComparison() {
+        return comparison;
+    }
+
+    public void setComparison(String comparison) {
+        this.comparison = comparison;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public boolean isStopOnFirstFailure() {
+        return stopOnFirstFailure;
+    }
+
+    public void setStopOnFirstFailure(boolean stopOnFirstFailure) {
+        this.stopOnFirstFailure = stopOnFirstFailure;
+    }
+}
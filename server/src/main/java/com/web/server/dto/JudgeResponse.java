@@ -0,0 +1,35 @@
+package com.web.server.dto;
+
+import java.util.List;
+
+public class JudgeResponse {
+
+    private String status;
+    private List<SubmissionVerdict> results;
+
+    // Default constructor
+    public JudgeResponse() {}
+
+    // Constructor with parameters
+    public JudgeResponse(String status, List<SubmissionVerdict> results) {
+        this.status = status;
+        this.results = results;
+    }
+
+    // Getters and setters
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<SubmissionVerdict> getResults() {
+        return results;
+    }
+
+    public void setResults(List<SubmissionVerdict> results) {
+        this.results = results;
+    }
+}
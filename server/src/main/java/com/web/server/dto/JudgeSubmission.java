@@ -0,0 +1,52 @@
+package com.web.server.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+// One program in a judge batch; id is echoed back in its verdict
+public class JudgeSubmission {
+
+    private String id;
+
+    @NotBlank(message = "Language cannot be blank")
+    private String language;
+
+    @NotBlank(message = "Code cannot be blank")
+    @Size(max = 10000, message = "Code size cannot exceed 10000 characters")
+    private String code;
+
+    // Default constructor
+    public JudgeSubmission() {}
+
+    // Constructor with parameters
+    public JudgeSubmission(String id, String language, String code) {
+        this.id = id;
+        this.language = language;
+        this.code = code;
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+}
@@ -0,0 +1,38 @@
+package com.web.server.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+// A test case: the program's input and the output it must print
+public class JudgeTest {
+
+    private String input;
+
+    @NotNull(message = "Expected output cannot be null")
+    private String expectedOutput;
+
+    // Default constructor
+    public JudgeTest() {}
+
+    // Constructor with parameters
+    public JudgeTest(String input, String expectedOutput) {
+        this.input = input;
+        this.expectedOutput = expectedOutput;
+    }
+
+    // Getters and setters
+    public String getInput() {
+        return input;
+    }
+
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public String getExpectedOutput() {
+        return expectedOutput;
+    }
+
+    public void setExpectedOutput(String expectedOutput) {
+        this.expectedOutput = expectedOutput;
+    }
+}
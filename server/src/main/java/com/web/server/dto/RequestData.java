@@ -23,6 +23,12 @@ public class RequestData {
     @NotBlank(message = "Key cannot be blank")
     private String key;
     
+    // Whether to include the phase timings in the response
+    private boolean timings;
+    
+    // Whether to send each distinct output once, with outputRefs pointing inputs at them
+    private boolean dedupeOutputs;
+    
     // Default constructor
     public RequestData() {}
     
@@ -66,4 +72,20 @@ public class RequestData {
     public void setKey(String key) {
         this.key = key;
     }
+    
+    public boolean isTimings() {
+        return timings;
+    }
+    
+    public void setTimings(boolean timings) {
+        this.timings = timings;
+    }
+    
+    public boolean isDedupeOutputs() {
+        return dedupeOutputs;
+    }
+    
+    public void setDedupeOutputs(boolean dedupeOutputs) {
+        this.dedupeOutputs = dedupeOutputs;
+    }
 }
@@ -0,0 +1,57 @@
+package com.web.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// What one execution used; fields that could not be measured are omitted
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResourceUsage {
+
+    private Long cpuTimeMs;
+    private Long wallTimeMs;
+    private Long peakRssKb;
+    private String limitExceeded;
+
+    // Default constructor
+    public ResourceUsage() {}
+
+    // Constructor with parameters
+    public ResourceUsage(Long cpuTimeMs, Long peakRssKb, String limitExceeded) {
+        this.cpuTimeMs = cpuTimeMs;
+        this.peakRssKb = peakRssKb;
+        this.limitExceeded = limitExceeded;
+    }
+
+    // Getters and setters
+    public Long getCpuTimeMs() {
+        return cpuTimeMs;
+    }
+
+    public void setCpuTimeMs(Long cpuTimeMs) {
+        this.cpuTimeMs = cpuTimeMs;
+    }
+
+    public Long getWallTimeMs() {
+        return wallTimeMs;
+    }
+
+    public void setWallTimeMs(Long wallTimeMs) {
+        this.wallTimeMs = wallTimeMs;
+    }
+
+    public Long getPeakRssKb() {
+        return peakRssKb;
+    }
+
+    public void setPeakRssKb(Long peakRssKb) {
+        this.peakRssKb = peakRssKb;
+    }
+
+    // e.g. "CPU time", "memory" or "file size"; null when no limit was hit
+    public String getLimitExceeded() {
+        return limitExceeded;
+    }
+
+    public void setLimitExceeded(String limitExceeded) {
+        this.limitExceeded = limitExceeded;
+    }
+}
@@ -1,5 +1,7 @@
 package com.web.server.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 public class ResponseSuccess {
@@ -7,6 +9,22 @@ public class ResponseSuccess {
     private String status;
     private List<String> outputs;
     
+    // Per output, whether it came from the result cache; omitted when the cache is off
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Boolean> cached;
+    
+    // Per output, the resources the run used; omitted when limits are off
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ResourceUsage> usage;
+    
+    // Per input, the index of its output in outputs; only when the request asked for deduplicated outputs
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Integer> outputRefs;
+    
+    // Phase timings of the request; only when the request asked for them
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private SpanTiming timings;
+    
     // Default constructor
     public ResponseSuccess() {}
     
@@ -16,6 +34,12 @@ public class ResponseSuccess {
         this.outputs = outputs;
     }
     
+    public ResponseSuccess(String status, List<String> outputs, List<Boolean> cached) {
+        this.status = status;
+        this.outputs = outputs;
+        this.cached = cached;
+    }
+    
     // Getters and setters
     public String getStatus() {
         return status;
@@ -32,4 +56,36 @@ public class ResponseSuccess {
     public void setOutputs(List<String> outputs) {
         this.outputs = outputs;
     }
+    
+    public List<Boolean> getCached() {
+        return cached;
+    }
+    
+    public void setCached(List<Boolean> cached) {
+        this.cached = cached;
+    }
+    
+    public List<ResourceUsage> getUsage() {
+        return usage;
+    }
+    
+    public void setUsage(List<ResourceUsage> usage) {
+        this.usage = usage;
+    }
+    
+    public List<Integer> getOutputRefs() {
+        return outputRefs;
+    }
+    
+    public void setOutputRefs(List<Integer> outputRefs) {
+        this.outputRefs = outputRefs;
+    }
+    
+    public SpanTiming getTimings() {
+        return timings;
+    }
+    
+    public void setTimings(SpanTiming timings) {
+        this.timings = timings;
+    }
 }
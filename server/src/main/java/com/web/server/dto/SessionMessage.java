@@ -0,0 +1,54 @@
+package com.web.server.dto;
+
+// A message from an interactive session client: start (with language and code), stdin (with data), eof or stop
+public class SessionMessage {
+
+    private String type;
+    private String language;
+    private String code;
+    private String data;
+
+    // Default constructor
+    public SessionMessage() {}
+
+    // Constructor with parameters
+    public SessionMessage(String type, String language, String code, String data) {
+        this.type = type;
+        this.language = language;
+        this.code = code;
+        this.data = data;
+    }
+
+    // Getters and setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public void setData(String data) {
+        this.data = data;
+    }
+}
@@ -0,0 +1,73 @@
+package com.web.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+// One phase of a request: when it started relative to the request, how long it took, and its sub-phases
+public class SpanTiming {
+    
+    private String name;
+    private double startMs;
+    private double durationMs;
+    
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, Object> attributes;
+    
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<SpanTiming> children;
+    
+    // Default constructor
+    public SpanTiming() {}
+    
+    // Constructor with parameters
+    public SpanTiming(String name, double startMs, double durationMs, Map<String, Object> attributes, List<SpanTiming> children) {
+        this.name = name;
+        this.startMs = startMs;
+        this.durationMs = durationMs;
+        this.attributes = attributes;
+        this.children = children;
+    }
+    
+    // Getters and setters
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public double getStartMs() {
+        return startMs;
+    }
+    
+    public void setStartMs(double startMs) {
+        this.startMs = startMs;
+    }
+    
+    public double getDurationMs() {
+        return durationMs;
+    }
+    
+    public void setDurationMs(double durationMs) {
+        this.durationMs = durationMs;
+    }
+    
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+    
+    public void setAttributes(Map<String, Object> attributes) {
+        this.attributes = attributes;
+    }
+    
+    public List<SpanTiming> getChildren() {
+        return children;
+    }
+    
+    public void setChildren(List<SpanTiming> children) {
+        this.children = children;
+    }
+}
@@ -0,0 +1,97 @@
+package com.web.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// The grade of one submission: a verdict per test and the first failure
+public class SubmissionVerdict {
+
+    private String id;
+
+    // ACCEPTED, WRONG_ANSWER, RUNTIME_ERROR, TIME_LIMIT_EXCEEDED, MEMORY_LIMIT_EXCEEDED, COMPILE_ERROR, REJECTED or SYSTEM_ERROR
+    private String verdict;
+    private int passed;
+    private int total;
+
+    // PASSED, SKIPPED or the failure verdict of each test, in order
+    private List<String> tests;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private JudgeDiff firstFailure;
+
+    // Compile error or reason for rejection
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String message;
+
+    // Default constructor
+    public SubmissionVerdict() {}
+
+    // Constructor with parameters
+    public SubmissionVerdict(String id, String verdict, int passed, int total, List<String> tests, JudgeDiff firstFailure, String message) {
+        this.id = id;
+        this.verdict = verdict;
+        this.passed = passed;
+        this.total = total;
+        this.tests = tests;
+        this.firstFailure = firstFailure;
+        this.message = message;
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getVerdict() {
+        return verdict;
+    }
+
+    public void setVerdict(String verdict) {
+        this.verdict = verdict;
+    }
+
+    public int getPassed() {
+        return passed;
+    }
+
+    public void setPassed(int passed) {
+        this.passed = passed;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public List<String> getTests() {
+        return tests;
+    }
+
+    public void setTests(List<String> tests) {
+        this.tests = tests;
+    }
+
+    public JudgeDiff getFirstFailure() {
+        return firstFailure;
+    }
+
+    public void setFirstFailure(JudgeDiff firstFailure) {
+        this.firstFailure = firstFailure;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,55 @@
+package com.web.server.dto;
+
+// A finished request trace, as listed by the admin endpoint
+public class TraceRecord {
+    
+    private String traceId;
+    private long startTime;
+    private double durationMs;
+    private SpanTiming timings;
+    
+    // Default constructor
+    public TraceRecord() {}
+    
+    // Constructor with parameters
+    public TraceRecord(String traceId, long startTime, double durationMs, SpanTiming timings) {
+        this.traceId = traceId;
+        this.startTime = startTime;
+        this.durationMs = durationMs;
+        this.timings = timings;
+    }
+    
+    // Getters and setters
+    public String getTraceId() {
+        return traceId;
+    }
+    
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+    
+    // Epoch milliseconds
+    public long getStartTime() {
+        return startTime;
+    }
+    
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+    
+    public double getDurationMs() {
+        return durationMs;
+    }
+    
+    public void setDurationMs(double durationMs) {
+        this.durationMs = durationMs;
+    }
+    
+    public SpanTiming getTimings() {
+        return timings;
+    }
+    
+    public void setTimings(SpanTiming timings) {
+        this.timings = timings;
+    }
+}
@@ -0,0 +1,78 @@
+package com.web.server.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// An execution sent by the coordinator to a worker; validated again on the worker with the same limits as RequestData
+public class WorkerJob {
+
+    @NotBlank(message = "Language cannot be blank")
+    private String language;
+
+    @NotBlank(message = "Code cannot be blank")
+    @Size(max = 10000, message = "Code size cannot exceed 10000 characters")
+    private String code;
+
+    @NotEmpty(message = "Inputs cannot be empty")
+    @Size(max = 20, message = "Cannot have more than 20 inputs")
+    private List<String> inputs;
+    // Client the job runs for, so that the worker shares its scheduler fairly too
+    private String client;
+    private double weight;
+
+    // Default constructor
+    public WorkerJob() {}
+
+    // Constructor with parameters
+    public WorkerJob(String language, String code, List<String> inputs, String client, double weight) {
+        this.language = language;
+        this.code = code;
+        this.inputs = inputs;
+        this.client = client;
+        this.weight = weight;
+    }
+
+    // Getters and setters
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public List<String> getInputs() {
+        return inputs;
+    }
+
+    public void setInputs(List<String> inputs) {
+        this.inputs = inputs;
+    }
+
+    public String getClient() {
+        return client;
+    }
+
+    public void setClient(String client) {
+        this.client = client;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+}
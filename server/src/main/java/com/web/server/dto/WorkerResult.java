@@ -0,0 +1,37 @@
+package com.web.server.dto;
+
+import java.util.List;
+
+// A worker's answer to a WorkerJob
+public class WorkerResult {
+
+    // Empty when the program compiled (or needs no compilation)
+    private String compileError;
+    private List<InputResult> results;
+
+    // Default constructor
+    public WorkerResult() {}
+
+    // Constructor with parameters
+    public WorkerResult(String compileError, List<InputResult> results) {
+        this.compileError = compileError;
+        this.results = results;
+    }
+
+    // Getters and setters
+    public String getCompileError() {
+        return compileError;
+    }
+
+    public void setCompileError(String compileError) {
+        this.compileError = compileError;
+    }
+
+    public List<InputResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<InputResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,54 @@
+package com.web.server.dto;
+
+// Load reported by a worker to the coordinator
+public class WorkerStatus {
+
+    private int threads;
+    private int active;
+    private int queued;
+    private int availableSlots;
+
+    // Default constructor
+    public WorkerStatus() {}
+
+    // Constructor with parameters
+    public WorkerStatus(int threads, int active, int queued, int availableSlots) {
+        this.threads = threads;
+        this.active = active;
+        this.queued = queued;
+        this.availableSlots = availableSlots;
+    }
+
+    // Getters and setters
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public int getAvailableSlots() {
+        return availableSlots;
+    }
+
+    public void setAvailableSlots(int availableSlots) {
+        this.availableSlots = availableSlots;
+    }
+}
@@ -0,0 +1,375 @@
+package com.web.server.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Entry point of a pooled runner JVM.
+ *
+ * Reads jobs (class files, main class, stdin, output cap) from a Unix domain
+ * socket, runs each submission in a fresh class loader with System.in/out/err
+ * redirected to memory, and writes the result back on the same socket. The
+ * protocol stays off stdin and stdout, which a submission can reach through
+ * {@code FileDescriptor.out}; the socket is only held in locals here. The
+ * server passes the socket path as the only argument and a token on stdin,
+ * which the runner sends first so that the server knows the connection is
+ * the runner's own.
+ *
+ * JVM-wide defaults a submission may change (locale, time zone, system
+ * properties, the default uncaught exception handler) are restored after
+ * every job, so that one job cannot change how the next one formats or
+ * behaves. This class must not depend on anything else in the server: its
+ * class files are copied out of the server jar and run on their own classpath.
+ */
+public final class JavaRunner {
+
+    public static final int READY = 0x4A52554E;
+    public static final int EXITED = Integer.MIN_VALUE;
+
+    // Class files that make up the runner, relative to this package
+    public static final List<String> CLASS_FILES = List.of(
+        "JavaRunner.class", "JavaRunner$SubmissionClassLoader.class", "JavaRunner$CappedOutputStream.class",
+        "JavaRunner$GlobalState.class"
+    );
+
+    private static final Object WRITE_LOCK = new Object();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static InputStream originalIn;
+    private static PrintStream originalOut;
+    private static PrintStream originalErr;
+
+    // State of the job in progress, read by the shutdown hook if the submission calls System.exit
+    private static volatile boolean jobActive;
+    private static volatile PrintStream jobOut;
+    private static volatile PrintStream jobErr;
+    private static volatile CappedOutputStream capturedOut;
+    private static volatile CappedOutputStream capturedErr;
+
+    private JavaRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        // Not readAllBytes, which tries to seek and fails on a pipe in some JDK 21 updates
+        ByteArrayOutputStream token = new ByteArrayOutputStream();
+        try (InputStream stdin = new FileInputStream(FileDescriptor.in)) {
+            byte[] buffer = new byte[256];
+            for (int count = stdin.read(buffer); count >= 0; count = stdin.read(buffer)) {
+                token.write(buffer, 0, count);
+            }
+        }
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(args[0]));
+        channel.write(ByteBuffer.wrap(token.toByteArray()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        // Not a field: only code that is handed this stream can write a result
+        DataOutputStream protocolOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        originalIn = System.in;
+        originalOut = System.out;
+        originalErr = System.err;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> reportExit(protocolOut)));
+        warmUp();
+
+        protocolOut.writeInt(READY);
+        protocolOut.flush();
+
+        while (true) {
+            int classCount;
+            try {
+                classCount = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+
+            Map<String, byte[]> classes = new HashMap<>();
+            for (int i = 0; i < classCount; i++) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(name, bytes);
+            }
+            String mainClass = in.readUTF();
+            byte[] input = new byte[in.readInt()];
+            in.readFully(input);
+            int maxOutputBytes = in.readInt();
+
+            runJob(protocolOut, classes, mainClass, input, maxOutputBytes);
+        }
+    }
+
+    private static void runJob(DataOutputStream protocolOut, Map<String, byte[]> classes, String mainClass, byte[] input,
+                               int maxOutputBytes) throws IOException, InterruptedException {
+        capturedOut = new CappedOutputStream(maxOutputBytes);
+        capturedErr = new CappedOutputStream(maxOutputBytes);
+        jobOut = new PrintStream(capturedOut, false, StandardCharsets.UTF_8);
+        jobErr = new PrintStream(capturedErr, false, StandardCharsets.UTF_8);
+        Set<Thread> threadsBefore = liveThreads();
+        long threadsStarted = THREADS.getTotalStartedThreadCount();
+        GlobalState globalState = new GlobalState();
+
+        int status = 0;
+        boolean violation = false;
+        System.setIn(new ByteArrayInputStream(input));
+        System.setOut(jobOut);
+        System.setErr(jobErr);
+        jobActive = true;
+        try {
+            Class<?> type = Class.forName(mainClass, false, new SubmissionClassLoader(classes));
+            Method main = type.getMethod("main", String[].class);
+            if (!Modifier.isStatic(main.getModifiers())) {
+                throw new NoSuchMethodException("main");
+            }
+            main.setAccessible(true);
+            main.invoke(null, (Object) new String[0]);
+            joinNewThreads(threadsBefore);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            trimStackTrace(cause, classes.keySet());
+            jobErr.print("Exception in thread \"main\" ");
+            cause.printStackTrace(jobErr);
+            status = 1;
+            violation = cause instanceof VirtualMachineError;
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            jobErr.println("Error: Main method not found in class " + mainClass + ", please define the main method as:");
+            jobErr.println("   public static void main(String[] args)");
+            status = 1;
+        } catch (ClassNotFoundException | LinkageError e) {
+            jobErr.println("Error: Could not find or load main class " + mainClass);
+            jobErr.println("Caused by: " + e);
+            status = 1;
+        } finally {
+            System.setIn(originalIn);
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            globalState.restore();
+        }
+
+        // Any thread the submission started may still be running, or have work queued, and would see the
+        // next job's System.in and System.out. Virtual threads are not listed by getAllStackTraces, but the
+        // first one started also starts a carrier thread, which is counted here.
+        if (THREADS.getTotalStartedThreadCount() != threadsStarted) {
+            violation = true;
+        }
+        // Processes it started, e.g. with ProcessBuilder, would outlive the job
+        for (ProcessHandle descendant : ProcessHandle.current().descendants().toList()) {
+            descendant.destroyForcibly();
+            violation = true;
+        }
+
+        synchronized (WRITE_LOCK) {
+            jobActive = false;
+            writeResult(protocolOut, status, violation);
+        }
+    }
+
+    // Called on System.exit from a submission: report what it printed before the JVM goes away
+    private static void reportExit(DataOutputStream protocolOut) {
+        synchronized (WRITE_LOCK) {
+            if (!jobActive) {
+                return;
+            }
+            jobActive = false;
+            try {
+                writeResult(protocolOut, EXITED, true);
+            } catch (IOException e) {
+                // Parent is gone; nothing left to report to
+            }
+        }
+    }
+
+    private static void writeResult(DataOutputStream protocolOut, int status, boolean violation) throws IOException {
+        jobOut.flush();
+        jobErr.flush();
+        protocolOut.writeInt(status);
+        protocolOut.writeBoolean(violation);
+        capturedOut.writeTo(protocolOut);
+        capturedErr.writeTo(protocolOut);
+        protocolOut.flush();
+    }
+
+    // The java launcher waits for non-daemon threads before exiting; do the same
+    private static void joinNewThreads(Set<Thread> threadsBefore) throws InterruptedException {
+        boolean waited = true;
+        while (waited) {
+            waited = false;
+            for (Thread thread : liveThreads()) {
+                if (!threadsBefore.contains(thread) && !thread.isDaemon()) {
+                    thread.join();
+                    waited = true;
+                }
+            }
+        }
+    }
+
+    private static Set<Thread> liveThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive()) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+
+    // Drop the runner and reflection frames below the submission's own frames
+    private static void trimStackTrace(Throwable error, Set<String> submissionClasses) {
+        StackTraceElement[] trace = error.getStackTrace();
+        int last = -1;
+        for (int i = 0; i < trace.length; i++) {
+            if (submissionClasses.contains(trace[i].getClassName())) {
+                last = i;
+            }
+        }
+        if (last >= 0) {
+            error.setStackTrace(Arrays.copyOf(trace, last + 1));
+        }
+    }
+
+    // Load and JIT-compile the library code that typical submissions use
+    private static void warmUp() {
+        for (int round = 0; round < 200; round++) {
+            Scanner scanner = new Scanner(new ByteArrayInputStream("3 4\nhello world\n".getBytes(StandardCharsets.UTF_8)));
+            int sum = scanner.nextInt() + scanner.nextInt();
+            scanner.nextLine();
+            String line = scanner.nextLine();
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("%d %s %.2f", sum, line, sum / 3.0));
+            List<Integer> values = new ArrayList<>(IntStream.range(0, 100).boxed().toList());
+            values.sort((a, b) -> b - a);
+            Map<Integer, Long> counts = values.stream().collect(Collectors.groupingBy(v -> v % 7, Collectors.counting()));
+            builder.append(counts.size()).append(String.join(",", line.split(" ")));
+            if (builder.length() < 0) {
+                System.out.println(builder);
+            }
+        }
+    }
+
+    // JVM-wide defaults that outlive a job, e.g. Locale.GERMANY turns printf("%.2f") into "1,50"
+    private static final class GlobalState {
+
+        private final Locale locale;
+        private final Locale displayLocale;
+        private final Locale formatLocale;
+        private final TimeZone timeZone;
+        private final Properties properties;
+        private final Thread.UncaughtExceptionHandler uncaughtExceptionHandler;
+
+        GlobalState() {
+            locale = Locale.getDefault();
+            displayLocale = Locale.getDefault(Locale.Category.DISPLAY);
+            formatLocale = Locale.getDefault(Locale.Category.FORMAT);
+            timeZone = TimeZone.getDefault();
+            properties = (Properties) System.getProperties().clone();
+            uncaughtExceptionHandler = Thread.getDefaultUncaughtExceptionHandler();
+        }
+
+        void restore() {
+            // Setting the default locale also resets both categories
+            Locale.setDefault(locale);
+            Locale.setDefault(Locale.Category.DISPLAY, displayLocale);
+            Locale.setDefault(Locale.Category.FORMAT, formatLocale);
+            TimeZone.setDefault(timeZone);
+            System.setProperties(properties);
+            Thread.setDefaultUncaughtExceptionHandler(uncaughtExceptionHandler);
+        }
+    }
+
+    private static final class SubmissionClassLoader extends ClassLoader {
+
+        private final Map<String, byte[]> classes;
+
+        SubmissionClassLoader(Map<String, byte[]> classes) {
+            // Platform loader as parent so submissions cannot see the runner itself
+            super(ClassLoader.getPlatformClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    private static final class CappedOutputStream extends OutputStream {
+
+        private final int maxBytes;
+        private byte[] buffer = new byte[256];
+        private int length;
+        private long totalBytes;
+
+        CappedOutputStream(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            totalBytes++;
+            if (length < maxBytes) {
+                ensureCapacity(length + 1);
+                buffer[length++] = (byte) b;
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int count) {
+            totalBytes += count;
+            int accepted = Math.min(count, maxBytes - length);
+            if (accepted > 0) {
+                ensureCapacity(length + accepted);
+                System.arraycopy(bytes, offset, buffer, length, accepted);
+                length += accepted;
+            }
+        }
+
+        synchronized void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(totalBytes);
+            out.writeInt(length);
+            out.write(buffer, 0, length);
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(maxBytes, Math.max(buffer.length * 2, needed)));
+            }
+        }
+    }
+}
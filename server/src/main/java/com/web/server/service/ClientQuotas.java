@@ -0,0 +1,196 @@
+package com.web.server.service;
+
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import com.web.server.dto.InputResult;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * API keys, per-client quotas and per-client usage.
+ *
+ * Each client from {@code app.clients} (plus the default one holding
+ * {@code app.secret-key}) has a token bucket refilled at its
+ * requests-per-second, holding up to its burst, and a cap on executions in
+ * progress at once. A request that passes both gets a {@link Lease}, closed
+ * when its execution ends; the usage counters behind the per-client metrics
+ * are updated then.
+ */
+@Component
+public class ClientQuotas {
+
+    @Autowired
+    private AppConfig config;
+
+    private List<Client> clients;
+
+    @PostConstruct
+    public void init() {
+        List<Client> loaded = new ArrayList<>();
+        for (ApiClient client : config.getApiClients()) {
+            if (loaded.stream().anyMatch(other -> other.client.getName().equals(client.getName()))) {
+                throw new IllegalStateException("Client " + client.getName() + " is configured twice");
+            }
+            loaded.add(new Client(client));
+        }
+        clients = Collections.unmodifiableList(loaded);
+        System.out.println("Loaded " + clients.size() + " API clients");
+    }
+
+    // The client holding key, or null if no client does
+    public ApiClient authenticate(String key) {
+        Client client = find(key);
+        return client != null ? client.client : null;
+    }
+
+    // Admits one execution for an authenticated client, or throws QuotaExceededException
+    public Lease admit(ApiClient apiClient) {
+        Client client = clients.stream().filter(candidate -> candidate.client == apiClient).findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown client " + apiClient.getName()));
+
+        int maxConcurrent = apiClient.getMaxConcurrent();
+        if (client.active.incrementAndGet() > maxConcurrent && maxConcurrent > 0) {
+            client.active.decrementAndGet();
+            client.overQuota.increment();
+            throw new QuotaExceededException("Too many executions in progress for client " + apiClient.getName()
+                + " (limit " + maxConcurrent + ")", config.getSchedulerRetryAfterSeconds());
+        }
+
+        double waitSeconds = client.takeToken();
+        if (waitSeconds > 0) {
+            client.active.decrementAndGet();
+            client.rateLimited.increment();
+            throw new QuotaExceededException("Rate limit exceeded for client " + apiClient.getName(),
+                (int) Math.ceil(waitSeconds));
+        }
+
+        client.accepted.increment();
+        return new Lease(client);
+    }
+
+    public List<Client> getClients() {
+        return clients;
+    }
+
+    private Client find(String key) {
+        if (key == null) {
+            return null;
+        }
+        byte[] given = key.getBytes(StandardCharsets.UTF_8);
+        Client found = null;
+        // Compare against every key in constant time, so timing does not reveal how much of a key matched
+        for (Client client : clients) {
+            if (MessageDigest.isEqual(given, client.client.getKey().getBytes(StandardCharsets.UTF_8))) {
+                found = client;
+            }
+        }
+        return found;
+    }
+
+    // One admitted execution; closing it gives back the concurrency slot and records usage
+    public static class Lease {
+        private final Client client;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Lease(Client client) {
+            this.client = client;
+        }
+
+        public ApiClient getClient() {
+            return client.client;
+        }
+
+        // results may be null if the execution failed or was cancelled
+        public void close(List<InputResult> results) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            client.active.decrementAndGet();
+            if (results == null) {
+                return;
+            }
+            client.inputs.add(results.size());
+            for (InputResult result : results) {
+                if (result.getUsage() != null && result.getUsage().getCpuTimeMs() != null) {
+                    client.cpuTimeMs.add(result.getUsage().getCpuTimeMs());
+                }
+            }
+        }
+    }
+
+    // A client's quota state and usage counters
+    public static class Client {
+        private final ApiClient client;
+        private final AtomicInteger active = new AtomicInteger();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder overQuota = new LongAdder();
+        private final LongAdder inputs = new LongAdder();
+        private final LongAdder cpuTimeMs = new LongAdder();
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        Client(ApiClient client) {
+            this.client = client;
+            this.tokens = capacity();
+        }
+
+        public String getName() {
+            return client.getName();
+        }
+
+        public int getActive() {
+            return active.get();
+        }
+
+        public long getAccepted() {
+            return accepted.sum();
+        }
+
+        public long getRateLimited() {
+            return rateLimited.sum();
+        }
+
+        public long getOverQuota() {
+            return overQuota.sum();
+        }
+
+        public long getInputs() {
+            return inputs.sum();
+        }
+
+        public long getCpuTimeMs() {
+            return cpuTimeMs.sum();
+        }
+
+        // Zero if a token was taken, otherwise the seconds until one is available
+        private synchronized double takeToken() {
+            double rate = client.getRequestsPerSecond();
+            if (rate <= 0) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(capacity(), tokens + (now - refilledAt) / 1e9 * rate);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (1 - tokens) / rate;
+        }
+
+        private double capacity() {
+            return Math.max(1, client.getBurst());
+        }
+    }
+}
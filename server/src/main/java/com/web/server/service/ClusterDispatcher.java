@@ -0,0 +1,333 @@
+package com.web.server.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import com.web.server.dto.InputResult;
+import com.web.server.dto.WorkerJob;
+import com.web.server.dto.WorkerResult;
+import com.web.server.dto.WorkerStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends executions to worker nodes when this server runs as the coordinator.
+ *
+ * Workers are other instances of this server started with
+ * {@code app.cluster.role=worker}; they run jobs posted to /internal/execute
+ * and report their load on /internal/status, which is polled every
+ * {@code app.cluster.status-interval-ms}. A job goes to the worker that
+ * rendezvous hashing of its source picks, so resubmissions of the same program
+ * hit that worker's compile cache, unless the worker is loaded beyond
+ * {@code app.cluster.affinity-max-load}; then the least loaded worker takes it.
+ * If a worker cannot be reached or drops the connection, it is marked down and
+ * the job is retried on the next one, up to {@code app.cluster.max-attempts}
+ * workers. Once a worker has the job, a timeout or an error response is the
+ * job's outcome: running it elsewhere could run it twice.
+ */
+@Component
+public class ClusterDispatcher {
+
+    public static final String KEY_HEADER = "X-Cluster-Key";
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private HttpClient client;
+    private ScheduledExecutorService poller;
+
+    @PostConstruct
+    public void init() {
+        if (config.isClusterCoordinator() || config.isClusterWorker()) {
+            checkClusterKey();
+        }
+        if (!isCoordinator()) {
+            return;
+        }
+
+        for (String url : config.getClusterWorkers()) {
+            if (!url.isBlank()) {
+                workers.add(new Worker(url.trim().replaceAll("/+$", "")));
+            }
+        }
+        if (workers.isEmpty()) {
+            throw new IllegalStateException("app.cluster.role=coordinator needs app.cluster.workers");
+        }
+
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-status");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollWorkers, 0, config.getClusterStatusIntervalMs(), TimeUnit.MILLISECONDS);
+        System.out.println("Coordinating " + workers.size() + " workers: " + config.getClusterWorkers());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    public boolean isCoordinator() {
+        return config.isClusterCoordinator();
+    }
+
+    // Runs the job on a worker and replays its progress to listener; the worker queues it fairly under the client's name
+    public List<InputResult> execute(String language, String code, List<String> inputs, ExecutionListener listener,
+                                     ApiClient client) throws Exception {
+        byte[] body = objectMapper.writeValueAsBytes(new WorkerJob(language, code, inputs, client.getName(), client.getWeight()));
+        Exception lastError = null;
+        int retryAfterSeconds = 0;
+        int attempts = 0;
+
+        for (Worker worker : candidates(affinityHash(language, code))) {
+            if (attempts++ >= config.getClusterMaxAttempts()) {
+                break;
+            }
+            if (attempts > 1) {
+                retried.increment();
+            }
+
+            HttpResponse<byte[]> response;
+            worker.dispatchedInputs.addAndGet(inputs.size());
+            try {
+                response = send(worker, body);
+            } catch (HttpTimeoutException e) {
+                if (!(e instanceof HttpConnectTimeoutException)) {
+                    // Slow, not dead: the worker may still be running the job
+                    throw new IOException("Worker " + worker.url + " did not finish the job in time", e);
+                }
+                lastError = workerDown(worker, e);
+                continue;
+            } catch (IOException e) {
+                if (!unreachable(e)) {
+                    throw e;
+                }
+                lastError = workerDown(worker, e);
+                continue;
+            } finally {
+                worker.dispatchedInputs.addAndGet(-inputs.size());
+            }
+            
+            if (response.statusCode() == 503) {
+                // Full, not broken: try the next worker without marking this one down
+                retryAfterSeconds = Math.max(retryAfterSeconds,
+                    response.headers().firstValue("Retry-After").map(Integer::parseInt).orElse(1));
+                continue;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Worker " + worker.url + " failed the job: HTTP " + response.statusCode() + " "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            dispatched.increment();
+            return replay(objectMapper.readValue(response.body(), WorkerResult.class), listener);
+        }
+
+        if (lastError == null) {
+            throw new ExecutionRejectedException("All execution workers are busy or down, please retry later",
+                Math.max(retryAfterSeconds, config.getSchedulerRetryAfterSeconds()));
+        }
+        throw new IOException("No worker could run the job: " + lastError.getMessage(), lastError);
+    }
+
+    private IOException workerDown(Worker worker, IOException e) {
+        System.err.println("Worker " + worker.url + " is unreachable, retrying elsewhere: " + e);
+        worker.healthy = false;
+        return e;
+    }
+    
+    // Whether the job never reached the worker or the worker went away: connection refused, reset or closed early
+    private static boolean unreachable(IOException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ClosedChannelException) {
+                return true;
+            }
+            String message = cause.getMessage() == null ? "" : cause.getMessage().toLowerCase();
+            if (message.contains("connection reset") || message.contains("eof reached") || message.contains("received no bytes")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // The cluster key guards /internal/execute, which skips quotas; the secret key is public through the frontend
+    private void checkClusterKey() {
+        String key = config.getClusterKey();
+        if (key == null || key.isBlank()) {
+            throw new IllegalStateException("app.cluster.role=" + config.getClusterRole() + " needs app.cluster.key");
+        }
+        if (key.equals(config.getSecretKey())) {
+            throw new IllegalStateException("app.cluster.key must differ from app.secret-key");
+        }
+    }
+    
+    // Statistics
+    public int getHealthyWorkers() {
+        return (int) workers.stream().filter(worker -> worker.healthy).count();
+    }
+
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    private List<InputResult> replay(WorkerResult result, ExecutionListener listener) {
+        listener.onCompiled(result.getCompileError());
+        // After a compile error the single result holds the message, which was not reported as a result
+        if (result.getCompileError() == null || result.getCompileError().isEmpty()) {
+            result.getResults().forEach(listener::onResult);
+        }
+        return result.getResults();
+    }
+
+    private HttpResponse<byte[]> send(Worker worker, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(worker.url + "/internal/execute"))
+            .header("Content-Type", "application/json")
+            .header(KEY_HEADER, config.getClusterKey())
+            .timeout(Duration.ofMillis(config.getClusterRequestTimeoutMs()))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        CompletableFuture<HttpResponse<byte[]>> response = client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            // Dropping the connection tells the worker to stop the run
+            response.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    // Healthy workers in rendezvous order, with the ones over the affinity load limit moved to the back by load
+    private List<Worker> candidates(long hash) {
+        List<Worker> healthy = workers.stream().filter(worker -> worker.healthy).toList();
+        // If every worker looks down, try them anyway; a status poll may simply not have run yet
+        List<Worker> ranked = new ArrayList<>(healthy.isEmpty() ? workers : healthy);
+        ranked.sort(Comparator.comparingLong((Worker worker) -> mix(hash ^ worker.seed)).reversed());
+
+        List<Worker> ordered = new ArrayList<>();
+        List<Worker> overloaded = new ArrayList<>();
+        for (Worker worker : ranked) {
+            (worker.load() < config.getClusterAffinityMaxLoad() ? ordered : overloaded).add(worker);
+        }
+        overloaded.sort(Comparator.comparingDouble(Worker::load));
+        ordered.addAll(overloaded);
+        return ordered;
+    }
+
+    private void pollWorkers() {
+        for (Worker worker : workers) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(worker.url + "/internal/status"))
+                .header(KEY_HEADER, config.getClusterKey())
+                .timeout(Duration.ofMillis(Math.max(config.getClusterStatusIntervalMs(), 1000)))
+                .GET()
+                .build();
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200) {
+                    throw new IOException("HTTP " + response.statusCode());
+                }
+                worker.status = objectMapper.readValue(response.body(), WorkerStatus.class);
+                if (!worker.healthy) {
+                    System.out.println("Worker " + worker.url + " is up");
+                }
+                worker.healthy = true;
+            } catch (IOException e) {
+                if (worker.healthy) {
+                    System.err.println("Worker " + worker.url + " is down: " + e.getMessage());
+                }
+                worker.healthy = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Source hash for compile-cache affinity
+    private static long affinityHash(String language, String code) {
+        return ByteBuffer.wrap(sha256(language + "\0" + code)).getLong();
+    }
+
+    private static byte[] sha256(String text) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // SplitMix64 finaliser, so that similar inputs give unrelated scores
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static class Worker {
+        final String url;
+        final long seed;
+        // Inputs this coordinator has in flight on the worker, counted before its next status report
+        final AtomicInteger dispatchedInputs = new AtomicInteger();
+        volatile WorkerStatus status;
+        volatile boolean healthy;
+
+        Worker(String url) {
+            this.url = url;
+            this.seed = ByteBuffer.wrap(sha256(url)).getLong();
+        }
+
+        // Busy execution threads per thread; above 1 means inputs are queueing
+        double load() {
+            WorkerStatus current = status;
+            if (current == null || current.getThreads() == 0) {
+                return dispatchedInputs.get();
+            }
+            int reported = current.getActive() + current.getQueued();
+            return Math.max(reported, dispatchedInputs.get()) / (double) current.getThreads();
+        }
+    }
+}
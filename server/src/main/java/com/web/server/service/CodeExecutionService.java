@@ -1,53 +1,266 @@
 package com.web.server.service;
 
+import com.web.server.config.ApiClient;
 import com.web.server.config.AppConfig;
+import com.web.server.dto.InputResult;
+import com.web.server.dto.ResourceUsage;
 import com.web.server.util.JavaClassExtractor;
+import com.web.server.util.StreamCapture;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
 import java.util.concurrent.*;
 
 @Service
 public class CodeExecutionService {
     
+    // How long to keep reading output after the process exits, for data still in the pipe
+    private static final long OUTPUT_DRAIN_GRACE_MS = 200;
+    
+    private static final boolean STDBUF_AVAILABLE = Files.isExecutable(Paths.get("/usr/bin/stdbuf"));
+    
     @Autowired
     private AppConfig config;
     
     @Autowired
     private JavaClassExtractor javaClassExtractor;
     
+    @Autowired
+    private CompilationCache compilationCache;
+    
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+    
+    @Autowired
+    private ProcessWatchdog processWatchdog;
+    
+    @Autowired
+    private InProcessJavaCompiler inProcessJavaCompiler;
+    
+    @Autowired
+    private JavaRunnerPool javaRunnerPool;
+    
+    @Autowired
+    private InterpreterPool interpreterPool;
+    
+    @Autowired
+    private WorkspaceManager workspaceManager;
+    
+    @Autowired
+    private ExecutionMetrics executionMetrics;
+    
+    @Autowired
+    private ResultCache resultCache;
+    
+    @Autowired
+    private ResourceLimiter resourceLimiter;
+    
+    @Autowired
+    private ClusterDispatcher clusterDispatcher;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
+    @Autowired
+    private StartupTimeline startupTimeline;
+    
+    @Autowired
+    private ToolchainAccelerator toolchainAccelerator;
+    
+    // One virtual thread per request; blocking on compilers and child processes costs no platform thread
+    private final ExecutorService requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    // Runs execute off the caller's thread; cancelling the returned future interrupts the run
+    public CompletableFuture<List<InputResult>> executeAsync(String language, String code, List<String> inputs, ApiClient client) {
+        return executeAsync(language, code, inputs, ExecutionListener.NONE, client);
+    }
+    
+    public CompletableFuture<List<InputResult>> executeAsync(String language, String code, List<String> inputs,
+                                                             ExecutionListener listener, ApiClient client) {
+        return executeAsync(language, code, inputs, listener, client, RequestTrace.Span.NONE);
+    }
+    
+    public CompletableFuture<List<InputResult>> executeAsync(String language, String code, List<String> inputs,
+                                                             ExecutionListener listener, ApiClient client, RequestTrace.Span span) {
+        CompletableFuture<List<InputResult>> result = new CompletableFuture<>();
+        Future<?> task = requestExecutor.submit(() -> {
+            try {
+                result.complete(execute(language, code, inputs, listener, client, span));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((outputs, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        requestExecutor.shutdownNow();
+    }
+    
     public List<String> execute(String language, String code, List<String> inputs) throws Exception {
-        String jobId = UUID.randomUUID().toString();
-        Path jobDir = Paths.get(config.getBaseDir(), jobId);
+        List<String> outputs = new ArrayList<>();
+        for (InputResult result : execute(language, code, inputs, ExecutionListener.NONE, ApiClient.INTERNAL)) {
+            outputs.add(result.getOutput());
+        }
+        return outputs;
+    }
+    
+    public List<InputResult> execute(String language, String code, List<String> inputs, ExecutionListener listener,
+                                     ApiClient client) throws Exception {
+        return execute(language, code, inputs, listener, client, RequestTrace.Span.NONE);
+    }
+    
+    // Returns one result per input, or a single result holding the compile error; client decides its share of the scheduler.
+    // Each phase is recorded as a child of span
+    public List<InputResult> execute(String language, String code, List<String> inputs, ExecutionListener listener,
+                                     ApiClient client, RequestTrace.Span span) throws Exception {
+        executionMetrics.requestStarted();
+        long start = System.nanoTime();
+        try {
+            if (!singleFlight.isEnabled()) {
+                return executeOnce(language, code, inputs, listener, client, span);
+            }
+            // Identical requests in flight at the same time share one run; only the one running it records its phases
+            span.attribute("coalesced", true);
+            return singleFlight.execute(singleFlight.executionKey(language, code, inputs), listener,
+                sharedListener -> {
+                    span.attribute("coalesced", false);
+                    return executeOnce(language, code, inputs, sharedListener, client, span);
+                });
+        } finally {
+            executionMetrics.requestFinished();
+            // The server's own warm-up runs do not count towards the startup report
+            if (client != ApiClient.INTERNAL) {
+                startupTimeline.requestServed(System.nanoTime() - start);
+            }
+        }
+    }
+    
+    private List<InputResult> executeOnce(String language, String code, List<String> inputs, ExecutionListener listener,
+                                          ApiClient client, RequestTrace.Span span) throws Exception {
+        // A coordinator runs nothing itself
+        if (clusterDispatcher.isCoordinator()) {
+            RequestTrace.Span dispatch = span.start("dispatch");
+            try {
+                return clusterDispatcher.execute(language, code, inputs, listener, client);
+            } finally {
+                dispatch.end();
+            }
+        }
         
+        Path jobDir = null;
         try {
-            // Create job directory
-            Files.createDirectories(jobDir);
+            // With the result cache on, look every input up before compiling anything
+            List<String> resultKeys = null;
+            String[] cachedOutputs = null;
+            if (resultCache.isEnabled()) {
+                RequestTrace.Span lookup = span.start("result-cache");
+                resultKeys = resultKeys(language, code, inputs);
+                cachedOutputs = new String[inputs.size()];
+                for (int i = 0; i < inputs.size(); i++) {
+                    cachedOutputs[i] = resultCache.lookup(resultKeys.get(i));
+                }
+                lookup.attribute("hits", Arrays.stream(cachedOutputs).filter(output -> output != null).count()).end();
+                if (Arrays.stream(cachedOutputs).allMatch(output -> output != null)) {
+                    return cachedResults(language, cachedOutputs, listener);
+                }
+            }
+            
+            RequestTrace.Span workspace = span.start("workspace");
+            jobDir = workspaceManager.acquire();
+            workspace.end();
             
             // Prepare file and compilation
+            RequestTrace.Span write = span.start("write");
             String filePath = prepareFile(language, code, jobDir);
-            String compileMessage = compileCode(language, filePath, jobDir);
+            write.end();
+            String compileMessage = compileWithCache(language, code, filePath, jobDir, client, span);
+            listener.onCompiled(compileMessage);
             
             // If compilation failed, return the error message
             if (!compileMessage.isEmpty() && !compileMessage.equals("")) {
-                return Arrays.asList(compileMessage);
+                return Arrays.asList(new InputResult(0, compileMessage, -1, false, 0));
             }
             
             // Execute code with inputs
-            return executeWithInputs(language, filePath, inputs, jobDir, compileMessage);
+            return executeWithInputs(language, filePath, inputs, jobDir, resultKeys, cachedOutputs, listener, client, span);
             
         } finally {
-            // Cleanup
-            cleanup(jobDir);
+            if (jobDir != null) {
+                // Make sure nothing is still running inside the directory before removing it
+                long cleanupStart = System.nanoTime();
+                processWatchdog.killJob(jobDir);
+                workspaceManager.release(jobDir);
+                long cleanupEnd = System.nanoTime();
+                executionMetrics.recordCleanup(language, cleanupEnd - cleanupStart);
+                span.record("cleanup", cleanupStart, cleanupEnd);
+            }
+        }
+    }
+    
+    // Writes and compiles code into a session's own directory; returns the compile message, empty on success
+    public String compileForSession(String language, String code, Path jobDir, ApiClient client) throws Exception {
+        String filePath = prepareFile(language, code, jobDir);
+        return compileWithCache(language, code, filePath, jobDir, client, RequestTrace.Span.NONE);
+    }
+    
+    // Starts a program compiled by compileForSession under the usual limits; the caller owns its streams
+    public Process startForSession(String language, String code, Path jobDir) throws IOException {
+        String filePath = jobDir.resolve(getFileName(language, code)).toString();
+        List<String> execArgs = new ArrayList<>(getExecArgs(language, filePath, jobDir));
+        if ((language.equals("C") || language.equals("C++")) && STDBUF_AVAILABLE) {
+            // Line-buffered stdio, so prompts reach the client before the program waits for input
+            execArgs.addAll(0, List.of("stdbuf", "-oL", "-eL"));
+        }
+        
+        ProcessBuilder pb = new ProcessBuilder(execArgs);
+        pb.directory(jobDir.toFile());
+        pb.environment().put("PYTHONUNBUFFERED", "1");
+        return resourceLimiter.start(language, pb);
+    }
+    
+    // One key per input; the program part is the compilation cache key, which covers source, compiler and flags
+    private List<String> resultKeys(String language, String code, List<String> inputs) {
+        String fileName = getFileName(language, code);
+        String programKey = compilationCache.key(language, code, getCompileArgs(language, fileName));
+        List<String> keys = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            keys.add(resultCache.key(programKey, input));
         }
+        return keys;
+    }
+    
+    private List<InputResult> cachedResults(String language, String[] cachedOutputs, ExecutionListener listener) {
+        listener.onCompiled("");
+        List<InputResult> results = new ArrayList<>(cachedOutputs.length);
+        for (int i = 0; i < cachedOutputs.length; i++) {
+            InputResult result = cachedResult(i, cachedOutputs[i]);
+            executionMetrics.recordExecution(language, "cached", 0);
+            listener.onResult(result);
+            results.add(result);
+        }
+        return results;
+    }
+    
+    private InputResult cachedResult(int index, String output) {
+        InputResult result = new InputResult(index, output, 0, false, 0);
+        result.setCached(true);
+        return result;
     }
     
     private String prepareFile(String language, String code, Path jobDir) throws IOException {
@@ -75,44 +288,136 @@ public class CodeExecutionService {
         };
     }
     
+    private String compileWithCache(String language, String code, String filePath, Path jobDir, ApiClient client,
+                                    RequestTrace.Span parent) throws Exception {
+        List<String> compileArgs = getCompileArgs(language, filePath);
+        
+        if (compileArgs.isEmpty()) {
+            return ""; // No compilation needed
+        }
+        
+        String acceleration = toolchainAccelerator.acceleration(language, code);
+        long start = System.nanoTime();
+        RequestTrace.Span span = parent.start("compile", start).attribute("acceleration", acceleration);
+        try {
+            if (!compilationCache.isEnabled()) {
+                return recordCompile(language, acceleration, compileInPool(language, filePath, jobDir, client, span), start, span);
+            }
+            
+            // Reuse artifacts or the compile error from an identical earlier submission
+            String cacheKey = compilationCache.key(language, code, compileArgs);
+            CompilationCache.Entry cached = compilationCache.lookup(cacheKey);
+            if (cached != null && compilationCache.restore(cached, jobDir)) {
+                executionMetrics.recordCompile(language, acceleration, "cached", System.nanoTime() - start);
+                span.attribute("outcome", "cached");
+                return cached.getCompileError() != null ? cached.getCompileError() : "";
+            }
+            
+            if (!singleFlight.isEnabled()) {
+                return recordCompile(language, acceleration, compileAndStore(language, filePath, jobDir, cacheKey, client, span), start, span);
+            }
+            
+            // The same program compiling for another request right now: wait for it and take its artifacts
+            SingleFlight.Landed<String> compiled = singleFlight.compile(cacheKey,
+                () -> compileAndStore(language, filePath, jobDir, cacheKey, client, span));
+            if (!compiled.shared()) {
+                return recordCompile(language, acceleration, compiled.value(), start, span);
+            }
+            CompilationCache.Entry shared = compilationCache.lookup(cacheKey);
+            if (shared != null && compilationCache.restore(shared, jobDir)) {
+                executionMetrics.recordCompile(language, acceleration, "coalesced", System.nanoTime() - start);
+                span.attribute("outcome", "coalesced");
+                return shared.getCompileError() != null ? shared.getCompileError() : "";
+            }
+            // Not stored (e.g. too large for the cache); compile our own copy
+            return recordCompile(language, acceleration, compileAndStore(language, filePath, jobDir, cacheKey, client, span), start, span);
+        } catch (CompilationTimeoutException e) {
+            executionMetrics.timeout(language, "compile");
+            executionMetrics.recordCompile(language, acceleration, "timeout", System.nanoTime() - start);
+            span.attribute("outcome", "timeout");
+            throw e;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            executionMetrics.failure(language, "compile");
+            executionMetrics.recordCompile(language, acceleration, "failure", System.nanoTime() - start);
+            span.attribute("outcome", "failure");
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+    
+    private String compileAndStore(String language, String filePath, Path jobDir, String cacheKey, ApiClient client,
+                                   RequestTrace.Span span) throws Exception {
+        String compileMessage = compileInPool(language, filePath, jobDir, client, span);
+        if (compileMessage.isEmpty()) {
+            compilationCache.storeArtifacts(cacheKey, jobDir, Paths.get(filePath).getFileName().toString());
+        } else {
+            compilationCache.storeError(cacheKey, compileMessage);
+        }
+        return compileMessage;
+    }
+    
+    private String recordCompile(String language, String acceleration, String compileMessage, long start, RequestTrace.Span span) {
+        String outcome = compileMessage.isEmpty() ? "success" : "error";
+        executionMetrics.recordCompile(language, acceleration, outcome, System.nanoTime() - start);
+        span.attribute("outcome", outcome);
+        return compileMessage;
+    }
+    
+    // Compilers run in the scheduler's compile stage; the compile timeout starts once the compiler does
+    private String compileInPool(String language, String filePath, Path jobDir, ApiClient client, RequestTrace.Span span) throws Exception {
+        long queued = System.nanoTime();
+        return executionScheduler.compile(() -> {
+            long started = System.nanoTime();
+            span.record("compile-queue", queued, started);
+            try {
+                return compileCode(language, filePath, jobDir);
+            } finally {
+                span.record("compiler", started, System.nanoTime());
+            }
+        }, client);
+    }
+    
     private String compileCode(String language, String filePath, Path jobDir) throws Exception {
-        List<String> compileArgs = getCompileArgs(language, filePath, jobDir);
+        List<String> compileArgs = getCompileArgs(language, filePath);
         
         if (compileArgs.isEmpty()) {
             return ""; // No compilation needed
         }
         
+        if (language.equals("Java") && javaRunnerPool.isEnabled()) {
+            String fileName = Paths.get(filePath).getFileName().toString();
+            return inProcessJavaCompiler.compile(fileName, Files.readString(Paths.get(filePath)), jobDir);
+        }
+        
         ProcessBuilder pb = new ProcessBuilder(compileArgs);
         pb.directory(jobDir.toFile());
+        toolchainAccelerator.configure(pb, language);
         
         Process process = pb.start();
         
-        // Read output and error streams
-        StringBuilder output = new StringBuilder();
-        StringBuilder error = new StringBuilder();
+        // Drain both streams concurrently; the watchdog kills the compiler at its deadline
+        StreamCapture output = StreamCapture.start(process.getInputStream(), config.getMaxCompileOutputBytes(), "compile-out");
+        StreamCapture error = StreamCapture.start(process.getErrorStream(), config.getMaxCompileOutputBytes(), "compile-err");
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-             BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+        try (ProcessWatchdog.Watch watch = processWatchdog.watch(process, jobDir, config.getCompileTimeoutMs())) {
+            try {
+                process.getOutputStream().close();
+                process.waitFor();
+            } catch (InterruptedException e) {
+                processWatchdog.killTree(watch);
+                throw e;
             }
-            while ((line = errorReader.readLine()) != null) {
-                error.append(line).append("\n");
+            
+            if (watch.isTimedOut()) {
+                throw new CompilationTimeoutException();
             }
         }
         
-        // Wait for compilation to complete with timeout
-        boolean finished = process.waitFor(config.getCompileTimeoutMs(), TimeUnit.MILLISECONDS);
-        
-        if (!finished) {
-            process.destroyForcibly();
-            throw new RuntimeException("Compilation timed out");
-        }
-        
-        String compileOutput = output.toString().trim();
-        String compileError = error.toString().trim();
+        String compileOutput = output.await(OUTPUT_DRAIN_GRACE_MS).trim();
+        String compileError = error.await(OUTPUT_DRAIN_GRACE_MS).trim();
         
         if (process.exitValue() != 0) {
             String errorMessage = compileError.isEmpty() ? compileOutput : compileError;
@@ -137,87 +442,199 @@ public class CodeExecutionService {
         return compileOutput;
     }
     
-    private List<String> getCompileArgs(String language, String filePath, Path jobDir) {
+    private List<String> getCompileArgs(String language, String filePath) {
         String fileName = Paths.get(filePath).getFileName().toString();
         String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
         
         return switch (language) {
-            case "C" -> List.of("gcc", "-Wall", fileName, "-o", baseName + config.getExecExt());
-            case "C++" -> List.of("g++", "-Wall", fileName, "-o", baseName + config.getExecExt());
-            case "Java" -> List.of("javac", fileName);
-            case "Go" -> List.of("go", "build", "-o", baseName + config.getExecExt(), fileName);
+            case "C", "C++", "Go" -> toolchainAccelerator.compileArgs(language, fileName, baseName);
+            case "Java" -> javaRunnerPool.isEnabled()
+                // Compiled in-process; the JDK version stands in for the toolchain version
+                ? List.of("javax.tools.JavaCompiler", Runtime.version().toString(), fileName)
+                : List.of("javac", fileName);
             default -> List.of(); // No compilation needed
         };
     }
     
-    private List<String> executeWithInputs(String language, String filePath, List<String> inputs, Path jobDir, String compileMessage) throws Exception {
-        List<String> outputs = new ArrayList<>();
-        ExecutorService executor = Executors.newFixedThreadPool(inputs.size());
+    private List<InputResult> executeWithInputs(String language, String filePath, List<String> inputs, Path jobDir,
+                                                List<String> resultKeys, String[] cachedOutputs, ExecutionListener listener,
+                                                ApiClient client, RequestTrace.Span span) throws Exception {
+        List<InputResult> results = new ArrayList<>();
+        List<Callable<InputResult>> tasks = new ArrayList<>();
         
-        try {
-            List<Future<String>> futures = new ArrayList<>();
-            
-            for (String input : inputs) {
-                Future<String> future = executor.submit(() -> executeSingleInput(language, filePath, input, jobDir));
-                futures.add(future);
-            }
-            
-            for (Future<String> future : futures) {
+        JavaRunnerPool.Program program = null;
+        if (language.equals("Java") && javaRunnerPool.isEnabled()) {
+            String fileName = Paths.get(filePath).getFileName().toString();
+            program = javaRunnerPool.load(jobDir, fileName.substring(0, fileName.lastIndexOf('.')));
+        }
+        
+        // Each input's span starts when it is queued
+        long queued = System.nanoTime();
+        for (int i = 0; i < inputs.size(); i++) {
+            int index = i;
+            String input = inputs.get(i);
+            JavaRunnerPool.Program javaProgram = program;
+            RequestTrace.Span inputSpan = span.start("input", queued).attribute("index", index);
+            tasks.add(() -> {
+                long start = System.nanoTime();
+                inputSpan.record("queue", queued, start);
+                if (cachedOutputs != null && cachedOutputs[index] != null) {
+                    InputResult result = cachedResult(index, cachedOutputs[index]);
+                    executionMetrics.recordExecution(language, "cached", 0);
+                    inputSpan.attribute("outcome", "cached").end();
+                    listener.onResult(result);
+                    return result;
+                }
+                
+                InputResult result;
+                String outcome;
                 try {
-                    String result = future.get(config.getExecTimeoutMs(), TimeUnit.MILLISECONDS);
-                    outputs.add(result.trim());
-                } catch (TimeoutException e) {
-                    outputs.add("Error: Code execution timed out");
+                    result = javaProgram != null
+                        ? executeJavaInput(javaProgram, input, inputSpan)
+                        : executeSingleInput(language, filePath, input, jobDir, inputSpan);
+                    outcome = result.isTimedOut() ? "timeout" : result.getExitCode() == 0 ? "success" : "error";
+                } catch (InterruptedException e) {
+                    throw e;
                 } catch (Exception e) {
-                    outputs.add("Error: " + e.getMessage());
+                    result = new InputResult(0, "Error: " + e.getMessage(), -1, false, 0);
+                    outcome = "failure";
+                    executionMetrics.failure(language, "execution");
+                }
+                long elapsed = System.nanoTime() - start;
+                inputSpan.attribute("outcome", outcome).attribute("exitCode", result.getExitCode()).end();
+                executionMetrics.recordExecution(language, outcome, elapsed);
+                if (result.isTimedOut()) {
+                    executionMetrics.timeout(language, "execution");
+                }
+                if (resultKeys != null && outcome.equals("success")) {
+                    resultCache.store(resultKeys.get(index), result.getOutput());
+                }
+                result.setIndex(index);
+                result.setTimeMs(elapsed / 1_000_000);
+                if (resourceLimiter.isEnabled()) {
+                    ResourceUsage usage = result.getUsage() != null ? result.getUsage() : new ResourceUsage();
+                    usage.setWallTimeMs(elapsed / 1_000_000);
+                    result.setUsage(usage);
+                    executionMetrics.recordUsage(language, usage);
+                }
+                listener.onResult(result);
+                return result;
+            });
+        }
+        
+        // Runs on the shared scheduler in fair order between clients; throws ExecutionRejectedException when it is full
+        List<Future<InputResult>> futures = executionScheduler.submitAll(tasks, client);
+        
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                // Each task enforces its own deadline from the moment its process starts
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new InputResult(i, "Error: " + e.getCause().getMessage(), -1, false, 0));
                 }
             }
-            
-        } finally {
-            executor.shutdown();
+        } catch (InterruptedException e) {
+            // The caller gave up (e.g. a streaming client disconnected); stop every run
+            futures.forEach(future -> future.cancel(true));
+            throw e;
         }
         
-        return outputs;
+        return results;
     }
     
-    private String executeSingleInput(String language, String filePath, String input, Path jobDir) throws Exception {
-        List<String> execArgs = getExecArgs(language, filePath, jobDir);
-        
-        ProcessBuilder pb = new ProcessBuilder(execArgs);
-        pb.directory(jobDir.toFile());
-        
-        Process process = pb.start();
+    private InputResult executeSingleInput(String language, String filePath, String input, Path jobDir,
+                                           RequestTrace.Span span) throws Exception {
+        long spawnStart = System.nanoTime();
+        Process process;
+        if (interpreterPool.handles(language)) {
+            // Warm worker; it reads the program path before the program's own input
+            process = interpreterPool.acquire(language);
+            input = interpreterPool.preamble(filePath) + (input == null ? "" : input);
+        } else {
+            List<String> execArgs = getExecArgs(language, filePath, jobDir);
+            
+            ProcessBuilder pb = new ProcessBuilder(execArgs);
+            pb.directory(jobDir.toFile());
+            
+            process = resourceLimiter.start(language, pb);
+        }
+        executionScheduler.processStarted();
+        process.onExit().thenRun(executionScheduler::processFinished);
+        long runStart = System.nanoTime();
+        span.record("spawn", spawnStart, runStart).attribute("pooled", interpreterPool.handles(language));
         
-        // Write input to process
-        if (input != null && !input.isEmpty()) {
-            try (OutputStreamWriter writer = new OutputStreamWriter(process.getOutputStream())) {
-                writer.write(input);
-                writer.flush();
+        try (ProcessWatchdog.Watch watch = processWatchdog.watch(process, jobDir, config.getExecTimeoutMs())) {
+            try {
+                InputResult result = readResult(process, input, watch);
+                span.record("run", runStart, System.nanoTime());
+                return withUsage(result, resourceLimiter.finish(process));
+            } catch (InterruptedException e) {
+                // Cancelled by the caller; do not leave the program running
+                processWatchdog.killTree(watch);
+                throw e;
+            } finally {
+                // Releases the run's cgroup if it ended early; does nothing after a normal finish
+                resourceLimiter.finish(process);
             }
         }
+    }
+    
+    // Attach measured usage, and name the limit when a program was stopped by one
+    private InputResult withUsage(InputResult result, ResourceUsage usage) {
+        result.setUsage(usage);
+        if (usage != null && usage.getLimitExceeded() != null && !result.isTimedOut()) {
+            result.setOutput(result.getOutput() + " (" + usage.getLimitExceeded() + " limit exceeded)");
+        }
+        return result;
+    }
+    
+    private InputResult readResult(Process process, String input, ProcessWatchdog.Watch watch) throws Exception {
+        // Drain both streams concurrently so a chatty stderr cannot block stdout
+        StreamCapture output = StreamCapture.start(process.getInputStream(), config.getMaxOutputBytes(), "stdout");
+        StreamCapture error = StreamCapture.start(process.getErrorStream(), config.getMaxOutputBytes(), "stderr");
         
-        // Read output and error streams
-        StringBuilder output = new StringBuilder();
-        StringBuilder error = new StringBuilder();
-        
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-             BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-            while ((line = errorReader.readLine()) != null) {
-                error.append(line).append("\n");
+        // Write input to process; always close stdin so reads see end of file
+        try (OutputStream stdin = process.getOutputStream()) {
+            if (input != null && !input.isEmpty()) {
+                stdin.write(input.getBytes(StandardCharsets.UTF_8));
             }
+        } catch (IOException e) {
+            // The program exited or closed stdin without reading all of its input
         }
         
-        // Wait for execution to complete
+        // Wait for execution to complete; the watchdog kills it at the deadline
         int exitValue = process.waitFor();
         
-        String result = output.toString();
-        String errorOutput = error.toString();
+        if (watch.isTimedOut()) {
+            return timedOutResult();
+        }
         
+        return formatResult(output.await(OUTPUT_DRAIN_GRACE_MS), error.await(OUTPUT_DRAIN_GRACE_MS), exitValue);
+    }
+    
+    private InputResult executeJavaInput(JavaRunnerPool.Program program, String input, RequestTrace.Span span) throws Exception {
+        JavaRunnerPool.RunResult result;
+        executionScheduler.processStarted();
+        long runStart = System.nanoTime();
+        try {
+            result = javaRunnerPool.run(program, input);
+        } finally {
+            executionScheduler.processFinished();
+            span.record("run", runStart, System.nanoTime()).attribute("pooled", true);
+        }
+        
+        if (result.isTimedOut()) {
+            return timedOutResult();
+        }
+        return withUsage(formatResult(result.getOutput(), result.getError(), result.getExitCode()), result.getUsage());
+    }
+    
+    private InputResult timedOutResult() {
+        return new InputResult(0, "Error: Code execution timed out", -1, true, 0);
+    }
+    
+    private InputResult formatResult(String result, String errorOutput, int exitValue) {
         if (exitValue != 0) {
             if (!errorOutput.isEmpty()) {
                 result = errorOutput + "\n" + "Exit code: " + exitValue;
@@ -226,7 +643,7 @@ public class CodeExecutionService {
             }
         }
         
-        return result.trim();
+        return new InputResult(0, result.trim(), exitValue, false, 0);
     }
     
     private List<String> getExecArgs(String language, String filePath, Path jobDir) {
@@ -249,21 +666,4 @@ public class CodeExecutionService {
             default -> throw new IllegalArgumentException("Unsupported language: " + language);
         };
     }
-    
-    private void cleanup(Path jobDir) {
-        try {
-            Files.walk(jobDir)
-                .sorted((a, b) -> b.compareTo(a)) // Delete files before directories
-                .forEach(path -> {
-                    try {
-                        Files.deleteIfExists(path);
-                    } catch (IOException e) {
-                        // Log error but don't throw
-                        System.err.println("Failed to delete: " + path + " - " + e.getMessage());
-                    }
-                });
-        } catch (IOException e) {
-            System.err.println("Failed to cleanup directory: " + jobDir + " - " + e.getMessage());
-        }
-    }
 }
@@ -0,0 +1,311 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of compiled artifacts and compile errors.
+ *
+ * Entries are keyed by a SHA-256 of language, toolchain version, compiler
+ * arguments and source. Artifacts live on disk under {@code app.compile-cache.dir},
+ * one directory per key; an access-ordered in-memory index tracks their sizes
+ * and evicts the least recently used entries once the configured byte budget
+ * is exceeded.
+ */
+@Component
+public class CompilationCache {
+
+    private static final String ERROR_FILE = "compile-error.txt";
+    private static final String TEMP_PREFIX = "tmp-";
+
+    @Autowired
+    private AppConfig config;
+
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, String> toolchainVersions = new ConcurrentHashMap<>();
+    private long totalBytes;
+    private Path cacheDir;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheDir = Paths.get(config.getCompileCacheDir());
+        Files.createDirectories(cacheDir);
+        rebuildIndex();
+    }
+
+    public boolean isEnabled() {
+        return config.isCompileCacheEnabled();
+    }
+
+    public String key(String language, String code, List<String> compileArgs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, language);
+            update(digest, toolchainVersion(language));
+            update(digest, String.join(" ", compileArgs));
+            update(digest, code);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized Entry lookup(String key) {
+        Entry entry = index.get(key);
+        (entry != null ? hits : misses).increment();
+        return entry;
+    }
+
+    // Copy cached artifacts into the job directory; returns false if the entry vanished
+    public boolean restore(Entry entry, Path jobDir) {
+        if (entry.getCompileError() != null) {
+            return true;
+        }
+
+        try (Stream<Path> files = Files.list(entry.getDir())) {
+            for (Path file : files.toList()) {
+                Files.copy(file, jobDir.resolve(file.getFileName()), StandardCopyOption.COPY_ATTRIBUTES);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to restore cached artifacts for " + entry.getKey() + " - " + e.getMessage());
+            remove(entry.getKey());
+            return false;
+        }
+    }
+
+    // Store every file the compiler produced next to the source file
+    public void storeArtifacts(String key, Path jobDir, String sourceFileName) {
+        Path tempDir = cacheDir.resolve(TEMP_PREFIX + UUID.randomUUID());
+        try {
+            Files.createDirectories(tempDir);
+            try (Stream<Path> files = Files.list(jobDir)) {
+                for (Path file : files.toList()) {
+                    if (Files.isRegularFile(file) && !file.getFileName().toString().equals(sourceFileName)) {
+                        Files.copy(file, tempDir.resolve(file.getFileName()), StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                }
+            }
+            commit(key, tempDir, null);
+        } catch (IOException e) {
+            System.err.println("Failed to cache artifacts for " + key + " - " + e.getMessage());
+            deleteRecursively(tempDir);
+        }
+    }
+
+    // Store a compile error so that resubmissions of broken code fail without compiling
+    public void storeError(String key, String compileError) {
+        Path tempDir = cacheDir.resolve(TEMP_PREFIX + UUID.randomUUID());
+        try {
+            Files.createDirectories(tempDir);
+            Files.writeString(tempDir.resolve(ERROR_FILE), compileError);
+            commit(key, tempDir, compileError);
+        } catch (IOException e) {
+            System.err.println("Failed to cache compile error for " + key + " - " + e.getMessage());
+            deleteRecursively(tempDir);
+        }
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void commit(String key, Path tempDir, String compileError) throws IOException {
+        long size = directorySize(tempDir);
+        Path entryDir = cacheDir.resolve(key);
+
+        synchronized (this) {
+            if (index.containsKey(key)) {
+                // Another request compiled the same source concurrently
+                deleteRecursively(tempDir);
+                return;
+            }
+            deleteRecursively(entryDir);
+            Files.move(tempDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+            index.put(key, new Entry(key, entryDir, compileError, size));
+            totalBytes += size;
+            evict();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Entry entry = index.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.getSize();
+            deleteRecursively(entry.getDir());
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> it = index.values().iterator();
+        while (totalBytes > config.getCompileCacheMaxBytes() && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getSize();
+            deleteRecursively(eldest.getDir());
+        }
+    }
+
+    private synchronized void rebuildIndex() throws IOException {
+        List<Path> entryDirs = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(cacheDir)) {
+            for (Path dir : dirs.toList()) {
+                if (dir.getFileName().toString().startsWith(TEMP_PREFIX)) {
+                    // Left behind by a crash mid-store
+                    deleteRecursively(dir);
+                } else if (Files.isDirectory(dir)) {
+                    entryDirs.add(dir);
+                }
+            }
+        }
+
+        // Oldest first so that the access order matches the on-disk history
+        entryDirs.sort(Comparator.comparingLong(this::lastModified));
+        for (Path dir : entryDirs) {
+            Path errorFile = dir.resolve(ERROR_FILE);
+            String compileError = Files.exists(errorFile) ? Files.readString(errorFile) : null;
+            long size = directorySize(dir);
+            String key = dir.getFileName().toString();
+            index.put(key, new Entry(key, dir, compileError, size));
+            totalBytes += size;
+        }
+        evict();
+        System.out.println("Compilation cache loaded " + index.size() + " entries (" + totalBytes + " bytes)");
+    }
+
+    private String toolchainVersion(String language) {
+        return toolchainVersions.computeIfAbsent(language, lang -> {
+            List<String> command = switch (lang) {
+                case "C" -> List.of("gcc", "--version");
+                case "C++" -> List.of("g++", "--version");
+                case "Java" -> List.of("javac", "-version");
+                case "Go" -> List.of("go", "version");
+                default -> List.of();
+            };
+            if (command.isEmpty()) {
+                return "";
+            }
+
+            try {
+                Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+                String version;
+                try (InputStream in = process.getInputStream()) {
+                    version = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().findFirst().orElse("");
+                }
+                process.waitFor(config.getCompileTimeoutMs(), TimeUnit.MILLISECONDS);
+                return version;
+            } catch (IOException e) {
+                return "unknown";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "unknown";
+            }
+        });
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static long directorySize(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete: " + path + " - " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Failed to delete cache directory: " + dir + " - " + e.getMessage());
+        }
+    }
+
+    public static class Entry {
+
+        private final String key;
+        private final Path dir;
+        private final String compileError;
+        private final long size;
+
+        Entry(String key, Path dir, String compileError, long size) {
+            this.key = key;
+            this.dir = dir;
+            this.compileError = compileError;
+            this.size = size;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Path getDir() {
+            return dir;
+        }
+
+        // Null when the entry holds compiled artifacts
+        public String getCompileError() {
+            return compileError;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
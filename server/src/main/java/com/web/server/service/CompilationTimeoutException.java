@@ -0,0 +1,11 @@
+package com.web.server.service;
+
+/**
+ * Thrown when a compiler does not finish within {@code app.compile-timeout}.
+ */
+public class CompilationTimeoutException extends RuntimeException {
+
+    public CompilationTimeoutException() {
+        super("Compilation timed out");
+    }
+}
@@ -0,0 +1,19 @@
+package com.web.server.service;
+
+import com.web.server.dto.InputResult;
+
+/**
+ * Receives progress of a single execution as it happens.
+ *
+ * Results arrive in completion order, on scheduler threads, so implementations
+ * must be thread-safe.
+ */
+public interface ExecutionListener {
+
+    ExecutionListener NONE = new ExecutionListener() {};
+
+    // Called once; compileError is empty when the program compiled (or needs no compilation)
+    default void onCompiled(String compileError) {}
+
+    default void onResult(InputResult result) {}
+}
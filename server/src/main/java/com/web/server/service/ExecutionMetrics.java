@@ -0,0 +1,341 @@
+package com.web.server.service;
+
+import com.web.server.controller.CodeExecutionController;
+import com.web.server.dto.ResourceUsage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters for the execution pipeline, scraped from /actuator/prometheus.
+ *
+ * Stage latencies are histograms tagged by language (and outcome where it
+ * matters); live state such as running processes, queue depth and concurrent
+ * requests is read from the owning components when the registry is scraped.
+ */
+@Component
+public class ExecutionMetrics {
+
+    private static final String PREFIX = "codeplayground.";
+
+    // Buckets from 1 ms to the longest compile or run we allow
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(60);
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private ProcessWatchdog processWatchdog;
+
+    @Autowired
+    private CompilationCache compilationCache;
+
+    @Autowired
+    private InterpreterPool interpreterPool;
+
+    @Autowired
+    private JavaRunnerPool javaRunnerPool;
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    @Autowired
+    private ResultCache resultCache;
+
+    @Autowired
+    private ClusterDispatcher clusterDispatcher;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private ClientQuotas clientQuotas;
+
+    @Autowired
+    private StartupTimeline startupTimeline;
+
+    @Autowired
+    private Tracer tracer;
+
+    private final AtomicInteger activeRequests = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder(PREFIX + "requests.active", activeRequests, AtomicInteger::get)
+            .description("Executions currently in progress")
+            .register(registry);
+
+        Gauge.builder(PREFIX + "processes.live", executionScheduler, ExecutionScheduler::getInFlightProcesses)
+            .description("Child processes (or runner jobs) currently executing user code")
+            .register(registry);
+        Gauge.builder(PREFIX + "processes.watched", processWatchdog, ProcessWatchdog::getWatchedCount)
+            .description("Processes under a watchdog deadline, compilers included")
+            .register(registry);
+        Gauge.builder(PREFIX + "processes.zombies", processWatchdog, ProcessWatchdog::getZombieCount)
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "processes.killed", processWatchdog, ProcessWatchdog::getTimeoutKills)
+            .tag("reason", "timeout")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "processes.killed", processWatchdog, ProcessWatchdog::getRunawayKills)
+            .tag("reason", "runaway")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "processes.killed", processWatchdog, ProcessWatchdog::getCpuKills)
+            .tag("reason", "cpu")
+            .register(registry);
+
+        // stage: compile (the compiler pool) or run (the pool that runs inputs); scheduler.wait is time spent queued
+        Gauge.builder(PREFIX + "scheduler.queue.depth", executionScheduler, ExecutionScheduler::getQueueDepth)
+            .tag("stage", "run")
+            .register(registry);
+        Gauge.builder(PREFIX + "scheduler.active", executionScheduler, ExecutionScheduler::getActiveCount)
+            .tag("stage", "run")
+            .register(registry);
+        Gauge.builder(PREFIX + "scheduler.available", executionScheduler, ExecutionScheduler::getAvailableSlots)
+            .tag("stage", "run")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "scheduler.rejections", executionScheduler, ExecutionScheduler::getRejectedRequests)
+            .tag("stage", "run")
+            .register(registry);
+        FunctionTimer.builder(PREFIX + "scheduler.wait", executionScheduler, ExecutionScheduler::getStartedTasks,
+                ExecutionScheduler::getTotalWaitNanos, TimeUnit.NANOSECONDS)
+            .tag("stage", "run")
+            .register(registry);
+        Gauge.builder(PREFIX + "scheduler.queue.depth", executionScheduler, ExecutionScheduler::getCompileQueueDepth)
+            .tag("stage", "compile")
+            .register(registry);
+        Gauge.builder(PREFIX + "scheduler.active", executionScheduler, ExecutionScheduler::getCompileActiveCount)
+            .tag("stage", "compile")
+            .register(registry);
+        Gauge.builder(PREFIX + "scheduler.available", executionScheduler, ExecutionScheduler::getCompileAvailableSlots)
+            .tag("stage", "compile")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "scheduler.rejections", executionScheduler, ExecutionScheduler::getCompileRejections)
+            .tag("stage", "compile")
+            .register(registry);
+        FunctionTimer.builder(PREFIX + "scheduler.wait", executionScheduler, ExecutionScheduler::getStartedCompiles,
+                ExecutionScheduler::getTotalCompileWaitNanos, TimeUnit.NANOSECONDS)
+            .tag("stage", "compile")
+            .register(registry);
+
+        FunctionCounter.builder(PREFIX + "compile.cache.lookups", compilationCache, CompilationCache::getHits)
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "compile.cache.lookups", compilationCache, CompilationCache::getMisses)
+            .tag("result", "miss")
+            .register(registry);
+        Gauge.builder(PREFIX + "compile.cache.bytes", compilationCache, CompilationCache::totalBytes)
+            .register(registry);
+
+        FunctionCounter.builder(PREFIX + "result.cache.lookups", resultCache, ResultCache::getHits)
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "result.cache.lookups", resultCache, ResultCache::getMisses)
+            .tag("result", "miss")
+            .register(registry);
+        Gauge.builder(PREFIX + "result.cache.entries", resultCache, ResultCache::size)
+            .register(registry);
+        Gauge.builder(PREFIX + "result.cache.bytes", resultCache, ResultCache::totalBytes)
+            .register(registry);
+
+        FunctionCounter.builder(PREFIX + "interpreter.pool.acquires", interpreterPool, InterpreterPool::getHits)
+            .tag("result", "warm")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "interpreter.pool.acquires", interpreterPool, InterpreterPool::getMisses)
+            .tag("result", "cold")
+            .register(registry);
+        Gauge.builder(PREFIX + "java.runners.idle", javaRunnerPool, JavaRunnerPool::getIdleCount)
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "java.runners.recycled", javaRunnerPool, JavaRunnerPool::getRecycledRunners)
+            .register(registry);
+
+        // Followers are requests that waited for an identical one instead of doing the work again
+        FunctionCounter.builder(PREFIX + "single.flight", singleFlight, SingleFlight::getExecutionLeaders)
+            .tags("stage", "execution", "role", "leader")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "single.flight", singleFlight, SingleFlight::getExecutionFollowers)
+            .tags("stage", "execution", "role", "follower")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "single.flight", singleFlight, SingleFlight::getCompileLeaders)
+            .tags("stage", "compile", "role", "leader")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "single.flight", singleFlight, SingleFlight::getCompileFollowers)
+            .tags("stage", "compile", "role", "follower")
+            .register(registry);
+
+        // Per-client usage, for billing and capacity planning
+        for (ClientQuotas.Client client : clientQuotas.getClients()) {
+            Gauge.builder(PREFIX + "client.active", client, ClientQuotas.Client::getActive)
+                .tag("client", client.getName())
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "client.requests", client, ClientQuotas.Client::getAccepted)
+                .tags("client", client.getName(), "outcome", "accepted")
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "client.requests", client, ClientQuotas.Client::getRateLimited)
+                .tags("client", client.getName(), "outcome", "rate_limited")
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "client.requests", client, ClientQuotas.Client::getOverQuota)
+                .tags("client", client.getName(), "outcome", "over_quota")
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "client.inputs", client, ClientQuotas.Client::getInputs)
+                .tag("client", client.getName())
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "client.cpu", client, ClientQuotas.Client::getCpuTimeMs)
+                .baseUnit("milliseconds")
+                .tag("client", client.getName())
+                .register(registry);
+        }
+
+        // Seconds from JVM start to readiness (after the warm-up) and to the first fast client request
+        Gauge.builder(PREFIX + "startup.ready", startupTimeline, StartupTimeline::getReadySeconds)
+            .baseUnit("seconds")
+            .register(registry);
+        Gauge.builder(PREFIX + "startup.first.fast.request", startupTimeline, StartupTimeline::getFirstFastRequestSeconds)
+            .baseUnit("seconds")
+            .register(registry);
+        for (String language : CodeExecutionController.SUPPORTED_LANGUAGES) {
+            Gauge.builder(PREFIX + "toolchain.available", startupTimeline, timeline -> timeline.getToolchainAvailable(language))
+                .tag("language", language)
+                .register(registry);
+        }
+
+        // Finished request traces by what became of their export
+        FunctionCounter.builder(PREFIX + "traces", tracer, Tracer::getExported)
+            .tag("outcome", "exported")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "traces", tracer, Tracer::getDropped)
+            .tag("outcome", "dropped")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "traces", tracer, Tracer::getFailed)
+            .tag("outcome", "failed")
+            .register(registry);
+
+        Gauge.builder(PREFIX + "workspace.free", workspaceManager, WorkspaceManager::getFreeSlots)
+            .register(registry);
+        Gauge.builder(PREFIX + "workspace.pending.cleanup", workspaceManager, WorkspaceManager::getPendingCleanup)
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "workspace.quarantined", workspaceManager, WorkspaceManager::getQuarantinedSlots)
+            .register(registry);
+
+        if (clusterDispatcher.isCoordinator()) {
+            Gauge.builder(PREFIX + "cluster.workers.healthy", clusterDispatcher, ClusterDispatcher::getHealthyWorkers)
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "cluster.dispatches", clusterDispatcher, ClusterDispatcher::getDispatched)
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "cluster.retries", clusterDispatcher, ClusterDispatcher::getRetried)
+                .register(registry);
+        }
+    }
+
+    // Called by InteractiveSessions, which records executions here and so cannot be injected
+    public void registerSessions(InteractiveSessions sessions) {
+        Gauge.builder(PREFIX + "sessions.active", sessions, InteractiveSessions::getActiveSessions)
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "sessions.evictions", sessions, InteractiveSessions::getEvictions)
+            .register(registry);
+        // Reused runs started the program already compiled in the session's workspace
+        FunctionCounter.builder(PREFIX + "sessions.runs", sessions, InteractiveSessions::getCompiledRuns)
+            .tag("compile", "compiled")
+            .register(registry);
+        FunctionCounter.builder(PREFIX + "sessions.runs", sessions, InteractiveSessions::getReusedRuns)
+            .tag("compile", "reused")
+            .register(registry);
+    }
+
+    public void requestStarted() {
+        activeRequests.incrementAndGet();
+    }
+
+    public void requestFinished() {
+        activeRequests.decrementAndGet();
+    }
+
+    // outcome: passed or rejected
+    public void recordValidation(String language, String outcome, long nanos) {
+        timer("validation", language, outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // outcome: success, error (user compile error), cached, coalesced or failure;
+    // acceleration: pch, go-cache or none, to compare compile times with and without it
+    public void recordCompile(String language, String acceleration, String outcome, long nanos) {
+        Timer.builder(PREFIX + "compile")
+            .tag("language", language)
+            .tag("outcome", outcome)
+            .tag("acceleration", acceleration)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(MIN_EXPECTED)
+            .maximumExpectedValue(MAX_EXPECTED)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // outcome: success, error (non-zero exit), timeout, failure or cached
+    public void recordExecution(String language, String outcome, long nanos) {
+        timer("execution", language, outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCleanup(String language, long nanos) {
+        timer("cleanup", language, "success").record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // CPU time and peak memory of runs started under resource limits
+    public void recordUsage(String language, ResourceUsage usage) {
+        if (usage.getCpuTimeMs() != null) {
+            DistributionSummary.builder(PREFIX + "execution.cpu")
+                .baseUnit("milliseconds")
+                .tag("language", language)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(usage.getCpuTimeMs());
+        }
+        if (usage.getPeakRssKb() != null) {
+            DistributionSummary.builder(PREFIX + "execution.memory.peak")
+                .baseUnit("bytes")
+                .tag("language", language)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(usage.getPeakRssKb() * 1024.0);
+        }
+        if (usage.getLimitExceeded() != null) {
+            registry.counter(PREFIX + "limits.exceeded", "language", language, "limit", usage.getLimitExceeded()).increment();
+        }
+    }
+
+    // Judge verdict of a submission, e.g. ACCEPTED or WRONG_ANSWER
+    public void recordVerdict(String language, String verdict) {
+        registry.counter(PREFIX + "judge.verdicts", "language", language, "verdict", verdict).increment();
+    }
+
+    // stage: compile or execution
+    public void timeout(String language, String stage) {
+        registry.counter(PREFIX + "timeouts", "language", language, "stage", stage).increment();
+    }
+
+    // Server-side errors, not errors in the submitted program
+    public void failure(String language, String stage) {
+        registry.counter(PREFIX + "failures", "language", language, "stage", stage).increment();
+    }
+
+    private Timer timer(String stage, String language, String outcome) {
+        return Timer.builder(PREFIX + stage)
+            .tag("language", language)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(MIN_EXPECTED)
+            .maximumExpectedValue(MAX_EXPECTED)
+            .register(registry);
+    }
+}
@@ -0,0 +1,18 @@
+package com.web.server.service;
+
+/**
+ * Thrown when the execution scheduler has no room left for a request.
+ */
+public class ExecutionRejectedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ExecutionRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
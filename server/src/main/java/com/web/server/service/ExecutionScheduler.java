@@ -0,0 +1,270 @@
+package com.web.server.service;
+
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide scheduler for compiles and program executions.
+ *
+ * Work goes through two stages, each a fixed pool with a bounded queue: a small
+ * compile pool, because compilers are CPU- and memory-heavy, and a larger run
+ * pool sized to the machine that runs every input of every request. A request
+ * compiles in the first and hands its inputs to the second as soon as the
+ * artifact is ready, so its runs overlap other requests' compiles. Admission
+ * to the run stage is all-or-nothing per request: the inputs of a request
+ * either all get a slot (running or queued) or the request is rejected with
+ * {@link ExecutionRejectedException}, as is a compile that finds its stage full.
+ *
+ * Queued work is taken in weighted fair queuing order rather than first come,
+ * first served: every task is tagged with a virtual finish time that advances
+ * by 1 / weight of its client per task, so a client with twenty inputs queued
+ * does not hold back another client's single one, and a client with twice the
+ * weight gets twice the slots while both have work waiting.
+ */
+@Component
+public class ExecutionScheduler {
+
+    // Earliest virtual finish time first; ties in arrival order
+    private static final Comparator<Runnable> QUEUE_ORDER = Comparator
+        .comparingDouble((Runnable task) -> ((ScheduledTask<?>) task).finishTag)
+        .thenComparingLong(task -> ((ScheduledTask<?>) task).sequence);
+
+    @Autowired
+    private AppConfig config;
+
+    private Stage run;
+    private Stage compile;
+
+    private final AtomicInteger inFlightProcesses = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        run = new Stage("exec-worker-", config.getSchedulerThreads(), config.getSchedulerQueueCapacity());
+        compile = new Stage("compile-worker-", config.getSchedulerCompileThreads(), config.getSchedulerCompileQueueCapacity());
+        System.out.println("Execution scheduler started with " + run.threads + " run threads (capacity " + run.capacity
+            + ") and " + compile.threads + " compile threads (capacity " + compile.capacity + ")");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        run.executor.shutdownNow();
+        compile.executor.shutdownNow();
+    }
+
+    // Submit all tasks of one request, or none of them if the scheduler is full
+    public <T> List<Future<T>> submitAll(List<Callable<T>> tasks, ApiClient client) {
+        return run.submitAll(tasks, client);
+    }
+
+    // Runs a compile in the compile stage and waits for it; interrupting the caller cancels it
+    public <T> T compile(Callable<T> task, ApiClient client) throws Exception {
+        Future<T> future = compile.submitAll(List.of(task), client).get(0);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    public void processStarted() {
+        inFlightProcesses.incrementAndGet();
+    }
+
+    public void processFinished() {
+        inFlightProcesses.decrementAndGet();
+    }
+
+    // Statistics of the run stage
+    public int getQueueDepth() {
+        return run.executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return run.executor.getActiveCount();
+    }
+
+    public int getInFlightProcesses() {
+        return inFlightProcesses.get();
+    }
+
+    public int getCapacity() {
+        return run.capacity;
+    }
+
+    public int getAvailableSlots() {
+        return run.admission.availablePermits();
+    }
+
+    public double getAverageWaitMs() {
+        return run.averageWaitMs();
+    }
+
+    public double getMaxWaitMs() {
+        return run.maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public long getRejectedRequests() {
+        return run.rejected.sum();
+    }
+
+    public long getStartedTasks() {
+        return run.started.sum();
+    }
+
+    public double getTotalWaitNanos() {
+        return run.totalWaitNanos.sum();
+    }
+
+    // Statistics of the compile stage
+    public int getCompileQueueDepth() {
+        return compile.executor.getQueue().size();
+    }
+
+    public int getCompileActiveCount() {
+        return compile.executor.getActiveCount();
+    }
+
+    public int getCompileAvailableSlots() {
+        return compile.admission.availablePermits();
+    }
+
+    public long getCompileRejections() {
+        return compile.rejected.sum();
+    }
+
+    public long getStartedCompiles() {
+        return compile.started.sum();
+    }
+
+    public double getTotalCompileWaitNanos() {
+        return compile.totalWaitNanos.sum();
+    }
+
+    // One pool with its admission control, fair queuing state and queue wait statistics
+    private class Stage {
+        final int threads;
+        final int capacity;
+        final ThreadPoolExecutor executor;
+        final Semaphore admission;
+        final LongAdder started = new LongAdder();
+        final LongAdder totalWaitNanos = new LongAdder();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final LongAdder rejected = new LongAdder();
+        // Virtual finish time of each client's last queued task; guarded by this
+        private final Map<String, Double> lastFinish = new HashMap<>();
+        private double virtualTime;
+        private long sequence;
+
+        Stage(String threadPrefix, int threads, int queueCapacity) {
+            this.threads = threads;
+            this.capacity = threads + queueCapacity;
+            // Virtual workers: the pool size bounds concurrency, while waiting on processes pins no OS thread
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(11, QUEUE_ORDER), Thread.ofVirtual().name(threadPrefix, 1).factory());
+            this.admission = new Semaphore(capacity);
+        }
+
+        <T> List<Future<T>> submitAll(List<Callable<T>> tasks, ApiClient client) {
+            if (!admission.tryAcquire(tasks.size())) {
+                rejected.increment();
+                throw new ExecutionRejectedException("Server is busy, please retry later",
+                    config.getSchedulerRetryAfterSeconds());
+            }
+
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            int submitted = 0;
+            try {
+                for (Callable<T> task : tasks) {
+                    ScheduledTask<T> scheduled = new ScheduledTask<>(this, task);
+                    tag(scheduled, client);
+                    executor.execute(scheduled);
+                    futures.add(scheduled);
+                    submitted++;
+                }
+            } catch (RejectedExecutionException e) {
+                // Executor is shutting down; give back the permits of tasks that never made it in
+                admission.release(tasks.size() - submitted);
+                futures.forEach(future -> future.cancel(true));
+                throw new ExecutionRejectedException("Server is shutting down", config.getSchedulerRetryAfterSeconds());
+            }
+            return futures;
+        }
+
+        // A client's tasks start where its last one finishes, or now if it has nothing queued
+        synchronized void tag(ScheduledTask<?> task, ApiClient client) {
+            double start = Math.max(virtualTime, lastFinish.getOrDefault(client.getName(), 0.0));
+            task.startTag = start;
+            task.finishTag = start + 1.0 / Math.max(client.getWeight(), 0.001);
+            task.sequence = sequence++;
+            lastFinish.put(client.getName(), task.finishTag);
+        }
+
+        synchronized void started(ScheduledTask<?> task) {
+            virtualTime = Math.max(virtualTime, task.startTag);
+        }
+
+        double averageWaitMs() {
+            long count = started.sum();
+            return count == 0 ? 0.0 : totalWaitNanos.sum() / (double) count / 1_000_000.0;
+        }
+
+        void recordWait(long waitNanos) {
+            started.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+    }
+
+    // Releases its admission permit exactly once, whether it ran, failed or was cancelled
+    private static class ScheduledTask<T> extends FutureTask<T> {
+
+        private final Stage stage;
+        private final long enqueuedAt = System.nanoTime();
+        // Fair queuing tags, set before the task is queued
+        private double startTag;
+        private double finishTag;
+        private long sequence;
+
+        ScheduledTask(Stage stage, Callable<T> callable) {
+            super(callable);
+            this.stage = stage;
+        }
+
+        @Override
+        public void run() {
+            stage.started(this);
+            stage.recordWait(System.nanoTime() - enqueuedAt);
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            stage.admission.release();
+        }
+    }
+}
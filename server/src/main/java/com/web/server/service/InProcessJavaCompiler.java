@@ -0,0 +1,208 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Compiles Java submissions with the JDK compiler inside the server JVM.
+ *
+ * Sources and class files stay in memory during compilation; the resulting
+ * class files are written to the job directory so that the compilation cache
+ * and the runner pool see the same artifacts as with an external javac.
+ *
+ * The compiler cannot be interrupted, so a compile that times out keeps
+ * running. It keeps its compile slot until it ends, which bounds these
+ * orphaned compiles to the compile stage's thread count, and its class files
+ * are dropped rather than written to a job directory that may by then belong
+ * to another job.
+ */
+@Component
+public class InProcessJavaCompiler {
+
+    private static final List<String> OPTIONS = List.of("-proc:none", "-implicit:class", "-Xlint:none");
+
+    @Autowired
+    private AppConfig config;
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    // One per compile-stage thread; released when javac ends, not when its caller gives up
+    private Semaphore slots;
+
+    @PostConstruct
+    public void init() {
+        slots = new Semaphore(config.getSchedulerCompileThreads());
+    }
+
+    // False when the server runs on a JRE without javax.tools
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    // Returns an empty string on success, otherwise the compiler diagnostics
+    public String compile(String fileName, String code, Path jobDir) throws Exception {
+        // The compile stage runs no more compiles than there are slots, so only orphaned compiles can hold them all
+        if (!slots.tryAcquire()) {
+            throw new ExecutionRejectedException("Server is busy, please retry later", config.getSchedulerRetryAfterSeconds());
+        }
+        CompletableFuture<Compiled> result = new CompletableFuture<>();
+        Thread.ofVirtual().name("javac-" + fileName).start(() -> {
+            Compiled compiled = null;
+            Throwable failure = null;
+            try {
+                compiled = compileInMemory(fileName, code);
+            } catch (Throwable e) {
+                failure = e;
+            }
+            // Released first, so that the caller's next compile finds the slot free
+            slots.release();
+            if (failure == null) {
+                result.complete(compiled);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        });
+
+        Compiled compiled;
+        try {
+            compiled = result.get(config.getCompileTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.err.println("Java compile of " + fileName + " timed out; it keeps a compile slot until javac finishes");
+            throw new CompilationTimeoutException();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Compilation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        // Written by the caller, which only gets here while the job directory is still its own
+        for (Map.Entry<String, byte[]> classFile : compiled.classFiles().entrySet()) {
+            Files.write(jobDir.resolve(classFile.getKey() + ".class"), classFile.getValue());
+        }
+        return compiled.diagnostics();
+    }
+
+    private Compiled compileInMemory(String fileName, String code) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> classFiles = new ConcurrentHashMap<>();
+
+        try (StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            // Submissions compile against the JDK only, not the server's classpath
+            standard.setLocation(StandardLocation.CLASS_PATH, List.of());
+            InMemoryFileManager fileManager = new InMemoryFileManager(standard, classFiles);
+            JavaFileObject source = new SourceFile(fileName, code);
+
+            boolean success = compiler.getTask(null, fileManager, diagnostics, OPTIONS, null, List.of(source)).call();
+            if (!success) {
+                return new Compiled(formatDiagnostics(diagnostics), Map.of());
+            }
+
+            Map<String, byte[]> bytes = new HashMap<>();
+            classFiles.forEach((name, output) -> bytes.put(name, output.toByteArray()));
+            return new Compiled("", bytes);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    // Same layout as javac's command-line output
+    private String formatDiagnostics(DiagnosticCollector<JavaFileObject> diagnostics) {
+        StringBuilder message = new StringBuilder();
+        int errors = 0;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors++;
+            }
+            String source = diagnostic.getSource() != null ? diagnostic.getSource().getName() : "";
+            message.append(source).append(':').append(diagnostic.getLineNumber()).append(": ")
+                .append(diagnostic.getKind() == Diagnostic.Kind.ERROR ? "error" : "warning").append(": ")
+                .append(diagnostic.getMessage(Locale.ROOT)).append('\n');
+        }
+        message.append(errors).append(errors == 1 ? " error" : " errors");
+        return message.toString();
+    }
+
+    // Diagnostics, empty on success, and the class files by binary name
+    private record Compiled(String diagnostics, Map<String, byte[]> classFiles) {}
+
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String code;
+
+        SourceFile(String fileName, String code) {
+            super(URI.create("string:///" + fileName), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public String getName() {
+            return toUri().getPath().substring(1);
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    private static class ClassFile extends SimpleJavaFileObject {
+
+        private final String binaryName;
+        private final Map<String, ByteArrayOutputStream> classFiles;
+
+        ClassFile(String binaryName, Map<String, ByteArrayOutputStream> classFiles) {
+            super(URI.create("mem:///" + binaryName.replace('.', '/') + ".class"), Kind.CLASS);
+            this.binaryName = binaryName;
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            classFiles.put(binaryName, bytes);
+            return bytes;
+        }
+    }
+
+    private static class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ByteArrayOutputStream> classFiles;
+
+        InMemoryFileManager(StandardJavaFileManager fileManager, Map<String, ByteArrayOutputStream> classFiles) {
+            super(fileManager);
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            return new ClassFile(className, classFiles);
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package com.web.server.service;
+
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import com.web.server.dto.InputResult;
+import com.web.server.dto.ResourceUsage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Long-lived interactive sessions, each with its own workspace and at most one live run.
+ *
+ * A session compiles its code once and keeps the artifacts: starting again
+ * with the same language and code runs the existing program without
+ * compiling. Stdin is queued as the client sends it and written to the
+ * running process by a thread of its own, so a program that stops reading
+ * never holds up the connection's other messages; stdout and stderr are
+ * forwarded as they are produced. Runs are not
+ * queued on the execution scheduler, because they last as long as the user
+ * keeps typing; {@code app.session.max-sessions} bounds them instead. Idle
+ * sessions (no live run) are evicted after {@code app.session.idle-timeout-ms},
+ * and the least recently used ones sooner when the session count or the total
+ * size of session workspaces is over budget.
+ */
+@Component
+public class InteractiveSessions {
+
+    private static final long REAP_INTERVAL_MS = 5000;
+    private static final int READ_CHUNK_CHARS = 4096;
+    // How long to wait for the rest of the output once the program exits
+    private static final long OUTPUT_DRAIN_GRACE_MS = 200;
+    // Queued in place of input to close the program's stdin
+    private static final byte[] END_OF_INPUT = new byte[0];
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private WorkspaceManager workspaceManager;
+
+    @Autowired
+    private ProcessWatchdog processWatchdog;
+
+    @Autowired
+    private ResourceLimiter resourceLimiter;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private ExecutionMetrics executionMetrics;
+
+    @Autowired
+    private ClientQuotas clientQuotas;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder compiledRuns = new LongAdder();
+    private final LongAdder reusedRuns = new LongAdder();
+    private ScheduledExecutorService reaper;
+
+    @PostConstruct
+    public void init() {
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.scheduleWithFixedDelay(this::evictIdle, REAP_INTERVAL_MS, REAP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        executionMetrics.registerSessions(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaper.shutdownNow();
+        sessions.values().forEach(Session::close);
+    }
+
+    public boolean isEnabled() {
+        return config.isSessionEnabled();
+    }
+
+    // Opens a session, evicting the least recently used idle one if the server is at its session limit
+    public synchronized Session open(String id, ApiClient client, SessionOutput output) {
+        if (sessions.size() >= config.getSessionMaxSessions() && !evictLeastRecentlyUsed(null)) {
+            throw new ExecutionRejectedException("Too many interactive sessions, please retry later",
+                config.getSchedulerRetryAfterSeconds());
+        }
+        Session session = new Session(id, client, output);
+        sessions.put(id, session);
+        return session;
+    }
+
+    public Session get(String id) {
+        return sessions.get(id);
+    }
+
+    public void close(String id) {
+        Session session = sessions.remove(id);
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    // Statistics
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getCompiledRuns() {
+        return compiledRuns.sum();
+    }
+
+    public long getReusedRuns() {
+        return reusedRuns.sum();
+    }
+
+    private void evictIdle() {
+        long idleSince = System.currentTimeMillis() - config.getSessionIdleTimeoutMs();
+        for (Session session : sessions.values()) {
+            if (session.isIdle() && session.lastActive < idleSince) {
+                evict(session, "Session closed after being idle");
+            }
+        }
+    }
+
+    // Evicts idle sessions, least recently used first, until the workspaces fit the budget
+    private synchronized void enforceWorkspaceBudget(Session keep) {
+        while (sessions.values().stream().mapToLong(session -> session.workspaceBytes).sum() > config.getSessionMaxWorkspaceBytes()) {
+            if (!evictLeastRecentlyUsed(keep)) {
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean evictLeastRecentlyUsed(Session keep) {
+        Session victim = sessions.values().stream()
+            .filter(session -> session != keep && session.isIdle())
+            .min(Comparator.comparingLong(session -> session.lastActive))
+            .orElse(null);
+        if (victim == null) {
+            return false;
+        }
+        evict(victim, "Session closed to make room for others");
+        return true;
+    }
+
+    private void evict(Session session, String reason) {
+        if (sessions.remove(session.id, session)) {
+            evictions.increment();
+            session.output.send(event("error", "message", reason));
+            session.output.close(reason);
+            session.close();
+        }
+    }
+
+    private static Map<String, Object> event(String type, Object... fields) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", type);
+        for (int i = 0; i < fields.length; i += 2) {
+            if (fields[i + 1] != null) {
+                event.put((String) fields[i], fields[i + 1]);
+            }
+        }
+        return event;
+    }
+
+    // One client's session: a workspace, the program compiled in it and the live run, if any
+    public class Session {
+        private final String id;
+        // The client the connection authenticated as; its quotas apply to every run
+        private final ApiClient client;
+        private final SessionOutput output;
+        private Path workspace;
+        // Language and code of the program compiled in the workspace
+        private String compiled;
+        private Run run;
+        private volatile long lastActive = System.currentTimeMillis();
+        private volatile long workspaceBytes;
+        private boolean closed;
+
+        Session(String id, ApiClient client, SessionOutput output) {
+            this.id = id;
+            this.client = client;
+            this.output = output;
+        }
+
+        // Stops the current run, if any, and starts the program, compiling it only if it changed
+        public synchronized void start(String language, String code) {
+            lastActive = System.currentTimeMillis();
+            if (closed) {
+                return;
+            }
+            Thread previous = run == null ? null : run.thread;
+            stop();
+            // Each run counts against the client's quotas like a request; throws QuotaExceededException
+            ClientQuotas.Lease lease = clientQuotas.admit(client);
+            Run started = new Run(lease);
+            run = started;
+            started.thread = Thread.ofVirtual().name("session-run").start(() -> execute(started, previous, client, language, code));
+        }
+
+        // Writes to the program's stdin; input sent while it is still compiling is passed on once it starts
+        public void stdin(String data) {
+            lastActive = System.currentTimeMillis();
+            Run current = currentRun();
+            if (current == null) {
+                output.send(event("error", "message", "No program is running"));
+                return;
+            }
+            if (!current.write(data.getBytes(StandardCharsets.UTF_8))) {
+                output.send(event("error", "message", "Input dropped: the program is not reading its input"));
+            }
+        }
+
+        // Closes the program's stdin, so that reads see end of file
+        public void closeStdin() {
+            lastActive = System.currentTimeMillis();
+            Run current = currentRun();
+            if (current != null) {
+                current.closeStdin();
+            }
+        }
+
+        // Sends an event to the session's client
+        public void send(Map<String, Object> event) {
+            output.send(event);
+        }
+
+        // Kills the live run, or abandons its compile
+        public synchronized void stop() {
+            Run current = run;
+            run = null;
+            if (current != null) {
+                current.stop();
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            stop();
+            if (workspace != null) {
+                // The stopped run may still be winding down; killJob takes care of its processes
+                processWatchdog.killJob(workspace);
+                workspaceManager.release(workspace);
+                workspace = null;
+            }
+        }
+
+        private synchronized Run currentRun() {
+            return run;
+        }
+
+        private synchronized boolean isIdle() {
+            return run == null;
+        }
+
+        private synchronized Path workspace() throws IOException {
+            if (closed) {
+                throw new IOException("Session closed");
+            }
+            if (workspace == null) {
+                workspace = workspaceManager.acquireForSession();
+            }
+            return workspace;
+        }
+
+        private void execute(Run current, Thread previous, ApiClient client, String language, String code) {
+            InputResult result = null;
+            try {
+                // The stopped run shares the workspace, so let it wind down first
+                if (previous != null) {
+                    previous.join();
+                }
+                Path dir = workspace();
+                String program = language + "\0" + code;
+                boolean reused = program.equals(compiled);
+                String compileError = "";
+                if (!reused) {
+                    compiled = null;
+                    compileError = codeExecutionService.compileForSession(language, code, dir, client);
+                }
+                if (!current.compileFinished()) {
+                    return;
+                }
+                if (!compileError.isEmpty()) {
+                    output.send(event("compile", "status", "error", "message", compileError));
+                    return;
+                }
+
+                if (reused) {
+                    reusedRuns.increment();
+                } else {
+                    compiled = program;
+                    compiledRuns.increment();
+                    workspaceBytes = directorySize(dir);
+                    enforceWorkspaceBudget(this);
+                }
+                output.send(event("compile", "status", "success", "reused", reused));
+                result = runProgram(current, language, code, dir);
+            } catch (InterruptedException e) {
+                // Stopped or replaced by a newer run
+            } catch (CompilationTimeoutException e) {
+                if (current.compileFinished()) {
+                    output.send(event("compile", "status", "error", "message", "Compilation timed out"));
+                }
+            } catch (Exception e) {
+                if (current.compileFinished()) {
+                    System.err.println("Session run failed: " + e.getMessage());
+                    output.send(event("error", "message", "Internal server error: " + e.getMessage()));
+                }
+            } finally {
+                current.lease.close(result == null ? null : List.of(result));
+                synchronized (this) {
+                    if (run == current) {
+                        run = null;
+                    }
+                    lastActive = System.currentTimeMillis();
+                }
+            }
+        }
+
+        private InputResult runProgram(Run current, String language, String code, Path dir) throws Exception {
+            long start = System.nanoTime();
+            Process process = codeExecutionService.startForSession(language, code, dir);
+            executionScheduler.processStarted();
+            ProcessWatchdog.Watch watch = processWatchdog.watch(process, dir, config.getSessionRunTimeoutMs());
+            try {
+                AtomicLong outputBytes = new AtomicLong();
+                Thread stdout = pump(process.getInputStream(), "stdout", outputBytes, watch);
+                Thread stderr = pump(process.getErrorStream(), "stderr", outputBytes, watch);
+                current.attach(process, watch);
+
+                int exitCode;
+                try {
+                    exitCode = process.waitFor();
+                    stdout.join(OUTPUT_DRAIN_GRACE_MS);
+                    stderr.join(OUTPUT_DRAIN_GRACE_MS);
+                } catch (InterruptedException e) {
+                    processWatchdog.killTree(watch);
+                    throw e;
+                }
+
+                long elapsed = System.nanoTime() - start;
+                ResourceUsage usage = resourceLimiter.finish(process);
+                if (usage != null) {
+                    usage.setWallTimeMs(elapsed / 1_000_000);
+                    executionMetrics.recordUsage(language, usage);
+                }
+                String outcome = watch.isTimedOut() ? "timeout" : exitCode == 0 ? "success" : "error";
+                executionMetrics.recordExecution(language, outcome, elapsed);
+
+                InputResult result = new InputResult(0, "", exitCode, watch.isTimedOut(), elapsed / 1_000_000);
+                result.setUsage(usage);
+                output.send(event("exit", "exitCode", exitCode, "timedOut", watch.isTimedOut(),
+                    "timeMs", result.getTimeMs(), "usage", usage));
+                return result;
+            } finally {
+                current.detach();
+                watch.close();
+                executionScheduler.processFinished();
+                resourceLimiter.finish(process);
+            }
+        }
+
+        // Forwards a stream as events until it ends; kills the run once the output limit is reached
+        private Thread pump(InputStream stream, String type, AtomicLong outputBytes, ProcessWatchdog.Watch watch) {
+            return Thread.ofVirtual().name("session-" + type).start(() -> {
+                char[] buffer = new char[READ_CHUNK_CHARS];
+                try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+                    int read;
+                    while ((read = reader.read(buffer)) != -1) {
+                        String chunk = new String(buffer, 0, read);
+                        if (outputBytes.addAndGet(chunk.getBytes(StandardCharsets.UTF_8).length) > config.getMaxOutputBytes()) {
+                            processWatchdog.killTree(watch);
+                            output.send(event("error", "message", "Output limit exceeded"));
+                            return;
+                        }
+                        output.send(event(type, "data", chunk));
+                    }
+                } catch (IOException e) {
+                    // The process was killed
+                }
+            });
+        }
+    }
+
+    // A run in progress: the thread compiling or waiting for the program, and the program once started
+    private class Run {
+        final ClientQuotas.Lease lease;
+        volatile Thread thread;
+        private ProcessWatchdog.Watch watch;
+        // Input not yet written to the program, including any received before it started
+        private final BlockingQueue<byte[]> stdin = new LinkedBlockingQueue<>();
+        private long queuedBytes;
+        private Thread writer;
+        private boolean stdinClosed;
+        private boolean compiling = true;
+        private boolean stopped;
+
+        Run(ClientQuotas.Lease lease) {
+            this.lease = lease;
+        }
+
+        synchronized void attach(Process process, ProcessWatchdog.Watch watch) {
+            this.watch = watch;
+            if (stopped) {
+                processWatchdog.killTree(watch);
+                return;
+            }
+            OutputStream target = process.getOutputStream();
+            writer = Thread.ofVirtual().name("session-stdin").start(() -> feed(target));
+        }
+
+        // Stops feeding the program once it has exited
+        synchronized void detach() {
+            if (writer != null) {
+                writer.interrupt();
+            }
+        }
+
+        // Queues input for the program; false if too much is already waiting for it to read
+        synchronized boolean write(byte[] data) {
+            if (stdinClosed) {
+                return true;
+            }
+            if (queuedBytes + data.length > config.getMaxOutputBytes()) {
+                return false;
+            }
+            queuedBytes += data.length;
+            stdin.add(data);
+            return true;
+        }
+
+        synchronized void closeStdin() {
+            if (!stdinClosed) {
+                stdinClosed = true;
+                stdin.add(END_OF_INPUT);
+            }
+        }
+
+        // Runs on the writer thread: blocks while the program is not reading and the pipe is full
+        private void feed(OutputStream target) {
+            try (target) {
+                for (;;) {
+                    byte[] data = stdin.take();
+                    if (data == END_OF_INPUT) {
+                        return;
+                    }
+                    synchronized (this) {
+                        queuedBytes -= data.length;
+                    }
+                    target.write(data);
+                    target.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // The program exited, closed its stdin or was stopped
+            }
+        }
+
+        // Ends the compile phase, the only one that may be interrupted: an interrupted thread
+        // cannot write to a WebSocket. Returns whether the run should go on.
+        synchronized boolean compileFinished() {
+            compiling = false;
+            Thread.interrupted();
+            return !stopped;
+        }
+
+        synchronized void stop() {
+            stopped = true;
+            if (watch != null) {
+                processWatchdog.killTree(watch);
+            } else if (compiling && thread != null) {
+                thread.interrupt();
+            }
+            if (writer != null) {
+                writer.interrupt();
+            }
+        }
+    }
+
+    private static long directorySize(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
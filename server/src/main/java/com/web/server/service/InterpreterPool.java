@@ -0,0 +1,160 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-started Python and Node.js workers.
+ *
+ * Each worker is an interpreter that has already booted and loaded its runtime,
+ * and blocks reading the path of a program from stdin. A worker runs exactly one
+ * job and then exits, so jobs never share interpreter state; a replacement is
+ * started in the background whenever one is taken. Because the worker is an
+ * ordinary child process, output capture and the watchdog apply unchanged.
+ */
+@Component
+public class InterpreterPool {
+
+    private static final List<String> LANGUAGES = List.of("Python", "JavaScript");
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private ResourceLimiter resourceLimiter;
+
+    private final Map<String, BlockingQueue<Process>> idle = Map.of(
+        "Python", new LinkedBlockingQueue<>(),
+        "JavaScript", new LinkedBlockingQueue<>()
+    );
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private ExecutorService spawner;
+    private Path workDir;
+    private String pythonWorker;
+    private String nodeWorker;
+    private volatile boolean shuttingDown;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!config.isInterpreterPoolEnabled()) {
+            return;
+        }
+
+        workDir = Paths.get(config.getInterpreterPoolDir()).toAbsolutePath();
+        Files.createDirectories(workDir);
+        pythonWorker = readResource("/interpreter/python-worker.py");
+        nodeWorker = readResource("/interpreter/node-worker.js");
+
+        spawner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "interpreter-spawner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String language : LANGUAGES) {
+            for (int i = 0; i < config.getInterpreterPoolSize(); i++) {
+                spawner.execute(() -> refill(language));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        if (spawner != null) {
+            spawner.shutdownNow();
+        }
+        idle.values().forEach(queue -> queue.forEach(Process::destroyForcibly));
+    }
+
+    public boolean handles(String language) {
+        return config.isInterpreterPoolEnabled() && LANGUAGES.contains(language);
+    }
+
+    // Take a warm worker, or start one on the spot if none is ready
+    public Process acquire(String language) throws IOException {
+        BlockingQueue<Process> queue = idle.get(language);
+        Process worker;
+        while ((worker = queue.poll()) != null) {
+            if (worker.isAlive()) {
+                hits.increment();
+                spawner.execute(() -> refill(language));
+                return worker;
+            }
+            resourceLimiter.finish(worker);
+        }
+
+        misses.increment();
+        spawner.execute(() -> refill(language));
+        return spawn(language);
+    }
+
+    // The first line a worker reads from stdin names the program to run
+    public String preamble(String filePath) {
+        return Paths.get(filePath).toAbsolutePath() + "\n";
+    }
+
+    // Statistics
+    public int getIdleCount(String language) {
+        BlockingQueue<Process> queue = idle.get(language);
+        return queue == null ? 0 : queue.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void refill(String language) {
+        BlockingQueue<Process> queue = idle.get(language);
+        if (shuttingDown || queue.size() >= config.getInterpreterPoolSize()) {
+            return;
+        }
+        try {
+            queue.offer(spawn(language));
+        } catch (IOException e) {
+            System.err.println("Failed to start " + language + " worker: " + e.getMessage());
+        }
+    }
+
+    private Process spawn(String language) throws IOException {
+        List<String> command = switch (language) {
+            case "Python" -> List.of(config.getPythonCmd(), "-c", pythonWorker);
+            case "JavaScript" -> List.of("node", "-e", nodeWorker);
+            default -> throw new IllegalArgumentException("No interpreter pool for " + language);
+        };
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(workDir.toFile());
+        // Limits are set when the worker starts, so its CPU time and memory include the interpreter's start-up
+        return resourceLimiter.start(language, pb);
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream in = InterpreterPool.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
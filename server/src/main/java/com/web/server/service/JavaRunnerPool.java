@@ -0,0 +1,502 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import com.web.server.dto.ResourceUsage;
+import com.web.server.runner.JavaRunner;
+import com.web.server.util.StreamCapture;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Pool of pre-started JVMs that run compiled Java submissions.
+ *
+ * Each runner executes one job at a time, loading the submission's classes in
+ * a fresh class loader. Runners are replaced after {@code app.java-runner.max-jobs}
+ * jobs, and immediately after a timeout, a System.exit, a VM error, any thread
+ * or process the submission started, or a file it left in the runner's working
+ * directory. Replacements are started in the background so the pool stays warm.
+ *
+ * Runners are not sandboxed: they run as the server's user, with the server's
+ * view of the filesystem and the network. Recycling keeps one job's leftovers
+ * from the next job on the same runner, but not from anything else the user
+ * can reach.
+ *
+ * Runners are started under {@link ResourceLimiter} with the limits of
+ * {@code app.limits.java.*}, except for CPU time: an rlimit would add up over
+ * all of a runner's jobs, so the watchdog kills a runner whose CPU time over a
+ * single job reaches the limit instead, and the runner is replaced. A job's
+ * usage is the runner JVM's CPU time over the job and, on Linux, the JVM's peak
+ * RSS during it, which includes the JVM itself and any heap it kept from
+ * earlier jobs.
+ */
+@Component
+public class JavaRunnerPool {
+
+    private static final int TOKEN_BYTES = 32;
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private ProcessWatchdog processWatchdog;
+
+    @Autowired
+    private InProcessJavaCompiler inProcessJavaCompiler;
+
+    @Autowired
+    private ResourceLimiter resourceLimiter;
+
+    private final SecureRandom random = new SecureRandom();
+    private final BlockingQueue<Runner> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger runnerCount = new AtomicInteger();
+    private final AtomicInteger runnerIds = new AtomicInteger();
+    private final LongAdder recycledRunners = new LongAdder();
+    private ExecutorService spawner;
+    private Path runnerDir;
+    private volatile boolean shuttingDown;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+
+        runnerDir = Paths.get(config.getJavaRunnerDir()).toAbsolutePath();
+        extractRunnerClasses();
+        spawner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "java-runner-spawner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < config.getJavaRunnerPoolSize(); i++) {
+            runnerCount.incrementAndGet();
+            spawner.execute(this::spawnIntoPool);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        if (spawner != null) {
+            spawner.shutdownNow();
+        }
+        Runner runner;
+        while ((runner = idle.poll()) != null) {
+            runner.process.destroyForcibly();
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isJavaRunnerEnabled() && inProcessJavaCompiler.isAvailable();
+    }
+
+    // Read the compiled classes of a job once, to be sent with every input
+    public Program load(Path jobDir, String mainClass) throws IOException {
+        Map<String, byte[]> classes = new HashMap<>();
+        try (Stream<Path> files = Files.list(jobDir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".class")) {
+                    classes.put(name.substring(0, name.length() - ".class".length()), Files.readAllBytes(file));
+                }
+            }
+        }
+        return new Program(classes, mainClass);
+    }
+
+    public RunResult run(Program program, String input) throws Exception {
+        Runner runner = acquire();
+        boolean healthy = false;
+        try (ProcessWatchdog.Watch watch = processWatchdog.watch(runner.process, runner.workDir, config.getExecTimeoutMs())) {
+            long cpuLimitMs = resourceLimiter.isEnabled() ? TimeUnit.SECONDS.toMillis(config.getResourceLimits("Java").getCpuSeconds()) : 0;
+            try {
+                Long cpuBefore = runner.cpuTimeMs();
+                boolean peakReset = runner.resetPeakRss();
+                watch.limitCpu(cpuLimitMs);
+                runner.send(program, input, config.getMaxOutputBytes());
+                RunResult result = runner.receive(config.getMaxOutputBytes());
+                result.usage = runner.usageSince(cpuBefore, peakReset);
+                if (result.exitCode == JavaRunner.EXITED) {
+                    // The submission called System.exit; the runner's exit status is the program's
+                    result.exitCode = runner.process.waitFor();
+                }
+                // A runner killed for CPU time just after it answered is dead all the same
+                healthy = !result.violation && !watch.isCpuExceeded() && isEmpty(runner.workDir) && ++runner.jobs < config.getJavaRunnerMaxJobs();
+                return result;
+            } catch (IOException e) {
+                if (watch.isTimedOut()) {
+                    return RunResult.timedOut();
+                }
+                if (watch.isCpuExceeded()) {
+                    return RunResult.cpuExceeded(runner.process.waitFor(), cpuLimitMs);
+                }
+                throw new IOException("Java runner failed: " + e.getMessage(), e);
+            } catch (InterruptedException e) {
+                processWatchdog.killTree(watch);
+                throw e;
+            }
+        } finally {
+            release(runner, healthy);
+        }
+    }
+
+    // Statistics
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getRunnerCount() {
+        return runnerCount.get();
+    }
+
+    public long getRecycledRunners() {
+        return recycledRunners.sum();
+    }
+
+    private Runner acquire() throws InterruptedException {
+        Runner runner = idle.poll();
+        if (runner != null) {
+            return runner;
+        }
+        // Pool is cold or exhausted; waiting here is bounded by the scheduler's concurrency
+        return idle.take();
+    }
+
+    private void release(Runner runner, boolean healthy) {
+        if (healthy && !shuttingDown) {
+            idle.offer(runner);
+            return;
+        }
+        recycledRunners.increment();
+        runner.process.toHandle().destroyForcibly();
+        runner.process.onExit().thenRun(() -> deleteWorkDir(runner.workDir));
+        if (!shuttingDown) {
+            spawner.execute(this::spawnIntoPool);
+        } else {
+            runnerCount.decrementAndGet();
+        }
+    }
+
+    private void spawnIntoPool() {
+        while (!shuttingDown) {
+            try {
+                idle.offer(spawn());
+                return;
+            } catch (Exception e) {
+                System.err.println("Failed to start Java runner: " + e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Runner spawn() throws IOException {
+        int id = runnerIds.incrementAndGet();
+        Path workDir = runnerDir.resolve("runner-" + id);
+        Files.createDirectories(workDir);
+        // Next to the work directory rather than in it, and removed once the runner has connected;
+        // both sides use a relative path, as socket paths are limited to about 100 bytes
+        Path socket = runnerDir.resolve("runner-" + id + ".sock");
+        Files.deleteIfExists(socket);
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder pb = new ProcessBuilder(
+            java,
+            "-Xmx" + config.getJavaRunnerMaxHeap(),
+            "-XX:+UseSerialGC",
+            "-XX:-UsePerfData",
+            "-Xshare:auto",
+            "-Djava.awt.headless=true",
+            "-cp", runnerDir.resolve("classes").toString(),
+            JavaRunner.class.getName(),
+            workDir.relativize(socket).toString()
+        );
+        pb.directory(workDir.toFile());
+        // Submissions can write to fd 1 and 2 directly, so the protocol goes over the socket instead
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        pb.environment().keySet().retainAll(Set.of("PATH", "LANG", "LC_ALL"));
+
+        byte[] token = new byte[TOKEN_BYTES];
+        random.nextBytes(token);
+        Process process = null;
+        SocketChannel channel = null;
+        try (ServerSocketChannel listener = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            listener.bind(UnixDomainSocketAddress.of(Paths.get("").toAbsolutePath().relativize(socket)));
+            process = resourceLimiter.startInPlace("Java", pb);
+            Process started = process;
+            process.onExit().thenRun(() -> resourceLimiter.finish(started));
+            try (OutputStream stdin = process.getOutputStream()) {
+                stdin.write(token);
+            }
+            // A runner that dies or hangs before connecting must not leave accept blocked
+            process.onExit().thenRun(() -> closeQuietly(listener));
+
+            ProcessWatchdog.Watch watch = processWatchdog.watch(process, workDir, config.getCompileTimeoutMs());
+            try (watch) {
+                channel = accept(listener, token, process);
+                Runner runner = new Runner(process, workDir, channel);
+                if (runner.in.readInt() != JavaRunner.READY) {
+                    throw new IOException("Unexpected handshake from Java runner");
+                }
+                return runner;
+            }
+        } catch (IOException e) {
+            if (process != null) {
+                process.destroyForcibly();
+            }
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+            throw e;
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    // The connection that sends the runner's token; any other local process could connect first
+    private SocketChannel accept(ServerSocketChannel listener, byte[] token, Process process) throws IOException {
+        while (true) {
+            SocketChannel channel = listener.accept();
+            // Also ends a read from a connection that never sends anything, once the watchdog kills the runner
+            process.onExit().thenRun(() -> closeQuietly(channel));
+            ByteBuffer received = ByteBuffer.allocate(token.length);
+            while (received.hasRemaining() && channel.read(received) >= 0) {
+                // Read until the token is complete or the connection closes
+            }
+            if (!received.hasRemaining() && MessageDigest.isEqual(received.array(), token)) {
+                return channel;
+            }
+            channel.close();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Already closed or broken; nothing left to release
+        }
+    }
+
+    // Files a job wrote to its working directory would be readable by the next job on the runner
+    private static boolean isEmpty(Path workDir) {
+        try (Stream<Path> entries = Files.list(workDir)) {
+            return entries.findAny().isEmpty();
+        } catch (IOException | UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    private void deleteWorkDir(Path workDir) {
+        try (Stream<Path> walk = Files.walk(workDir)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Failed to delete runner directory: " + workDir + " - " + e.getMessage());
+        }
+    }
+
+    // Runner classes live inside the server jar; copy them out so a plain JVM can load them
+    private void extractRunnerClasses() throws IOException {
+        // Work directories of runners from a previous server run
+        if (Files.isDirectory(runnerDir)) {
+            try (Stream<Path> dirs = Files.list(runnerDir)) {
+                dirs.filter(dir -> dir.getFileName().toString().startsWith("runner-")).forEach(this::deleteWorkDir);
+            }
+        }
+
+        Path packageDir = runnerDir.resolve("classes").resolve(JavaRunner.class.getPackageName().replace('.', '/'));
+        Files.createDirectories(packageDir);
+        for (String classFile : JavaRunner.CLASS_FILES) {
+            try (InputStream in = JavaRunner.class.getResourceAsStream(classFile)) {
+                if (in == null) {
+                    throw new IOException("Missing runner class " + classFile);
+                }
+                Files.write(packageDir.resolve(classFile), in.readAllBytes());
+            }
+        }
+    }
+
+    public static class Program {
+
+        private final Map<String, byte[]> classes;
+        private final String mainClass;
+
+        Program(Map<String, byte[]> classes, String mainClass) {
+            this.classes = classes;
+            this.mainClass = mainClass;
+        }
+    }
+
+    public static class RunResult {
+
+        private int exitCode;
+        private boolean violation;
+        private boolean timedOut;
+        private String output = "";
+        private String error = "";
+        private ResourceUsage usage;
+
+        static RunResult timedOut() {
+            RunResult result = new RunResult();
+            result.timedOut = true;
+            return result;
+        }
+
+        // The runner was killed mid-job, so only the limit is known of what the job used
+        static RunResult cpuExceeded(int exitCode, long cpuLimitMs) {
+            RunResult result = new RunResult();
+            result.exitCode = exitCode;
+            result.usage = new ResourceUsage(cpuLimitMs, null, "CPU time");
+            return result;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        // Null when the runner could not be measured
+        public ResourceUsage getUsage() {
+            return usage;
+        }
+    }
+
+    private static class Runner {
+
+        private final Process process;
+        private final Path workDir;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private int jobs;
+
+        Runner(Process process, Path workDir, SocketChannel channel) {
+            this.process = process;
+            this.workDir = workDir;
+            this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        }
+
+        void send(Program program, String input, int maxOutputBytes) throws IOException {
+            out.writeInt(program.classes.size());
+            for (Map.Entry<String, byte[]> classFile : program.classes.entrySet()) {
+                out.writeUTF(classFile.getKey());
+                out.writeInt(classFile.getValue().length);
+                out.write(classFile.getValue());
+            }
+            out.writeUTF(program.mainClass);
+            byte[] inputBytes = input == null ? new byte[0] : input.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(inputBytes.length);
+            out.write(inputBytes);
+            out.writeInt(maxOutputBytes);
+            out.flush();
+        }
+
+        RunResult receive(int maxOutputBytes) throws IOException {
+            RunResult result = new RunResult();
+            result.exitCode = in.readInt();
+            result.violation = in.readBoolean();
+            result.output = readCapture(maxOutputBytes);
+            result.error = readCapture(maxOutputBytes);
+            return result;
+        }
+
+        // CPU time of the whole JVM so far, or null where the platform does not report it
+        Long cpuTimeMs() {
+            return process.info().totalCpuDuration().map(Duration::toMillis).orElse(null);
+        }
+
+        // Restart the kernel's peak RSS count at the current RSS (Linux 4.0+)
+        boolean resetPeakRss() {
+            try {
+                Files.writeString(procFile("clear_refs"), "5");
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        // Without a reset the kernel's peak would be the runner's lifetime peak, so it is left out
+        ResourceUsage usageSince(Long cpuBefore, boolean peakReset) {
+            Long cpuAfter = cpuTimeMs();
+            Long cpuTimeMs = cpuBefore != null && cpuAfter != null ? Long.valueOf(cpuAfter - cpuBefore) : null;
+            Long peakRssKb = peakReset ? peakRssKb() : null;
+            return cpuTimeMs == null && peakRssKb == null ? null : new ResourceUsage(cpuTimeMs, peakRssKb, null);
+        }
+
+        private Long peakRssKb() {
+            try (Stream<String> lines = Files.lines(procFile("status"))) {
+                return lines.filter(line -> line.startsWith("VmHWM:"))
+                    .map(line -> Long.parseLong(line.replaceAll("[^0-9]", "")))
+                    .findFirst()
+                    .orElse(null);
+            } catch (IOException | UncheckedIOException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private Path procFile(String name) {
+            return Paths.get("/proc", String.valueOf(process.pid()), name);
+        }
+
+        private String readCapture(int maxOutputBytes) throws IOException {
+            long totalBytes = in.readLong();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return StreamCapture.format(bytes, bytes.length, totalBytes, maxOutputBytes);
+        }
+    }
+}
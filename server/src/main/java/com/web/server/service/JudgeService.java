@@ -0,0 +1,284 @@
+package com.web.server.service;
+
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import com.web.server.dto.InputResult;
+import com.web.server.dto.JudgeDiff;
+import com.web.server.dto.JudgeSubmission;
+import com.web.server.dto.JudgeTest;
+import com.web.server.dto.SubmissionVerdict;
+import com.web.server.util.OutputComparator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Grades submissions against tests with expected outputs.
+ *
+ * Each submission runs as one execution with the tests' inputs, and its
+ * outputs are compared as they arrive. With stop-on-first-failure, the first
+ * failing test cancels the execution, which stops the remaining runs; those
+ * tests are reported as skipped. A batch grades a bounded number of
+ * submissions at once. Each submission is one execution against the client's
+ * quotas, like a request to POST /; a submission the quotas or the scheduler
+ * turn away waits and tries again rather than failing, so a large batch stays
+ * within the client's max-concurrent, does not flood the scheduler and is not
+ * rejected under load.
+ */
+@Service
+public class JudgeService {
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private ExecutionMetrics executionMetrics;
+
+    @Autowired
+    private ClientQuotas clientQuotas;
+
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    // firstLease is the request's own admission, used by the first submission to run
+    public Batch newBatch(List<JudgeTest> tests, OutputComparator comparator, boolean stopOnFirstFailure,
+                          ClientQuotas.Lease firstLease) {
+        return new Batch(tests, comparator, stopOnFirstFailure, firstLease);
+    }
+
+    // Submissions graded against the same tests
+    public class Batch {
+        private final List<JudgeTest> tests;
+        private final List<String> inputs;
+        private final OutputComparator comparator;
+        private final boolean stopOnFirstFailure;
+        private final ApiClient client;
+        private final AtomicReference<ClientQuotas.Lease> firstLease;
+        private final Semaphore running = new Semaphore(config.getJudgeParallelSubmissions());
+        private final List<Future<?>> tasks = Collections.synchronizedList(new ArrayList<>());
+
+        Batch(List<JudgeTest> tests, OutputComparator comparator, boolean stopOnFirstFailure, ClientQuotas.Lease firstLease) {
+            this.tests = tests;
+            this.inputs = tests.stream().map(JudgeTest::getInput).toList();
+            this.comparator = comparator;
+            this.stopOnFirstFailure = stopOnFirstFailure;
+            this.client = firstLease.getClient();
+            this.firstLease = new AtomicReference<>(firstLease);
+        }
+
+        public CompletableFuture<SubmissionVerdict> submit(JudgeSubmission submission) {
+            CompletableFuture<SubmissionVerdict> verdict = new CompletableFuture<>();
+            tasks.add(batchExecutor.submit(() -> {
+                try {
+                    running.acquire();
+                    try {
+                        ClientQuotas.Lease lease = admit();
+                        try {
+                            verdict.complete(grade(submission, lease));
+                        } finally {
+                            // No-op once grade has closed it with the results
+                            lease.close(null);
+                        }
+                    } finally {
+                        running.release();
+                    }
+                } catch (InterruptedException e) {
+                    verdict.cancel(false);
+                } catch (Exception e) {
+                    System.err.println("Judging submission " + submission.getId() + " failed: " + e.getMessage());
+                    verdict.complete(unjudged(submission, "SYSTEM_ERROR", "Internal server error: " + e.getMessage()));
+                }
+            }));
+            return verdict;
+        }
+
+        // A submission that is not run, e.g. in an unsupported language
+        public CompletableFuture<SubmissionVerdict> reject(JudgeSubmission submission, String reason) {
+            return CompletableFuture.completedFuture(unjudged(submission, "REJECTED", reason));
+        }
+
+        // Stops every submission still running or waiting
+        public void cancel() {
+            synchronized (tasks) {
+                tasks.forEach(task -> task.cancel(true));
+            }
+            close();
+        }
+
+        // Gives back the request's admission if no submission ran with it, e.g. when all were rejected
+        public void close() {
+            ClientQuotas.Lease unused = firstLease.getAndSet(null);
+            if (unused != null) {
+                unused.close(null);
+            }
+        }
+
+        private SubmissionVerdict grade(JudgeSubmission submission, ClientQuotas.Lease lease) throws Exception {
+            while (true) {
+                Grader grader = new Grader(this);
+                CompletableFuture<List<InputResult>> execution = codeExecutionService.executeAsync(
+                    submission.getLanguage(), submission.getCode(), inputs, grader, client);
+                grader.attach(execution);
+                try {
+                    execution.get();
+                } catch (CancellationException e) {
+                    if (!grader.isStopped()) {
+                        throw e;
+                    }
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof ExecutionRejectedException rejected) {
+                        // The scheduler is full; wait for room instead of failing the submission
+                        Thread.sleep(rejected.getRetryAfterSeconds() * 1000L);
+                        continue;
+                    }
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                } catch (InterruptedException e) {
+                    execution.cancel(true);
+                    throw e;
+                }
+
+                lease.close(grader.received());
+                SubmissionVerdict verdict = grader.verdict(submission.getId());
+                executionMetrics.recordVerdict(submission.getLanguage(), verdict.getVerdict());
+                return verdict;
+            }
+        }
+
+        // Each submission is admitted on its own; the first to run uses the request's admission
+        private ClientQuotas.Lease admit() throws InterruptedException {
+            ClientQuotas.Lease lease = firstLease.getAndSet(null);
+            while (lease == null) {
+                try {
+                    lease = clientQuotas.admit(client);
+                } catch (QuotaExceededException e) {
+                    // The client's other executions hold its quota; wait for them instead of failing the submission
+                    Thread.sleep(e.getRetryAfterSeconds() * 1000L);
+                }
+            }
+            return lease;
+        }
+
+        private SubmissionVerdict unjudged(JudgeSubmission submission, String verdict, String message) {
+            List<String> skipped = Collections.nCopies(tests.size(), "SKIPPED");
+            return new SubmissionVerdict(submission.getId(), verdict, 0, tests.size(), skipped, null, message);
+        }
+    }
+
+    // Collects one execution's results and judges each as it arrives
+    private static class Grader implements ExecutionListener {
+        private final Batch batch;
+        private final InputResult[] results;
+        private String compileError = "";
+        private CompletableFuture<?> execution;
+        private boolean stopped;
+
+        Grader(Batch batch) {
+            this.batch = batch;
+            this.results = new InputResult[batch.tests.size()];
+        }
+
+        synchronized void attach(CompletableFuture<?> execution) {
+            this.execution = execution;
+            if (stopped) {
+                execution.cancel(true);
+            }
+        }
+
+        synchronized boolean isStopped() {
+            return stopped;
+        }
+
+        @Override
+        public synchronized void onCompiled(String compileError) {
+            this.compileError = compileError;
+        }
+
+        @Override
+        public synchronized void onResult(InputResult result) {
+            results[result.getIndex()] = result;
+            if (batch.stopOnFirstFailure && !stopped && !verdictOf(result.getIndex()).equals("PASSED")) {
+                // Cancelling the execution stops its remaining runs
+                stopped = true;
+                if (execution != null) {
+                    execution.cancel(true);
+                }
+            }
+        }
+
+        synchronized List<InputResult> received() {
+            return Arrays.stream(results).filter(Objects::nonNull).toList();
+        }
+
+        synchronized SubmissionVerdict verdict(String id) {
+            int total = results.length;
+            if (!compileError.isEmpty()) {
+                return new SubmissionVerdict(id, "COMPILE_ERROR", 0, total, Collections.nCopies(total, "SKIPPED"), null,
+                    OutputComparator.shown(compileError));
+            }
+
+            List<String> tests = new ArrayList<>(total);
+            String verdict = "ACCEPTED";
+            JudgeDiff firstFailure = null;
+            int passed = 0;
+            for (int i = 0; i < total; i++) {
+                String test = verdictOf(i);
+                tests.add(test);
+                if (test.equals("PASSED")) {
+                    passed++;
+                } else if (!test.equals("SKIPPED") && firstFailure == null) {
+                    verdict = test;
+                    firstFailure = diff(i, test);
+                }
+            }
+            return new SubmissionVerdict(id, verdict, passed, total, tests, firstFailure, null);
+        }
+
+        private String verdictOf(int test) {
+            InputResult result = results[test];
+            if (result == null) {
+                return "SKIPPED";
+            }
+            String limit = result.getUsage() != null ? result.getUsage().getLimitExceeded() : null;
+            if (result.isTimedOut() || "CPU time".equals(limit)) {
+                return "TIME_LIMIT_EXCEEDED";
+            }
+            if ("memory".equals(limit)) {
+                return "MEMORY_LIMIT_EXCEEDED";
+            }
+            if (result.getExitCode() != 0) {
+                return "RUNTIME_ERROR";
+            }
+            return diff(test, "WRONG_ANSWER") == null ? "PASSED" : "WRONG_ANSWER";
+        }
+
+        private JudgeDiff diff(int test, String verdict) {
+            InputResult result = results[test];
+            if (verdict.equals("WRONG_ANSWER")) {
+                return batch.comparator.compare(test, batch.tests.get(test).getExpectedOutput(), result.getOutput());
+            }
+            String position = verdict.equals("RUNTIME_ERROR") ? "exit code " + result.getExitCode() : verdict.toLowerCase();
+            return new JudgeDiff(test, position, null, OutputComparator.shown(result.getOutput()));
+        }
+    }
+}
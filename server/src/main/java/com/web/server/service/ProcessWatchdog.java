@@ -0,0 +1,251 @@
+package com.web.server.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces wall-clock limits on child processes.
+ *
+ * Every compiler and program process is registered with a deadline. When the
+ * deadline passes, the process and all of its descendants are killed. A
+ * periodic sweep records the descendants of live processes (so that
+ * grandchildren that outlive their parent can still be found) and re-kills
+ * anything that survived a kill. Only the job's own process trees are ever
+ * touched; programs started through the resource launcher cannot leave that
+ * tree, since the launcher is their subreaper and reaps what they leave behind.
+ *
+ * A watch can also carry a CPU time budget, for processes such as Java runners
+ * that outlive a single job and so cannot use an rlimit. The sweep checks it,
+ * so a process may overrun its budget by up to one sweep interval.
+ *
+ * The JDK only reaps processes it started, so orphans re-parented to the
+ * server itself (when it runs as PID 1) stay zombies; they are counted so that
+ * this shows up in the metrics.
+ */
+@Component
+public class ProcessWatchdog {
+
+    private static final long SWEEP_INTERVAL_MS = 250;
+    private static final long KILL_GRACE_MS = 1000;
+    private static final long REAP_WAIT_MS = 100;
+
+    private final Map<Long, Watch> watches = new ConcurrentHashMap<>();
+    private final LongAdder timeoutKills = new LongAdder();
+    private final LongAdder runawayKills = new LongAdder();
+    private final LongAdder cpuKills = new LongAdder();
+    private final AtomicInteger zombieCount = new AtomicInteger();
+
+    private ScheduledExecutorService timer;
+
+    @PostConstruct
+    public void init() {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "process-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        if (ProcessHandle.current().pid() == 1) {
+            System.err.println("Server is running as PID 1; orphaned grandchildren will not be reaped. Run it under an init process such as tini.");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watches.values().forEach(this::killTree);
+        timer.shutdownNow();
+    }
+
+    // Register a process that must finish within timeoutMs; close the watch once its output is read
+    public Watch watch(Process process, Path jobDir, long timeoutMs) {
+        Watch watch = new Watch(process, jobDir, System.currentTimeMillis() + timeoutMs);
+        watches.put(process.pid(), watch);
+        watch.deadlineTask = timer.schedule(() -> {
+            if (process.isAlive()) {
+                watch.timedOut = true;
+                timeoutKills.increment();
+            }
+            // Also covers a program that exited but left a background child holding its pipes
+            killTree(watch);
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+
+        process.onExit().thenRun(() -> killDescendants(watch));
+        return watch;
+    }
+
+    // Kill every process that belongs to a job, used before its directory is removed
+    public void killJob(Path jobDir) {
+        for (Watch watch : watches.values()) {
+            if (watch.jobDir.equals(jobDir)) {
+                killTree(watch);
+            }
+        }
+    }
+
+    public void killTree(Watch watch) {
+        // Descendants first, and give the root a moment to reap them and exit: a launcher killed
+        // before it has reaped its child leaves that child to init, or as a zombie of the server
+        if (killDescendants(watch)) {
+            try {
+                watch.process.waitFor(REAP_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // ProcessHandle rather than Process.destroyForcibly, which also closes the streams and
+        // can block while another thread is reading them
+        watch.process.toHandle().destroyForcibly();
+        killDescendants(watch);
+    }
+
+    // Statistics
+    public int getWatchedCount() {
+        return watches.size();
+    }
+
+    public long getTimeoutKills() {
+        return timeoutKills.sum();
+    }
+
+    public long getRunawayKills() {
+        return runawayKills.sum();
+    }
+
+    public long getCpuKills() {
+        return cpuKills.sum();
+    }
+
+    public int getZombieCount() {
+        return zombieCount.get();
+    }
+
+    // Whether there was anything to kill
+    private boolean killDescendants(Watch watch) {
+        watch.recordDescendants();
+        boolean killed = false;
+        for (ProcessHandle descendant : watch.descendants) {
+            killed |= descendant.destroyForcibly();
+        }
+        watch.descendants.removeIf(descendant -> !descendant.isAlive());
+        return killed;
+    }
+
+    private void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Watch watch : watches.values()) {
+                watch.recordDescendants();
+                if (watch.isOverCpuBudget()) {
+                    watch.cpuExceeded = true;
+                    cpuKills.increment();
+                    killTree(watch);
+                }
+                if (now > watch.deadline + KILL_GRACE_MS && watch.process.isAlive()) {
+                    // Survived its deadline kill, or the deadline task never ran
+                    runawayKills.increment();
+                    killTree(watch);
+                }
+            }
+            zombieCount.set(countZombieChildren());
+        } catch (Exception e) {
+            System.err.println("Process watchdog sweep failed: " + e.getMessage());
+        }
+    }
+
+    private int countZombieChildren() {
+        return (int) ProcessHandle.current().children()
+            .filter(child -> isZombie(child.pid()))
+            .count();
+    }
+
+    // CPU time of the process itself, or null where the platform does not report it
+    private static Long cpuTimeMs(Process process) {
+        return process.info().totalCpuDuration().map(Duration::toMillis).orElse(null);
+    }
+
+    private static boolean isZombie(long pid) {
+        Path stat = Paths.get("/proc", String.valueOf(pid), "stat");
+        try {
+            String content = Files.readString(stat);
+            // Format: pid (comm) state ...; comm may itself contain spaces or parentheses
+            int end = content.lastIndexOf(')');
+            return end > 0 && end + 2 < content.length() && content.charAt(end + 2) == 'Z';
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public class Watch implements AutoCloseable {
+
+        private final Process process;
+        private final Path jobDir;
+        private final long deadline;
+        private final Set<ProcessHandle> descendants = ConcurrentHashMap.newKeySet();
+        private volatile boolean timedOut;
+        private volatile boolean cpuExceeded;
+        private volatile long cpuBudgetMs;
+        private volatile long cpuBaselineMs;
+        private volatile ScheduledFuture<?> deadlineTask;
+
+        Watch(Process process, Path jobDir, long deadline) {
+            this.process = process;
+            this.jobDir = jobDir;
+            this.deadline = deadline;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        // Kill the process once it has used cpuMs of CPU time from now on; zero means no budget
+        public void limitCpu(long cpuMs) {
+            Long now = cpuTimeMs(process);
+            if (cpuMs > 0 && now != null) {
+                cpuBaselineMs = now;
+                cpuBudgetMs = cpuMs;
+            }
+        }
+
+        public boolean isCpuExceeded() {
+            return cpuExceeded;
+        }
+
+        @Override
+        public void close() {
+            deadlineTask.cancel(false);
+            watches.remove(process.pid(), this);
+            killDescendants(this);
+        }
+
+        private boolean isOverCpuBudget() {
+            if (cpuBudgetMs <= 0 || cpuExceeded || !process.isAlive()) {
+                return false;
+            }
+            Long now = cpuTimeMs(process);
+            return now != null && now - cpuBaselineMs >= cpuBudgetMs;
+        }
+
+        private void recordDescendants() {
+            if (process.isAlive()) {
+                process.descendants().forEach(descendants::add);
+            }
+        }
+    }
+}
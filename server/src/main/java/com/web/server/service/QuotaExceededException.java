@@ -0,0 +1,18 @@
+package com.web.server.service;
+
+/**
+ * Thrown when a client is over its rate limit or concurrency quota, whether or not the server has room.
+ */
+public class QuotaExceededException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public QuotaExceededException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
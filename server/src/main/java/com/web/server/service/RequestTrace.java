@@ -0,0 +1,172 @@
+package com.web.server.service;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The phases of one request as a tree of timed spans.
+ *
+ * The root span covers the whole request. Code that does a phase of the work
+ * is handed the span of the step it belongs to and adds children to it, from
+ * any thread. Times are taken with {@link System#nanoTime()} and converted to
+ * wall-clock time only for export. {@link #NONE} records nothing, for callers
+ * that do not trace.
+ */
+public class RequestTrace {
+
+    public static final RequestTrace NONE = new RequestTrace();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final String traceId;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Span root;
+
+    RequestTrace(String name) {
+        this.traceId = randomId(16);
+        this.startEpochNanos = System.currentTimeMillis() * 1_000_000;
+        this.startNanos = System.nanoTime();
+        this.root = new Span(this, null, name, startNanos);
+    }
+
+    private RequestTrace() {
+        this.traceId = null;
+        this.startEpochNanos = 0;
+        this.startNanos = 0;
+        this.root = Span.NONE;
+    }
+
+    public boolean isRecording() {
+        return this != NONE;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public Span getRoot() {
+        return root;
+    }
+
+    // Wall-clock time of a System.nanoTime() reading taken during the request
+    public long epochNanos(long nanos) {
+        return startEpochNanos + (nanos - startNanos);
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    static String randomId(int bytes) {
+        byte[] id = new byte[bytes];
+        RANDOM.nextBytes(id);
+        return HexFormat.of().formatHex(id);
+    }
+
+    public static class Span {
+
+        public static final Span NONE = new Span(null, null, "none", 0);
+
+        private final RequestTrace trace;
+        private final String spanId;
+        private final Span parent;
+        private final String name;
+        private final long startNanos;
+        private volatile long endNanos;
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private final List<Span> children = new ArrayList<>();
+
+        private Span(RequestTrace trace, Span parent, String name, long startNanos) {
+            this.trace = trace;
+            this.spanId = trace == null ? null : randomId(8);
+            this.parent = parent;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        // Starts a child span now; end it when the phase is over
+        public Span start(String name) {
+            return start(name, System.nanoTime());
+        }
+
+        // Starts a child span at an earlier System.nanoTime() reading, e.g. when a task was queued
+        public Span start(String name, long startNanos) {
+            if (trace == null) {
+                return NONE;
+            }
+            Span child = new Span(trace, this, name, startNanos);
+            synchronized (this) {
+                children.add(child);
+            }
+            return child;
+        }
+
+        // Adds a finished child span
+        public Span record(String name, long startNanos, long endNanos) {
+            Span child = start(name, startNanos);
+            child.end(endNanos);
+            return child;
+        }
+
+        public Span attribute(String key, Object value) {
+            if (trace != null && value != null) {
+                synchronized (this) {
+                    attributes.put(key, value);
+                }
+            }
+            return this;
+        }
+
+        public void end() {
+            end(System.nanoTime());
+        }
+
+        public void end(long endNanos) {
+            if (this.endNanos == 0) {
+                this.endNanos = endNanos;
+            }
+        }
+
+        public RequestTrace getTrace() {
+            return trace;
+        }
+
+        public String getSpanId() {
+            return spanId;
+        }
+
+        public Span getParent() {
+            return parent;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        // Spans still open when the request finished (e.g. a cancelled run) end with it
+        public long getEndNanos() {
+            return endNanos != 0 ? endNanos : trace.root.endNanos != 0 ? trace.root.endNanos : System.nanoTime();
+        }
+
+        public long getDurationNanos() {
+            return getEndNanos() - startNanos;
+        }
+
+        public synchronized Map<String, Object> getAttributes() {
+            return new LinkedHashMap<>(attributes);
+        }
+
+        public synchronized List<Span> getChildren() {
+            return new ArrayList<>(children);
+        }
+    }
+}
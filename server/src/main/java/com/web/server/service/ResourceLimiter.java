@@ -0,0 +1,395 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import com.web.server.config.ResourceLimits;
+import com.web.server.dto.ResourceUsage;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Starts user programs under per-language resource limits and measures them.
+ *
+ * Programs run under a small C launcher (resources/launcher/launcher.c, built
+ * with gcc at startup) that sets CPU time, memory, process, file size and open
+ * file limits with setrlimit and reports the CPU time and peak RSS of the
+ * program when it exits. Without gcc the limits are set with the shell's ulimit
+ * instead, and nothing is measured.
+ *
+ * When {@code app.limits.cgroup-dir} names a delegated cgroup v2 directory,
+ * every execution also gets its own child cgroup: memory and process limits
+ * then cover the whole process tree, and CPU time and peak memory are read
+ * from the cgroup. Long-lived Java runners are started in place of the
+ * launcher with every limit but CPU time, which would add up over all of a
+ * runner's jobs; {@link JavaRunnerPool} enforces and measures CPU time per job.
+ */
+@Component
+public class ResourceLimiter {
+
+    private static final String LAUNCHER_SOURCE = "/launcher/launcher.c";
+    private static final long LAUNCHER_BUILD_TIMEOUT_SECONDS = 60;
+
+    // Signals that mean the program hit a limit rather than crashing
+    private static final int SIGKILL = 9;
+    private static final int SIGXCPU = 24;
+    private static final int SIGXFSZ = 25;
+
+    @Autowired
+    private AppConfig config;
+
+    private final Map<Long, Launch> launches = new ConcurrentHashMap<>();
+    private final Queue<Path> pendingCgroups = new ConcurrentLinkedQueue<>();
+    private final AtomicLong cgroupIds = new AtomicLong();
+    private boolean enabled;
+    private Path launcher;
+    private Path statsDir;
+    private Path cgroupRoot;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!config.isLimitsEnabled() || System.getProperty("os.name").toLowerCase().contains("windows")) {
+            return;
+        }
+
+        Path dir = Paths.get(config.getLimitsDir()).toAbsolutePath();
+        statsDir = dir.resolve("stats");
+        Files.createDirectories(statsDir);
+        try (Stream<Path> stale = Files.list(statsDir)) {
+            stale.forEach(file -> file.toFile().delete());
+        }
+
+        launcher = buildLauncher(dir);
+        if (launcher == null) {
+            System.err.println("Resource launcher could not be built; limits fall back to ulimit and usage is not measured");
+        }
+        if (!config.getLimitsCgroupDir().isBlank()) {
+            cgroupRoot = prepareCgroupRoot(Paths.get(config.getLimitsCgroupDir()).toAbsolutePath());
+        }
+        enabled = true;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Starts the command of pb under the limits for language; finish must be called once it has exited
+    public Process start(String language, ProcessBuilder pb) throws IOException {
+        return start(config.getResourceLimits(language), pb, false);
+    }
+
+    // Starts a long-lived process without a CPU time limit; the command replaces the launcher, so the
+    // returned process is the command itself, and nothing is measured. finish must still be called
+    public Process startInPlace(String language, ProcessBuilder pb) throws IOException {
+        ResourceLimits limits = config.getResourceLimits(language);
+        return start(new ResourceLimits(0, limits.getMemoryMb(), limits.getProcesses(), limits.getFileSizeMb(), limits.getOpenFiles()), pb, true);
+    }
+
+    private Process start(ResourceLimits limits, ProcessBuilder pb, boolean inPlace) throws IOException {
+        if (!enabled) {
+            return pb.start();
+        }
+
+        Path cgroup = createCgroup(limits);
+        List<String> command = launcher != null ? launcherCommand(limits, cgroup, inPlace, pb.command()) : shellCommand(limits, cgroup, pb.command());
+        Process process;
+        try {
+            process = pb.command(command).start();
+        } catch (IOException e) {
+            removeCgroup(cgroup);
+            throw e;
+        }
+        launches.put(process.pid(), new Launch(limits, cgroup));
+        return process;
+    }
+
+    // What the process used, or null if it was not started here; safe to call more than once
+    public ResourceUsage finish(Process process) {
+        Launch launch = launches.remove(process.pid());
+        if (launch == null) {
+            return null;
+        }
+
+        Long cpuTimeMs = null;
+        Long peakRssKb = null;
+        int signal = process.isAlive() ? 0 : exitSignal(process);
+        Path stats = statsDir.resolve(process.pid() + ".stats");
+        try {
+            if (Files.exists(stats)) {
+                String[] fields = Files.readString(stats).trim().split(" ");
+                Files.delete(stats);
+                cpuTimeMs = Long.parseLong(fields[0]) / 1000;
+                peakRssKb = Long.parseLong(fields[1]);
+                signal = Integer.parseInt(fields[2]);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Unreadable resource usage in " + stats + ": " + e.getMessage());
+        }
+
+        boolean outOfMemory = false;
+        if (launch.cgroup != null) {
+            // The cgroup covers every process of the run, including ones the launcher did not wait for
+            Long usageUsec = readKey(launch.cgroup.resolve("cpu.stat"), "usage_usec");
+            Long memoryPeak = readValue(launch.cgroup.resolve("memory.peak"));
+            Long oomKills = readKey(launch.cgroup.resolve("memory.events"), "oom_kill");
+            cpuTimeMs = usageUsec != null ? Long.valueOf(usageUsec / 1000) : cpuTimeMs;
+            peakRssKb = memoryPeak != null ? Long.valueOf(memoryPeak / 1024) : peakRssKb;
+            outOfMemory = oomKills != null && oomKills > 0;
+            killCgroup(launch.cgroup);
+            removeCgroup(launch.cgroup);
+        }
+        retryPendingCgroups();
+
+        return new ResourceUsage(cpuTimeMs, peakRssKb, limitExceeded(launch.limits, signal, cpuTimeMs, outOfMemory));
+    }
+
+    private String limitExceeded(ResourceLimits limits, int signal, Long cpuTimeMs, boolean outOfMemory) {
+        if (outOfMemory) {
+            return "memory";
+        }
+        if (signal == SIGXCPU || (signal == SIGKILL && limits.getCpuSeconds() > 0 && cpuTimeMs != null
+                && cpuTimeMs >= TimeUnit.SECONDS.toMillis(limits.getCpuSeconds()))) {
+            return "CPU time";
+        }
+        if (signal == SIGXFSZ) {
+            return "file size";
+        }
+        return null;
+    }
+
+    // Processes killed by a signal exit with 128 + signal, from both the launcher and the shell
+    private int exitSignal(Process process) {
+        int exitCode = process.exitValue();
+        return exitCode > 128 && exitCode < 160 ? exitCode - 128 : 0;
+    }
+
+    private List<String> launcherCommand(ResourceLimits limits, Path cgroup, boolean inPlace, List<String> command) {
+        List<String> wrapped = new ArrayList<>();
+        wrapped.add(launcher.toString());
+        addOption(wrapped, "-t", limits.getCpuSeconds());
+        addOption(wrapped, "-m", limits.getMemoryMb() * 1024 * 1024);
+        addOption(wrapped, "-f", limits.getFileSizeMb() * 1024 * 1024);
+        addOption(wrapped, "-n", limits.getOpenFiles());
+        addOption(wrapped, "-p", limits.getProcesses());
+        if (cgroup != null) {
+            wrapped.add("-g");
+            wrapped.add(cgroup.toString());
+        }
+        if (inPlace) {
+            wrapped.add("-e");
+        } else {
+            wrapped.add("-s");
+            wrapped.add(statsDir.toString());
+        }
+        wrapped.add("--");
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    private void addOption(List<String> command, String option, long value) {
+        if (value > 0) {
+            command.add(option);
+            command.add(String.valueOf(value));
+        }
+    }
+
+    // Fallback without the launcher, which always runs the command in place; the process limit
+    // needs a cgroup, as RLIMIT_NPROC is per user
+    private List<String> shellCommand(ResourceLimits limits, Path cgroup, List<String> command) {
+        StringBuilder script = new StringBuilder();
+        if (cgroup != null) {
+            script.append("echo $$ > \"$1\"/cgroup.procs || exit 125; ");
+        }
+        if (limits.getCpuSeconds() > 0) {
+            script.append("ulimit -t ").append(limits.getCpuSeconds()).append("; ");
+        }
+        if (limits.getMemoryMb() > 0) {
+            script.append("ulimit -d ").append(limits.getMemoryMb() * 1024).append("; ");
+        }
+        if (limits.getFileSizeMb() > 0) {
+            script.append("ulimit -f ").append(limits.getFileSizeMb() * 2048).append("; ");
+        }
+        if (limits.getOpenFiles() > 0) {
+            script.append("ulimit -n ").append(limits.getOpenFiles()).append("; ");
+        }
+        script.append("ulimit -c 0; shift; exec \"$@\"");
+
+        List<String> wrapped = new ArrayList<>(List.of("/bin/sh", "-c", script.toString(), "sh"));
+        wrapped.add(cgroup != null ? cgroup.toString() : "");
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    // Builds the launcher once per source version; null if there is no working C compiler
+    private Path buildLauncher(Path dir) {
+        try {
+            byte[] source;
+            try (InputStream in = ResourceLimiter.class.getResourceAsStream(LAUNCHER_SOURCE)) {
+                if (in == null) {
+                    throw new IOException("Missing resource " + LAUNCHER_SOURCE);
+                }
+                source = in.readAllBytes();
+            }
+            Path binary = dir.resolve("launcher-" + HexFormat.of().formatHex(sha256(source), 0, 8));
+            if (Files.isExecutable(binary)) {
+                return binary;
+            }
+
+            Path sourceFile = dir.resolve("launcher.c");
+            Path output = dir.resolve(binary.getFileName() + ".tmp");
+            Files.write(sourceFile, source);
+            Process gcc = new ProcessBuilder("gcc", "-O2", "-o", output.toString(), sourceFile.toString())
+                .redirectErrorStream(true)
+                .start();
+            String log = new String(gcc.getInputStream().readAllBytes()).trim();
+            if (!gcc.waitFor(LAUNCHER_BUILD_TIMEOUT_SECONDS, TimeUnit.SECONDS) || gcc.exitValue() != 0) {
+                gcc.destroyForcibly();
+                System.err.println("gcc failed to build the resource launcher: " + log);
+                return null;
+            }
+            Files.move(output, binary, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("Built resource launcher " + binary);
+            return binary;
+        } catch (IOException e) {
+            System.err.println("Cannot build the resource launcher: " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Enables the controllers we need for child cgroups and removes those left by a previous run
+    private Path prepareCgroupRoot(Path root) throws IOException {
+        if (!Files.isRegularFile(root.resolve("cgroup.controllers"))) {
+            System.err.println(root + " is not a cgroup v2 directory; per-execution cgroups are disabled");
+            return null;
+        }
+        List<String> available = List.of(Files.readString(root.resolve("cgroup.controllers")).trim().split(" "));
+        for (String controller : List.of("memory", "pids")) {
+            if (!available.contains(controller)) {
+                System.err.println("The " + controller + " controller is not delegated to " + root + "; its limits are not applied per cgroup");
+                continue;
+            }
+            try {
+                Files.writeString(root.resolve("cgroup.subtree_control"), "+" + controller);
+            } catch (IOException e) {
+                System.err.println("Cannot enable the " + controller + " controller in " + root + ": " + e.getMessage());
+            }
+        }
+        try (Stream<Path> stale = Files.list(root)) {
+            stale.filter(path -> path.getFileName().toString().startsWith("exec-")).forEach(this::removeCgroup);
+        }
+        return root;
+    }
+
+    private Path createCgroup(ResourceLimits limits) {
+        if (cgroupRoot == null) {
+            return null;
+        }
+        Path cgroup = cgroupRoot.resolve("exec-" + cgroupIds.incrementAndGet());
+        try {
+            Files.createDirectory(cgroup);
+            // Limit files exist only for the controllers enabled on the root
+            if (limits.getMemoryMb() > 0) {
+                writeIfPresent(cgroup.resolve("memory.max"), String.valueOf(limits.getMemoryMb() * 1024 * 1024));
+                writeIfPresent(cgroup.resolve("memory.swap.max"), "0");
+            }
+            if (limits.getProcesses() > 0) {
+                writeIfPresent(cgroup.resolve("pids.max"), String.valueOf(limits.getProcesses()));
+            }
+            return cgroup;
+        } catch (IOException e) {
+            System.err.println("Cannot create cgroup " + cgroup + ": " + e.getMessage());
+            removeCgroup(cgroup);
+            return null;
+        }
+    }
+
+    private void writeIfPresent(Path file, String value) throws IOException {
+        if (Files.exists(file)) {
+            Files.writeString(file, value);
+        }
+    }
+
+    // Anything of the run still alive, such as a daemon that escaped the launcher's process tree
+    private void killCgroup(Path cgroup) {
+        try {
+            writeIfPresent(cgroup.resolve("cgroup.kill"), "1");
+        } catch (IOException e) {
+            System.err.println("Cannot kill cgroup " + cgroup + ": " + e.getMessage());
+        }
+    }
+
+    // A cgroup can only be removed once its last process has been reaped; otherwise retry later
+    private void removeCgroup(Path cgroup) {
+        if (cgroup != null && !cgroup.toFile().delete() && Files.exists(cgroup)) {
+            pendingCgroups.add(cgroup);
+        }
+    }
+
+    private void retryPendingCgroups() {
+        for (int i = pendingCgroups.size(); i > 0; i--) {
+            Path cgroup = pendingCgroups.poll();
+            if (cgroup == null) {
+                return;
+            }
+            if (!cgroup.toFile().delete() && Files.exists(cgroup)) {
+                pendingCgroups.add(cgroup);
+            }
+        }
+    }
+
+    private static Long readValue(Path file) {
+        try {
+            return Files.exists(file) ? Long.valueOf(Files.readString(file).trim()) : null;
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // A "key value" line of a flat-keyed cgroup file such as cpu.stat
+    private static Long readKey(Path file, String key) {
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            for (String line : Files.readAllLines(file)) {
+                if (line.startsWith(key + " ")) {
+                    return Long.valueOf(line.substring(key.length() + 1).trim());
+                }
+            }
+            return null;
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Launch(ResourceLimits limits, Path cgroup) {}
+}
@@ -0,0 +1,111 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory cache of program outputs, keyed by program and input.
+ *
+ * Only successful runs (exit code 0, no timeout) are stored, so a program
+ * is never reported as passing from the cache when it failed. Entries expire
+ * after {@code app.result-cache.ttl-seconds}; beyond the entry and byte
+ * budgets the least recently used entries are evicted. Opt-in, because it
+ * assumes programs are deterministic.
+ */
+@Component
+public class ResultCache {
+
+    // Rough per-entry overhead of the map node, entry object and strings
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    @Autowired
+    private AppConfig config;
+
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public boolean isEnabled() {
+        return config.isResultCacheEnabled();
+    }
+
+    // programKey identifies the compiled program, e.g. its compilation cache key
+    public String key(String programKey, String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((input == null ? "" : input).getBytes(StandardCharsets.UTF_8));
+            return programKey + ":" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // The cached output, or null
+    public synchronized String lookup(String key) {
+        Entry entry = index.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() < 0) {
+            remove(key);
+            entry = null;
+        }
+        (entry != null ? hits : misses).increment();
+        return entry != null ? entry.output : null;
+    }
+
+    public synchronized void store(String key, String output) {
+        long size = ENTRY_OVERHEAD_BYTES + 2L * (key.length() + output.length());
+        if (size > config.getResultCacheMaxBytes()) {
+            return;
+        }
+        remove(key);
+        long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getResultCacheTtlSeconds());
+        index.put(key, new Entry(output, size, expiresAt));
+        totalBytes += size;
+        evict();
+    }
+
+    // Statistics
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private void remove(String key) {
+        Entry entry = index.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.size;
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> it = index.values().iterator();
+        while ((index.size() > config.getResultCacheMaxEntries() || totalBytes > config.getResultCacheMaxBytes()) && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.size;
+        }
+    }
+
+    private record Entry(String output, long size, long expiresAt) {}
+}
@@ -0,0 +1,18 @@
+package com.web.server.service;
+
+import java.util.Map;
+
+/**
+ * Where an interactive session sends its events, e.g. a WebSocket connection.
+ *
+ * Events are sent from several threads (compile, stdout, stderr), so
+ * implementations must be thread-safe.
+ */
+public interface SessionOutput {
+
+    // One event, serialized as a JSON object with a "type" field
+    void send(Map<String, Object> event);
+
+    // Ends the connection, e.g. when the session is evicted
+    void close(String reason);
+}
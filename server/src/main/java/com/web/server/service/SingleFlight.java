@@ -0,0 +1,284 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import com.web.server.dto.InputResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces identical work that is in progress at the same moment.
+ *
+ * Executions with the same language, code and inputs share one run: the first
+ * request (the leader) runs it, and requests that arrive while it is running
+ * wait for its results instead of running their own, receiving its progress
+ * events too (earlier ones replayed on joining). Each follower is handed those
+ * events on its own thread, so a slow follower never holds up the run or the
+ * other followers. Compiles with the same
+ * compilation cache key are coalesced the same way. Nothing is kept once the
+ * leader finishes, so this is not a cache; a later request runs again. If the
+ * leader is cancelled, its followers start over and one of them leads.
+ */
+@Component
+public class SingleFlight {
+
+    @Autowired
+    private AppConfig config;
+
+    private final Map<String, Flight<List<InputResult>>> executions = new ConcurrentHashMap<>();
+    private final Map<String, Flight<String>> compiles = new ConcurrentHashMap<>();
+    private final LongAdder executionLeaders = new LongAdder();
+    private final LongAdder executionFollowers = new LongAdder();
+    private final LongAdder compileLeaders = new LongAdder();
+    private final LongAdder compileFollowers = new LongAdder();
+
+    public boolean isEnabled() {
+        return config.isSingleFlightEnabled();
+    }
+
+    // Hash of everything that determines the results of an execution
+    public String executionKey(String language, String code, List<String> inputs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, language);
+            update(digest, code);
+            for (String input : inputs) {
+                update(digest, input == null ? "" : input);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public List<InputResult> execute(String key, ExecutionListener listener, Execution<List<InputResult>> execution) throws Exception {
+        return join(executions, key, new DeliverOnce(listener), execution, executionLeaders, executionFollowers).value();
+    }
+
+    // The compile message, and whether another request ran the compile (its artifacts are then in the compilation cache)
+    public Landed<String> compile(String key, Callable<String> compile) throws Exception {
+        return join(compiles, key, ExecutionListener.NONE, listener -> compile.call(), compileLeaders, compileFollowers);
+    }
+
+    // Statistics
+    public long getExecutionLeaders() {
+        return executionLeaders.sum();
+    }
+
+    public long getExecutionFollowers() {
+        return executionFollowers.sum();
+    }
+
+    public long getCompileLeaders() {
+        return compileLeaders.sum();
+    }
+
+    public long getCompileFollowers() {
+        return compileFollowers.sum();
+    }
+
+    private <V> Landed<V> join(Map<String, Flight<V>> flights, String key, ExecutionListener listener, Execution<V> task,
+                               LongAdder leaders, LongAdder followers) throws Exception {
+        while (true) {
+            Flight<V> mine = new Flight<>();
+            Flight<V> flight = flights.putIfAbsent(key, mine);
+            if (flight == null) {
+                leaders.increment();
+                return new Landed<>(lead(flights, key, mine, listener, task), false);
+            }
+
+            followers.increment();
+            Subscription subscription = flight.events.subscribe(listener);
+            try {
+                subscription.deliverUntilClosed();
+                return new Landed<>(flight.result.get(), true);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Abandoned) {
+                    continue;
+                }
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } finally {
+                flight.events.unsubscribe(subscription);
+            }
+        }
+    }
+
+    private <V> V lead(Map<String, Flight<V>> flights, String key, Flight<V> flight, ExecutionListener listener,
+                       Execution<V> task) throws Exception {
+        // Followers' copies are queued first, so that this request's own listener cannot delay them
+        ExecutionListener events = new ExecutionListener() {
+            @Override
+            public void onCompiled(String compileError) {
+                flight.events.onCompiled(compileError);
+                listener.onCompiled(compileError);
+            }
+
+            @Override
+            public void onResult(InputResult result) {
+                flight.events.onResult(result);
+                listener.onResult(result);
+            }
+        };
+        V value = null;
+        Throwable failure = null;
+        try {
+            value = task.run(events);
+            return value;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            // Unregister first, so that followers who start over do not find this flight again
+            flights.remove(key, flight);
+            if (failure == null) {
+                flight.result.complete(value);
+            } else if (failure instanceof InterruptedException || failure instanceof CancellationException) {
+                flight.result.completeExceptionally(new Abandoned());
+            } else {
+                flight.result.completeExceptionally(failure);
+            }
+            flight.events.close();
+        }
+    }
+
+    private static void update(MessageDigest digest, String field) {
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    @FunctionalInterface
+    public interface Execution<V> {
+        V run(ExecutionListener listener) throws Exception;
+    }
+
+    public record Landed<V>(V value, boolean shared) {}
+
+    private static class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final Broadcast events = new Broadcast();
+    }
+
+    // The leader was cancelled; its followers must start over
+    private static class Abandoned extends Exception {
+        Abandoned() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Queues a flight's progress for every request waiting on it, replaying what a late joiner missed
+    private static class Broadcast implements ExecutionListener {
+        private final List<Subscription> subscriptions = new ArrayList<>();
+        private final List<InputResult> results = new ArrayList<>();
+        private String compileError;
+        private boolean closed;
+
+        synchronized Subscription subscribe(ExecutionListener listener) {
+            Subscription subscription = new Subscription(listener);
+            String compiled = compileError;
+            if (compiled != null) {
+                subscription.offer(delegate -> delegate.onCompiled(compiled));
+            }
+            results.forEach(result -> subscription.offer(delegate -> delegate.onResult(result)));
+            if (closed) {
+                subscription.close();
+            } else {
+                subscriptions.add(subscription);
+            }
+            return subscription;
+        }
+
+        synchronized void unsubscribe(Subscription subscription) {
+            subscriptions.remove(subscription);
+        }
+
+        // The flight has landed; no more events will come
+        synchronized void close() {
+            closed = true;
+            subscriptions.forEach(Subscription::close);
+        }
+
+        @Override
+        public synchronized void onCompiled(String compileError) {
+            this.compileError = compileError;
+            subscriptions.forEach(subscription -> subscription.offer(delegate -> delegate.onCompiled(compileError)));
+        }
+
+        @Override
+        public synchronized void onResult(InputResult result) {
+            results.add(result);
+            subscriptions.forEach(subscription -> subscription.offer(delegate -> delegate.onResult(result)));
+        }
+    }
+
+    // One follower's pending events, delivered by the follower's own thread while it waits
+    private static class Subscription {
+        private static final Consumer<ExecutionListener> CLOSED = delegate -> {};
+
+        private final ExecutionListener listener;
+        private final BlockingQueue<Consumer<ExecutionListener>> events = new LinkedBlockingQueue<>();
+
+        Subscription(ExecutionListener listener) {
+            this.listener = listener;
+        }
+
+        void offer(Consumer<ExecutionListener> event) {
+            events.add(event);
+        }
+
+        void close() {
+            events.add(CLOSED);
+        }
+
+        void deliverUntilClosed() throws InterruptedException {
+            for (Consumer<ExecutionListener> event = events.take(); event != CLOSED; event = events.take()) {
+                event.accept(listener);
+            }
+        }
+    }
+
+    // A follower that starts over must not see the compile event or a result twice
+    private static class DeliverOnce implements ExecutionListener {
+        private final ExecutionListener delegate;
+        private final BitSet delivered = new BitSet();
+        private boolean compiled;
+
+        DeliverOnce(ExecutionListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void onCompiled(String compileError) {
+            if (!compiled) {
+                compiled = true;
+                delegate.onCompiled(compileError);
+            }
+        }
+
+        @Override
+        public synchronized void onResult(InputResult result) {
+            if (!delivered.get(result.getIndex())) {
+                delivered.set(result.getIndex());
+                delegate.onResult(result);
+            }
+        }
+    }
+}
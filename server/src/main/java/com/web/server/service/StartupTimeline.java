@@ -0,0 +1,73 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * When the server became useful after the JVM started: when it reported
+ * ready (after the warm-up, see {@link StartupWarmup}), and when it first
+ * served a client request within {@code app.warmup.fast-request-ms}. Also
+ * records which toolchains the warm-up found working.
+ */
+@Component
+public class StartupTimeline {
+
+    @Autowired
+    private AppConfig config;
+
+    private final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    // Epoch milliseconds, 0 until reached
+    private volatile long readyAt;
+    private volatile long firstFastRequestAt;
+    private final Map<String, Boolean> toolchains = new ConcurrentHashMap<>();
+
+    // Published by Spring Boot after the application runners, the warm-up among them
+    @EventListener(ApplicationReadyEvent.class)
+    public void ready() {
+        readyAt = System.currentTimeMillis();
+        System.out.println("Ready " + (readyAt - jvmStart) + " ms after JVM start");
+    }
+
+    // A client request finished; the first fast one marks the end of the slow start
+    public void requestServed(long nanos) {
+        if (firstFastRequestAt != 0 || nanos > config.getWarmupFastRequestMs() * 1_000_000) {
+            return;
+        }
+        synchronized (this) {
+            if (firstFastRequestAt == 0) {
+                firstFastRequestAt = System.currentTimeMillis();
+                System.out.println("First fast request served " + (firstFastRequestAt - jvmStart) + " ms after JVM start");
+            }
+        }
+    }
+
+    public void toolchainProbed(String language, boolean available) {
+        toolchains.put(language, available);
+    }
+
+    // Statistics; NaN until reached
+    public double getReadySeconds() {
+        return secondsSinceStart(readyAt);
+    }
+
+    public double getFirstFastRequestSeconds() {
+        return secondsSinceStart(firstFastRequestAt);
+    }
+
+    // 1 if the language's warm-up program ran correctly, 0 if not, NaN if it was not probed
+    public double getToolchainAvailable(String language) {
+        Boolean available = toolchains.get(language);
+        return available == null ? Double.NaN : available ? 1 : 0;
+    }
+
+    private double secondsSinceStart(long at) {
+        return at == 0 ? Double.NaN : (at - jvmStart) / 1000.0;
+    }
+}
@@ -0,0 +1,136 @@
+package com.web.server.service;
+
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import com.web.server.controller.CodeExecutionController;
+import com.web.server.dto.InputResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Warms the server up before it reports ready.
+ *
+ * Spring Boot marks the application ready to accept traffic only after its
+ * application runners return, so while this one runs, readiness probes
+ * ({@code /actuator/health/readiness}) and a coordinator's status polls see a
+ * server that is not ready yet. It waits for the precompiled headers and Go
+ * cache, then runs a small program in every supported language through the
+ * full execution path, {@code app.warmup.rounds} times: the first round pulls
+ * compilers, interpreters and headers into the page cache and finds missing
+ * toolchains, and later rounds give the JIT the request path to compile. Each
+ * round's programs differ by a comment, so that the compilation cache does not
+ * skip the compilers. A broken toolchain is reported, but does not keep the
+ * server from becoming ready for the other languages.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final String INPUT = "warm-up";
+
+    // Programs echoing their input, with {0} where a comment goes
+    private static final Map<String, String> PROGRAMS = Map.of(
+        "Python", "# {0}\nprint(input())\n",
+        "C", "// {0}\n#include <stdio.h>\nint main() { char s[64]; if (scanf(\"%63s\", s) == 1) printf(\"%s\\n\", s); return 0; }\n",
+        "C++", "// {0}\n#include <bits/stdc++.h>\nint main() { std::string s; std::cin >> s; std::cout << s << std::endl; }\n",
+        "Java", "// {0}\nimport java.util.Scanner;\npublic class Main { public static void main(String[] args) { System.out.println(new Scanner(System.in).next()); } }\n",
+        "JavaScript", "// {0}\nconsole.log(require(\"fs\").readFileSync(0, \"utf8\").trim());\n",
+        "Go", "// {0}\npackage main\n\nimport \"fmt\"\n\nfunc main() {\n\tvar s string\n\tfmt.Scan(&s)\n\tfmt.Println(s)\n}\n"
+    );
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private ToolchainAccelerator toolchainAccelerator;
+
+    @Autowired
+    private StartupTimeline startupTimeline;
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!config.isWarmupEnabled()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getWarmupTimeoutMs());
+        if (!toolchainAccelerator.awaitWarmUp(remainingMs(deadline))) {
+            System.err.println("Warm-up: precompiled headers and Go cache not built in time");
+        }
+
+        for (int round = 1; round <= config.getWarmupRounds() && System.nanoTime() < deadline; round++) {
+            Map<String, String> report = runRound(round, deadline);
+            System.out.println("Warm-up round " + round + ": " + report);
+        }
+        System.out.println("Warm-up finished in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    // Runs every language's program at once; returns the time each took, or why it failed
+    private Map<String, String> runRound(int round, long deadline) throws InterruptedException {
+        String comment = "warm-up round " + round + " at " + System.currentTimeMillis();
+        Map<String, CompletableFuture<List<InputResult>>> runs = new LinkedHashMap<>();
+        Map<String, CompletableFuture<List<InputResult>>> timed = new LinkedHashMap<>();
+        Map<String, Long> elapsed = new ConcurrentHashMap<>();
+        for (String language : CodeExecutionController.SUPPORTED_LANGUAGES) {
+            long started = System.nanoTime();
+            String code = PROGRAMS.get(language).replace("{0}", comment);
+            CompletableFuture<List<InputResult>> run = codeExecutionService.executeAsync(language, code, List.of(INPUT), ApiClient.INTERNAL);
+            // Time each program when it finishes, not when its turn to be collected comes
+            runs.put(language, run);
+            timed.put(language, run.whenComplete((results, error) -> elapsed.put(language, System.nanoTime() - started)));
+        }
+
+        Map<String, String> report = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<List<InputResult>>> entry : timed.entrySet()) {
+            String language = entry.getKey();
+            String problem;
+            try {
+                problem = check(entry.getValue().get(remainingMs(deadline), TimeUnit.MILLISECONDS));
+            } catch (ExecutionException e) {
+                problem = e.getCause().getMessage();
+            } catch (TimeoutException e) {
+                // Cancelling the run itself interrupts it
+                runs.get(language).cancel(true);
+                problem = "timed out";
+            }
+
+            startupTimeline.toolchainProbed(language, problem == null);
+            if (problem == null) {
+                report.put(language, TimeUnit.NANOSECONDS.toMillis(elapsed.get(language)) + " ms");
+            } else {
+                report.put(language, "unavailable (" + problem + ")");
+            }
+        }
+        return report;
+    }
+
+    // Why the program's results are wrong, or null if they are right
+    private String check(List<InputResult> results) {
+        if (results.size() == 1 && results.get(0).getExitCode() == 0 && results.get(0).getOutput().equals(INPUT)) {
+            return null;
+        }
+        if (results.isEmpty()) {
+            return "no results";
+        }
+        InputResult result = results.get(0);
+        return result.getOutput().isEmpty() ? "exit code " + result.getExitCode() : result.getOutput().lines().findFirst().get();
+    }
+
+    private static long remainingMs(long deadline) {
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 0);
+    }
+}
@@ -0,0 +1,297 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Makes C, C++ and Go compiles cheaper, and owns their compiler arguments.
+ *
+ * C and C++: the headers in {@code app.toolchain.<c|cpp>.pch-headers} are
+ * precompiled in the background at startup, with exactly the flags user code
+ * is compiled with, into a directory that is put on the include path. GCC
+ * uses a precompiled header when it is the first include of a source file and
+ * otherwise parses the header as usual, so a missing or stale one only costs
+ * time. The directory name includes a hash of the compiler version and flags,
+ * so upgrading either builds a fresh set.
+ *
+ * Go: every build shares one build cache under {@code app.toolchain.dir}
+ * instead of each job starting cold, and the standard library packages most
+ * programs import are built into it at startup. The go command locks and trims
+ * its cache itself, so concurrent builds are safe.
+ *
+ * Optimisation flags come from {@code app.toolchain.<language>.optimization}.
+ */
+@Component
+public class ToolchainAccelerator {
+
+    private static final Pattern FIRST_INCLUDE = Pattern.compile("^\\s*#\\s*include\\s*<([^>]+)>", Pattern.MULTILINE);
+
+    // Packages built into the Go cache at startup
+    private static final String GO_WARMUP_PROGRAM = """
+        package main
+
+        import (
+        	"bufio"
+        	"fmt"
+        	"math"
+        	"os"
+        	"sort"
+        	"strconv"
+        	"strings"
+        )
+
+        func main() {
+        	reader := bufio.NewReader(os.Stdin)
+        	values := []string{strconv.Itoa(int(math.Sqrt(4)))}
+        	sort.Strings(values)
+        	fmt.Fprintln(os.Stdout, strings.Join(values, " "), reader.Size())
+        }
+        """;
+
+    @Autowired
+    private AppConfig config;
+
+    private final Map<String, Path> pchDirs = new ConcurrentHashMap<>();
+    private Path goCache;
+    private Thread warmup;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Path dir = Paths.get(config.getToolchainDir()).toAbsolutePath();
+        goCache = dir.resolve("go-cache");
+        Files.createDirectories(goCache);
+        for (String language : List.of("C", "C++")) {
+            if (!config.getPchHeaders(language).isEmpty()) {
+                pchDirs.put(language, dir.resolve("pch").resolve(pchDirName(language)));
+            }
+        }
+
+        // Compiles work without any of this, only slower, so do not hold up startup
+        warmup = new Thread(this::warmUp, "toolchain-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    public boolean isEnabled() {
+        return config.isToolchainEnabled();
+    }
+
+    // Waits up to timeoutMs for the headers and Go cache to be built; returns whether they are
+    public boolean awaitWarmUp(long timeoutMs) throws InterruptedException {
+        if (warmup == null) {
+            return true;
+        }
+        warmup.join(Math.max(timeoutMs, 1));
+        return !warmup.isAlive();
+    }
+
+    // Compiler command line for the source file fileName, producing the executable baseName + exec extension
+    public List<String> compileArgs(String language, String fileName, String baseName) {
+        String executable = baseName + config.getExecExt();
+        List<String> args = new ArrayList<>();
+        switch (language) {
+            case "C", "C++" -> {
+                args.add(language.equals("C") ? "gcc" : "g++");
+                args.addAll(flags(language));
+                Path pchDir = pchDirs.get(language);
+                if (pchDir != null) {
+                    args.add("-I");
+                    args.add(pchDir.toString());
+                }
+                args.addAll(List.of(fileName, "-o", executable));
+            }
+            case "Go" -> {
+                args.addAll(List.of("go", "build"));
+                if (isEnabled()) {
+                    // Paths of job directories must not end up in cached build outputs
+                    args.add("-trimpath");
+                }
+                args.addAll(config.getToolchainOptimization(language));
+                args.addAll(List.of("-o", executable, fileName));
+            }
+            default -> throw new IllegalArgumentException("Not a native toolchain: " + language);
+        }
+        return args;
+    }
+
+    // Environment for the compiler process
+    public void configure(ProcessBuilder pb, String language) {
+        if (isEnabled() && language.equals("Go")) {
+            pb.environment().put("GOCACHE", goCache.toString());
+        }
+    }
+
+    // How a compile of code is sped up, for the compile metrics: pch, go-cache or none
+    public String acceleration(String language, String code) {
+        if (!isEnabled()) {
+            return "none";
+        }
+        if (language.equals("Go")) {
+            return "go-cache";
+        }
+
+        Path pchDir = pchDirs.get(language);
+        if (pchDir == null) {
+            return "none";
+        }
+        Matcher include = FIRST_INCLUDE.matcher(code);
+        if (include.find() && Files.isRegularFile(pchDir.resolve(include.group(1) + ".gch"))) {
+            return "pch";
+        }
+        return "none";
+    }
+
+    private void warmUp() {
+        for (Map.Entry<String, Path> entry : pchDirs.entrySet()) {
+            for (String header : config.getPchHeaders(entry.getKey())) {
+                try {
+                    buildPch(entry.getKey(), header, entry.getValue());
+                } catch (IOException e) {
+                    System.err.println("Could not precompile " + header + " for " + entry.getKey() + ": " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        try {
+            warmGoCache();
+        } catch (IOException e) {
+            System.err.println("Could not warm the Go build cache: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void buildPch(String language, String header, Path pchDir) throws IOException, InterruptedException {
+        Path pch = pchDir.resolve(header + ".gch");
+        if (Files.isRegularFile(pch)) {
+            return;
+        }
+
+        Files.createDirectories(pch.getParent());
+        Path work = Files.createTempDirectory(pchDir, "tmp-");
+        try {
+            Path stub = work.resolve("stub.h");
+            Files.writeString(stub, "#include <" + header + ">\n");
+            Path output = work.resolve("stub.h.gch");
+
+            List<String> command = new ArrayList<>();
+            command.add(language.equals("C") ? "gcc" : "g++");
+            command.addAll(flags(language));
+            command.addAll(List.of("-x", language.equals("C") ? "c-header" : "c++-header", stub.toString(), "-o", output.toString()));
+
+            long start = System.nanoTime();
+            run(command, work);
+            // Appear complete or not at all to concurrent compiles
+            Files.move(output, pch, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Precompiled " + header + " for " + language + " in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } finally {
+            deleteQuietly(work);
+        }
+    }
+
+    private void warmGoCache() throws IOException, InterruptedException {
+        Path work = Files.createTempDirectory(goCache.getParent(), "go-warmup-");
+        try {
+            Files.writeString(work.resolve("program.go"), GO_WARMUP_PROGRAM);
+            List<String> command = compileArgs("Go", "program.go", "program");
+            ProcessBuilder pb = new ProcessBuilder(command).directory(work.toFile());
+            configure(pb, "Go");
+
+            long start = System.nanoTime();
+            run(pb);
+            System.out.println("Warmed the Go build cache in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } finally {
+            deleteQuietly(work);
+        }
+    }
+
+    // The command's output; fails if it exits non-zero
+    private String run(List<String> command, Path dir) throws IOException, InterruptedException {
+        return run(new ProcessBuilder(command).directory(dir.toFile()));
+    }
+
+    private String run(ProcessBuilder pb) throws IOException, InterruptedException {
+        Process process = pb.redirectErrorStream(true).start();
+        try {
+            process.getOutputStream().close();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+            }
+            if (!process.waitFor(config.getCompileTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("timed out");
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("exit code " + process.exitValue() + ": " + output);
+            }
+            return output;
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    private List<String> flags(String language) {
+        List<String> flags = new ArrayList<>();
+        flags.add("-Wall");
+        flags.addAll(config.getToolchainOptimization(language));
+        return flags;
+    }
+
+    // Precompiled headers are only valid for the compiler and flags they were built with
+    private String pchDirName(String language) {
+        String compiler = language.equals("C") ? "gcc" : "g++";
+        String version;
+        try {
+            version = run(List.of(compiler, "--version"), Paths.get(".")).lines().findFirst().orElse("");
+        } catch (IOException e) {
+            version = "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            version = "unknown";
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((compiler + "\0" + version + "\0" + String.join(" ", flags(language))).getBytes(StandardCharsets.UTF_8));
+            return (language.equals("C") ? "c-" : "cpp-") + HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Left for the next startup to overwrite
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.web.server.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.server.config.AppConfig;
+import com.web.server.dto.SpanTiming;
+import com.web.server.dto.TraceRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Starts request traces and does everything with finished ones.
+ *
+ * A finished trace is summarised into a Server-Timing header, kept among the
+ * last {@code app.tracing.ring-size} requests for the admin endpoint, and
+ * queued for export when {@code app.tracing.export} is set. Export writes
+ * OTLP JSON, the OpenTelemetry protocol's JSON encoding: {@code file} appends
+ * one batch per line to {@code app.tracing.file} (the format the collector's
+ * otlpjsonfile receiver reads), and {@code otlp} posts batches to a
+ * collector's OTLP/HTTP endpoint. Export runs on its own thread and drops
+ * traces rather than slow requests down when it falls behind.
+ */
+@Component
+public class Tracer {
+
+    private static final int EXPORT_QUEUE_CAPACITY = 1000;
+    private static final int EXPORT_BATCH_SIZE = 100;
+    private static final long EXPORT_INTERVAL_MS = 1000;
+    private static final String SCOPE = "com.web.server";
+
+    @Autowired
+    private AppConfig config;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Most recent last
+    private final Deque<RequestTrace> recent = new ArrayDeque<>();
+    private final BlockingQueue<RequestTrace> exportQueue = new ArrayBlockingQueue<>(EXPORT_QUEUE_CAPACITY);
+    private final LongAdder exported = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private HttpClient client;
+    private Thread exporter;
+
+    @PostConstruct
+    public void init() {
+        String export = config.getTracingExport();
+        if (!config.isTracingEnabled() || export.equals("none")) {
+            return;
+        }
+        if (!export.equals("file") && !export.equals("otlp")) {
+            throw new IllegalStateException("app.tracing.export must be none, file or otlp, not " + export);
+        }
+        if (export.equals("otlp")) {
+            client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        }
+        exporter = new Thread(this::exportLoop, "trace-exporter");
+        exporter.setDaemon(true);
+        exporter.start();
+        System.out.println("Exporting traces to " + (export.equals("file") ? config.getTracingFile() : config.getTracingOtlpEndpoint()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (exporter != null) {
+            exporter.interrupt();
+        }
+    }
+
+    public RequestTrace start(String name) {
+        return config.isTracingEnabled() ? new RequestTrace(name) : RequestTrace.NONE;
+    }
+
+    // Ends the trace's root span, keeps the trace for the admin endpoint and queues it for export
+    public void finish(RequestTrace trace) {
+        if (!trace.isRecording()) {
+            return;
+        }
+        trace.getRoot().end();
+        synchronized (recent) {
+            recent.addLast(trace);
+            while (recent.size() > config.getTracingRingSize()) {
+                recent.removeFirst();
+            }
+        }
+        if (exporter != null && !exportQueue.offer(trace)) {
+            dropped.increment();
+        }
+    }
+
+    // Total time of each phase, summed over the inputs for per-input phases; null when not tracing
+    public String serverTiming(RequestTrace trace) {
+        if (!trace.isRecording()) {
+            return null;
+        }
+        Map<String, long[]> phases = new LinkedHashMap<>();
+        collectPhases(trace.getRoot(), phases);
+
+        StringBuilder header = new StringBuilder("total;dur=").append(millis(trace.getRoot().getDurationNanos()));
+        for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+            header.append(", ").append(phase.getKey()).append(";dur=").append(millis(phase.getValue()[0]));
+            if (phase.getValue()[1] > 1) {
+                header.append(";desc=\"").append(phase.getValue()[1]).append(" spans\"");
+            }
+        }
+        return header.toString();
+    }
+
+    public SpanTiming timings(RequestTrace trace) {
+        return trace.isRecording() ? timing(trace, trace.getRoot()) : null;
+    }
+
+    // The slowest of the recently finished requests, slowest first
+    public List<TraceRecord> getSlowest(int limit) {
+        List<RequestTrace> traces;
+        synchronized (recent) {
+            traces = new ArrayList<>(recent);
+        }
+        return traces.stream()
+            .sorted(Comparator.comparingLong((RequestTrace trace) -> trace.getRoot().getDurationNanos()).reversed())
+            .limit(Math.max(limit, 0))
+            .map(this::record)
+            .toList();
+    }
+
+    public TraceRecord find(String traceId) {
+        synchronized (recent) {
+            for (RequestTrace trace : recent) {
+                if (trace.getTraceId().equals(traceId)) {
+                    return record(trace);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Statistics
+    public long getExported() {
+        return exported.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    private void collectPhases(RequestTrace.Span span, Map<String, long[]> phases) {
+        for (RequestTrace.Span child : span.getChildren()) {
+            long[] phase = phases.computeIfAbsent(child.getName(), name -> new long[2]);
+            phase[0] += child.getDurationNanos();
+            phase[1]++;
+            collectPhases(child, phases);
+        }
+    }
+
+    private TraceRecord record(RequestTrace trace) {
+        return new TraceRecord(trace.getTraceId(), trace.epochNanos(trace.getStartNanos()) / 1_000_000,
+            millis(trace.getRoot().getDurationNanos()), timing(trace, trace.getRoot()));
+    }
+
+    private SpanTiming timing(RequestTrace trace, RequestTrace.Span span) {
+        List<SpanTiming> children = span.getChildren().stream().map(child -> timing(trace, child)).toList();
+        return new SpanTiming(span.getName(), millis(span.getStartNanos() - trace.getStartNanos()),
+            millis(span.getDurationNanos()), span.getAttributes(), children);
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    private void exportLoop() {
+        List<RequestTrace> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                RequestTrace first = exportQueue.poll(EXPORT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                exportQueue.drainTo(batch, EXPORT_BATCH_SIZE - 1);
+                export(batch);
+                exported.add(batch.size());
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                failed.add(batch.size());
+                System.err.println("Could not export " + batch.size() + " traces: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void export(List<RequestTrace> batch) throws IOException, InterruptedException {
+        byte[] body = objectMapper.writeValueAsBytes(otlp(batch));
+        if (config.getTracingExport().equals("file")) {
+            Path file = Paths.get(config.getTracingFile());
+            Files.write(file, (new String(body, StandardCharsets.UTF_8) + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return;
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(config.getTracingOtlpEndpoint()))
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(10))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + config.getTracingOtlpEndpoint());
+        }
+    }
+
+    // An OTLP TracesData message in its JSON encoding
+    private Map<String, Object> otlp(List<RequestTrace> batch) {
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (RequestTrace trace : batch) {
+            addSpans(trace, trace.getRoot(), spans);
+        }
+        Map<String, Object> resource = Map.of("attributes", List.of(attribute("service.name", "code-playground")));
+        Map<String, Object> scopeSpans = Map.of("scope", Map.of("name", SCOPE), "spans", spans);
+        return Map.of("resourceSpans", List.of(Map.of("resource", resource, "scopeSpans", List.of(scopeSpans))));
+    }
+
+    private void addSpans(RequestTrace trace, RequestTrace.Span span, List<Map<String, Object>> spans) {
+        Map<String, Object> otlpSpan = new LinkedHashMap<>();
+        otlpSpan.put("traceId", trace.getTraceId());
+        otlpSpan.put("spanId", span.getSpanId());
+        if (span.getParent() != null) {
+            otlpSpan.put("parentSpanId", span.getParent().getSpanId());
+        }
+        otlpSpan.put("name", span.getName());
+        // SPAN_KIND_SERVER for the request, SPAN_KIND_INTERNAL for its phases
+        otlpSpan.put("kind", span.getParent() == null ? 2 : 1);
+        otlpSpan.put("startTimeUnixNano", String.valueOf(trace.epochNanos(span.getStartNanos())));
+        otlpSpan.put("endTimeUnixNano", String.valueOf(trace.epochNanos(span.getEndNanos())));
+        otlpSpan.put("attributes", span.getAttributes().entrySet().stream()
+            .map(entry -> attribute(entry.getKey(), entry.getValue()))
+            .toList());
+        spans.add(otlpSpan);
+        for (RequestTrace.Span child : span.getChildren()) {
+            addSpans(trace, child, spans);
+        }
+    }
+
+    private static Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> any;
+        if (value instanceof Boolean bool) {
+            any = Map.of("boolValue", bool);
+        } else if (value instanceof Integer || value instanceof Long) {
+            // int64 values are strings in OTLP JSON
+            any = Map.of("intValue", value.toString());
+        } else if (value instanceof Number number) {
+            any = Map.of("doubleValue", number.doubleValue());
+        } else {
+            any = Map.of("stringValue", String.valueOf(value));
+        }
+        return Map.of("key", key, "value", any);
+    }
+}
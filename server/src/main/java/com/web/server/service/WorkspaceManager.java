@@ -0,0 +1,166 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Hands out job directories under {@code app.workspace.dir}.
+ *
+ * A fixed set of slot directories is created at startup and reused; when all
+ * slots are busy a one-off directory is created instead. Released directories
+ * are emptied (or deleted) by a background reaper, so cleanup never delays a
+ * response. A slot that cannot be fully emptied is taken out of the pool rather
+ * than handed to the next job with the old files in it. Job directories left
+ * by a previous run are removed at startup; anything else in the directory is
+ * left alone, as the workspace may share it with other data. Point the
+ * workspace at a tmpfs mount such as /dev/shm to keep job files off disk.
+ */
+@Component
+public class WorkspaceManager {
+
+    private static final String SLOT_PREFIX = "slot-";
+    private static final String ONE_OFF_PREFIX = "job-";
+    private static final String SESSION_PREFIX = "session-";
+    private static final List<String> PREFIXES = List.of(SLOT_PREFIX, ONE_OFF_PREFIX, SESSION_PREFIX);
+
+    @Autowired
+    private AppConfig config;
+
+    private final BlockingQueue<Path> freeSlots = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Path> released = new LinkedBlockingQueue<>();
+    private final LongAdder oneOffDirs = new LongAdder();
+    private final LongAdder quarantinedSlots = new LongAdder();
+    private Path root;
+    private Thread reaper;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(config.getWorkspaceDir()).toAbsolutePath();
+        Files.createDirectories(root);
+        sweep();
+
+        for (int i = 1; i <= config.getWorkspacePoolSize(); i++) {
+            freeSlots.add(Files.createDirectories(root.resolve(SLOT_PREFIX + i)));
+        }
+
+        reaper = new Thread(this::reap, "workspace-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+        System.out.println("Workspace " + root + " ready with " + freeSlots.size() + " slots");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaper.interrupt();
+    }
+
+    // An empty directory for one job
+    public Path acquire() throws IOException {
+        Path slot = freeSlots.poll();
+        if (slot != null) {
+            return slot;
+        }
+        oneOffDirs.increment();
+        return Files.createDirectories(root.resolve(ONE_OFF_PREFIX + UUID.randomUUID()));
+    }
+
+    // A directory kept for the life of an interactive session, so that it does not hold a slot
+    public Path acquireForSession() throws IOException {
+        return Files.createDirectories(root.resolve(SESSION_PREFIX + UUID.randomUUID()));
+    }
+
+    // Hand a directory back once nothing runs in it any more; it is cleaned in the background
+    public void release(Path dir) {
+        released.add(dir);
+    }
+
+    // Statistics
+    public int getFreeSlots() {
+        return freeSlots.size();
+    }
+
+    public int getPendingCleanup() {
+        return released.size();
+    }
+
+    public long getOneOffDirs() {
+        return oneOffDirs.sum();
+    }
+
+    public long getQuarantinedSlots() {
+        return quarantinedSlots.sum();
+    }
+
+    private void reap() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Path dir;
+            try {
+                dir = released.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (dir.getFileName().toString().startsWith(SLOT_PREFIX)) {
+                if (delete(dir, false)) {
+                    freeSlots.add(dir);
+                } else {
+                    // The next job would see the leftover files, and the compilation cache would store them
+                    quarantinedSlots.increment();
+                    System.err.println("Workspace slot " + dir + " could not be emptied; it is no longer used");
+                }
+            } else {
+                delete(dir, true);
+            }
+        }
+    }
+
+    // Remove the job directories a crashed or killed server left behind
+    private void sweep() throws IOException {
+        try (Stream<Path> entries = Files.list(root)) {
+            entries.filter(entry -> PREFIXES.stream().anyMatch(entry.getFileName().toString()::startsWith))
+                .forEach(entry -> delete(entry, true));
+        }
+    }
+
+    // Whether everything was removed
+    private boolean delete(Path dir, boolean includingRoot) {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.sorted(Comparator.reverseOrder()).toList();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Failed to cleanup directory: " + dir + " - " + e.getMessage());
+            return false;
+        }
+
+        boolean deleted = true;
+        for (Path path : paths) {
+            if (!includingRoot && path.equals(dir)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // Log error but don't throw
+                System.err.println("Failed to delete: " + path + " - " + e.getMessage());
+                deleted = false;
+            }
+        }
+        return deleted;
+    }
+}
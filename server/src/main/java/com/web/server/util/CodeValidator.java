@@ -2,50 +2,158 @@ package com.web.server.util;
 
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 public class CodeValidator {
-    
+
+    // Restricted modules per language, built once; separator splits a module into parents
+    private final Map<String, Rules> rules = Map.of(
+        "Python", new Rules('.', Set.of(
+            "os", "sys", "subprocess", "socket", "shutil", "ctypes",
+            "multiprocessing", "threading", "importlib", "builtins", "__builtins__"
+        )),
+        "JavaScript", new Rules('/', Set.of(
+            "fs", "child_process", "os", "net", "http", "https",
+            "dgram", "dns", "tls", "repl", "vm", "worker_threads"
+        )),
+        "Go", new Rules('/', Set.of(
+            "os", "os/exec", "syscall", "net", "net/http", "unsafe"
+        )),
+        "Java", new Rules('.', Set.of(
+            "java.io", "java.net", "java.lang.reflect", "java.lang.Runtime",
+            "java.lang.System", "java.lang.ProcessBuilder", "java.lang.Thread"
+        )),
+        "C", new Rules((char) 0, Set.of(HEADERS)),
+        "C++", new Rules((char) 0, Set.of(HEADERS))
+    );
+
+    private static final String[] HEADERS = {
+        "<sys/types.h>", "<sys/socket.h>", "<netdb.h>", "<arpa/inet.h>",
+        "<netinet/in.h>", "<unistd.h>", "<process.h>", "<windows.h>",
+        "<winsock2.h>", "<ws2tcpip.h>", "<pthread.h>", "<signal.h>",
+        "<fcntl.h>", "<sys/stat.h>", "<sys/wait.h>", "<sys/mman.h>"
+    };
+
     public String validateCode(String language, String code) {
-        List<String> restrictedImports = getRestrictedImports(language);
-        
-        for (String restrictedImport : restrictedImports) {
-            Pattern pattern = Pattern.compile("(?m)" + Pattern.quote(restrictedImport));
-            if (pattern.matcher(code).find()) {
-                return "import of '" + restrictedImport + "' is not allowed";
+        List<Violation> violations = findViolations(language, code);
+        if (violations.isEmpty()) {
+            return null; // No validation errors
+        }
+        return violations.stream().map(Violation::getMessage).collect(Collectors.joining("\n"));
+    }
+
+    // Every restricted import in the code, in source order
+    public List<Violation> findViolations(String language, String code) {
+        Rules languageRules = rules.get(language);
+        List<Violation> violations = new ArrayList<>();
+        if (languageRules == null) {
+            return violations;
+        }
+
+        ImportScanner.scan(language, code, (module, offset) -> {
+            // A module chosen at run time could be any of the restricted ones
+            String restricted = ImportScanner.isComputed(module) ? module : languageRules.match(module);
+            if (restricted != null) {
+                violations.add(new Violation(restricted, code, offset));
+            }
+        });
+        return violations;
+    }
+
+    private static class Rules {
+
+        private final char separator;
+        private final Set<String> restricted;
+
+        Rules(char separator, Set<String> restricted) {
+            this.separator = separator;
+            this.restricted = restricted;
+        }
+
+        // The restricted module that covers this one: itself or one of its parents
+        String match(String module) {
+            if (module.startsWith("node:")) {
+                module = module.substring("node:".length());
+            }
+            if (separator == 0) {
+                return matchHeader(module);
             }
+            for (int i = module.indexOf(separator); i > 0; i = module.indexOf(separator, i + 1)) {
+                String parent = module.substring(0, i);
+                if (restricted.contains(parent)) {
+                    return parent;
+                }
+            }
+            return restricted.contains(module) ? module : null;
+        }
+
+        // Headers may be spelled with "." and ".." segments or as an absolute path, e.g. </usr/include/unistd.h>
+        private String matchHeader(String header) {
+            String path = header.substring(1, header.length() - 1);
+            Deque<String> segments = new ArrayDeque<>();
+            for (String segment : path.split("/")) {
+                if (segment.equals("..")) {
+                    segments.pollLast();
+                } else if (!segment.isEmpty() && !segment.equals(".")) {
+                    segments.addLast(segment);
+                }
+            }
+            String normalized = "<" + String.join("/", segments) + ">";
+            if (restricted.contains(normalized)) {
+                return normalized;
+            }
+            if (path.startsWith("/")) {
+                for (String candidate : restricted) {
+                    if (normalized.endsWith("/" + candidate.substring(1))) {
+                        return candidate;
+                    }
+                }
+            }
+            return null;
         }
-        
-        return null; // No validation errors
     }
-    
-    private List<String> getRestrictedImports(String language) {
-        return switch (language) {
-            case "Python" -> Arrays.asList(
-                "os", "sys", "subprocess", "socket", "shutil", "ctypes", 
-                "multiprocessing", "threading"
-            );
-            case "JavaScript" -> Arrays.asList(
-                "fs", "child_process", "os", "net", "http", "https", 
-                "dgram", "dns", "tls", "repl", "vm", "worker_threads"
-            );
-            case "Go" -> Arrays.asList(
-                "os", "os/exec", "syscall", "net", "net/http", "unsafe"
-            );
-            case "Java" -> Arrays.asList(
-                "java.io", "java.net", "java.lang.reflect", "java.lang.Runtime", 
-                "java.lang.System", "java.lang.ProcessBuilder", "java.lang.Thread"
-            );
-            case "C", "C++" -> Arrays.asList(
-                "<sys/types.h>", "<sys/socket.h>", "<netdb.h>", "<arpa/inet.h>", 
-                "<netinet/in.h>", "<unistd.h>", "<process.h>", "<windows.h>", 
-                "<winsock2.h>", "<ws2tcpip.h>", "<pthread.h>", "<signal.h>",
-                "<fcntl.h>", "<sys/stat.h>", "<sys/wait.h>", "<sys/mman.h>"
-            );
-            default -> Arrays.asList();
-        };
+
+    public static class Violation {
+
+        private final String name;
+        private final int line;
+        private final int column;
+
+        Violation(String name, String code, int offset) {
+            this.name = name;
+            int line = 1;
+            int lineStart = 0;
+            for (int i = 0; i < offset && i < code.length(); i++) {
+                if (code.charAt(i) == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+            }
+            this.line = line;
+            this.column = offset - lineStart + 1;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public String getMessage() {
+            return "import of '" + name + "' is not allowed (line " + line + ", column " + column + ")";
+        }
     }
 }
@@ -0,0 +1,701 @@
+package com.web.server.util;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Single-pass scanner that finds the modules a program imports.
+ *
+ * Comments and literals are skipped, so a module name only counts where the
+ * language would actually load it: import statements, {@code require(...)},
+ * dynamic import calls, Go import blocks and C/C++ preprocessor directives.
+ * Code inside f-string and template literal placeholders is scanned as well.
+ * Each module is reported with its offset in the source.
+ *
+ * Calls that load a module by name at run time ({@code __import__},
+ * {@code import_module}, {@code require}, {@code import()}, and in Java
+ * {@code Class.forName} and {@code loadClass}) are reported with their
+ * argument when it is a plain string literal. Any other use of them, such as
+ * a concatenated or interpolated name or passing the function around, is
+ * reported as "callee(...)", since the module cannot be known before the
+ * program runs.
+ */
+public final class ImportScanner {
+
+    private enum Kind { WORD, STRING, PUNCT, END }
+
+    private static final String JS_REGEX_KEYWORDS =
+        " return typeof instanceof in of new delete void throw case do else yield await ";
+
+    private static final String[] PUNCTUATION = new String[128];
+
+    private static final String COMPUTED_SUFFIX = "(...)";
+
+    static {
+        for (char c = 0; c < PUNCTUATION.length; c++) {
+            PUNCTUATION[c] = String.valueOf(c);
+        }
+    }
+
+    private final String language;
+    private final boolean python;
+    private final boolean javaScript;
+    private final boolean go;
+    private final String src;
+    private final int end;
+    private final ObjIntConsumer<String> sink;
+    private int pos;
+
+    // Current token
+    private Kind kind;
+    private String text;
+    private int start;
+    private boolean interpolated;
+    private boolean pushedBack;
+    private Kind lastKind;
+    private String lastText;
+    private int nameStart;
+
+    private ImportScanner(String language, String src, int from, int to, ObjIntConsumer<String> sink) {
+        this.language = language;
+        this.python = "Python".equals(language);
+        this.javaScript = "JavaScript".equals(language);
+        this.go = "Go".equals(language);
+        this.src = src;
+        this.pos = from;
+        this.end = to;
+        this.sink = sink;
+    }
+
+    // Whether a reported module is a run-time import whose module cannot be known, e.g. "require(...)"
+    public static boolean isComputed(String module) {
+        return module.endsWith(COMPUTED_SUFFIX);
+    }
+
+    // Report every imported module as (name, offset); C/C++ headers are reported as "<name>"
+    public static void scan(String language, String code, ObjIntConsumer<String> sink) {
+        if ("Java".equals(language) && code.contains("\\u")) {
+            // javac translates unicode escapes before lexing, so must we
+            code = decodeUnicodeEscapes(code);
+        }
+        new ImportScanner(language, code, 0, code.length(), sink).run();
+    }
+
+    private void run() {
+        switch (language) {
+            case "Python" -> scanPython();
+            case "JavaScript" -> scanJavaScript();
+            case "Go" -> scanGo();
+            case "Java" -> scanJava();
+            case "C", "C++" -> scanPreprocessor();
+            default -> { }
+        }
+    }
+
+    // Parsers
+
+    private void scanPython() {
+        while (next() != Kind.END) {
+            if (isWord("import")) {
+                do {
+                    String module = readDotted();
+                    if (module != null) {
+                        sink.accept(module, nameStart);
+                    }
+                    if (next() == Kind.WORD && text.equals("as")) {
+                        next();
+                        next();
+                    }
+                } while (isPunct(','));
+                pushBack();
+            } else if (isWord("from")) {
+                boolean relative = false;
+                while (next() == Kind.PUNCT && text.equals(".")) {
+                    relative = true;
+                }
+                pushBack();
+                String module = readDotted();
+                if (module != null && !relative) {
+                    sink.accept(module, nameStart);
+                }
+                // The names after "from x import" are attributes, not modules
+                if (next() != Kind.WORD || !text.equals("import")) {
+                    pushBack();
+                }
+            } else if (isWord("__import__") || isWord("import_module")) {
+                readCallArgument();
+            } else if (isWord("__builtins__")) {
+                // getattr(__builtins__, "__imp" + "ort__") reaches __import__ without naming it
+                sink.accept(text, start);
+            }
+        }
+    }
+
+    private void scanJavaScript() {
+        while (next() != Kind.END) {
+            if (isWord("require")) {
+                readCallArgument();
+            } else if (isWord("import") && !".".equals(lastText)) {
+                Kind following = next();
+                if (following == Kind.STRING) {
+                    sink.accept(text, start);
+                } else if (isPunct('(')) {
+                    pushBack();
+                    readCallArgument("import", start);
+                } else if (!isPunct('.')) {
+                    readFromClause();
+                }
+            } else if (isWord("export")) {
+                if (next() == Kind.PUNCT && (text.equals("*") || text.equals("{"))) {
+                    readFromClause();
+                } else {
+                    pushBack();
+                }
+            }
+        }
+    }
+
+    private void scanGo() {
+        while (next() != Kind.END) {
+            if (!isWord("import")) {
+                continue;
+            }
+            if (next() == Kind.PUNCT && text.equals("(")) {
+                while (next() != Kind.END && !isPunct(')')) {
+                    if (kind == Kind.STRING) {
+                        sink.accept(text, start);
+                    }
+                }
+            } else {
+                // Optional alias, "." or "_" before the path
+                if (kind != Kind.STRING) {
+                    next();
+                }
+                if (kind == Kind.STRING) {
+                    sink.accept(text, start);
+                }
+            }
+        }
+    }
+
+    private void scanJava() {
+        // Qualified names count wherever they appear, e.g. java.lang.Runtime.getRuntime()
+        while (next() != Kind.END) {
+            if (kind == Kind.WORD) {
+                pushBack();
+                String name = readDotted();
+                if (name.indexOf('.') > 0) {
+                    sink.accept(name, nameStart);
+                }
+                // Reflection loads a class by name, e.g. Class.forName("java.lang.Runtime")
+                String method = name.substring(name.lastIndexOf('.') + 1);
+                if (method.equals("forName") || method.equals("loadClass") || method.equals("findClass")) {
+                    readCallArgument(method, nameStart);
+                }
+            }
+        }
+    }
+
+    // Reads the string argument of a call such as require("x") after the callee's name
+    private void readCallArgument() {
+        readCallArgument(text, start);
+    }
+
+    private void readCallArgument(String callee, int calleeStart) {
+        if (next() == Kind.PUNCT && text.equals("(") && next() == Kind.STRING && !interpolated) {
+            String module = text;
+            int moduleStart = start;
+            if (next() == Kind.PUNCT && (text.equals(")") || text.equals(","))) {
+                sink.accept(module, moduleStart);
+                pushBack();
+                return;
+            }
+        }
+        // Not a plain literal, e.g. require("f" + "s") or const load = require
+        sink.accept(callee + COMPUTED_SUFFIX, calleeStart);
+        pushBack();
+    }
+
+    // Reads the bindings of an import/export clause up to "from 'module'"
+    private void readFromClause() {
+        while (kind == Kind.WORD || (kind == Kind.PUNCT && "{},*".contains(text))) {
+            if (isWord("from")) {
+                if (next() == Kind.STRING) {
+                    sink.accept(text, start);
+                    return;
+                }
+                continue;
+            }
+            next();
+        }
+        // Not an import clause after all; let the caller see this token
+        pushBack();
+    }
+
+    // Reads name(.name)* starting at the next token; null if there is no name
+    private String readDotted() {
+        if (next() != Kind.WORD) {
+            pushBack();
+            return null;
+        }
+        nameStart = start;
+        StringBuilder name = new StringBuilder(text);
+        while (next() == Kind.PUNCT && text.equals(".")) {
+            if (next() == Kind.WORD || isPunct('*')) {
+                name.append('.').append(text);
+            } else {
+                break;
+            }
+        }
+        pushBack();
+        return name.toString();
+    }
+
+    private boolean isWord(String word) {
+        return kind == Kind.WORD && text.equals(word);
+    }
+
+    private boolean isPunct(char c) {
+        return kind == Kind.PUNCT && text.length() == 1 && text.charAt(0) == c;
+    }
+
+    private void pushBack() {
+        pushedBack = true;
+    }
+
+    // Lexer
+
+    private Kind next() {
+        if (pushedBack) {
+            pushedBack = false;
+            return kind;
+        }
+        if (kind != null) {
+            lastKind = kind;
+            lastText = text;
+        }
+        skipWhitespaceAndComments();
+        start = pos;
+        if (pos >= end) {
+            return token(Kind.END, "");
+        }
+
+        char c = src.charAt(pos);
+        if (isWordChar(c) || isIdentifierEscape(pos)) {
+            while (pos < end && isWordChar(src.charAt(pos))) {
+                pos++;
+            }
+            if (!isIdentifierEscape(pos)) {
+                return readWord(src.substring(start, pos));
+            }
+            // JavaScript allows unicode escapes in identifiers, so they spell require too
+            StringBuilder word = new StringBuilder(src.substring(start, pos));
+            while (pos < end) {
+                if (isWordChar(src.charAt(pos))) {
+                    word.append(src.charAt(pos++));
+                } else if (isIdentifierEscape(pos)) {
+                    pos = appendEscape(src, pos, word);
+                } else {
+                    break;
+                }
+            }
+            return readWord(word.toString());
+        }
+        if (isQuote(c)) {
+            return switch (language) {
+                case "Python" -> readPythonString(false, false);
+                case "JavaScript" -> c == '`' ? readTemplate() : readQuoted(c);
+                case "Go" -> c == '`' ? readRaw('`') : readQuoted(c);
+                default -> src.startsWith("\"\"\"", pos) ? readTextBlock() : readQuoted(c);
+            };
+        }
+        if (c == '/' && javaScript && regexAllowed() && skipRegex()) {
+            return token(Kind.STRING, "");
+        }
+        pos++;
+        return token(Kind.PUNCT, c < PUNCTUATION.length ? PUNCTUATION[c] : String.valueOf(c));
+    }
+
+    private Kind readWord(String word) {
+        if (python && pos < end && isQuote(src.charAt(pos)) && isStringPrefix(word)) {
+            String prefix = word.toLowerCase();
+            return readPythonString(prefix.contains("f"), prefix.contains("r"));
+        }
+        return token(Kind.WORD, word);
+    }
+
+    private Kind token(Kind tokenKind, String tokenText) {
+        kind = tokenKind;
+        text = tokenText;
+        interpolated = false;
+        return kind;
+    }
+
+    private void skipWhitespaceAndComments() {
+        boolean hashComments = python;
+        while (pos < end) {
+            char c = src.charAt(pos);
+            if (Character.isWhitespace(c) || (hashComments && c == '\\')) {
+                pos++;
+            } else if (hashComments && c == '#') {
+                skipToLineEnd();
+            } else if (!hashComments && src.startsWith("//", pos)) {
+                skipToLineEnd();
+            } else if (!hashComments && src.startsWith("/*", pos)) {
+                int close = src.indexOf("*/", pos + 2);
+                pos = close < 0 || close >= end ? end : close + 2;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipToLineEnd() {
+        while (pos < end && src.charAt(pos) != '\n') {
+            pos++;
+        }
+    }
+
+    // A quoted literal that cannot span lines; an unterminated one ends at the newline
+    private Kind readQuoted(char quote) {
+        int bodyStart = ++pos;
+        while (pos < end && src.charAt(pos) != quote && src.charAt(pos) != '\n') {
+            pos += src.charAt(pos) == '\\' ? 2 : 1;
+        }
+        pos = Math.min(pos, end);
+        String value = unescape(src.substring(bodyStart, pos));
+        if (pos < end && src.charAt(pos) == quote) {
+            pos++;
+        }
+        return token(Kind.STRING, value);
+    }
+
+    private Kind readRaw(char quote) {
+        int close = src.indexOf(quote, pos + 1);
+        int stop = close < 0 || close >= end ? end : close;
+        String value = src.substring(pos + 1, stop);
+        pos = Math.min(end, stop + 1);
+        return token(Kind.STRING, value);
+    }
+
+    private Kind readTextBlock() {
+        int close = src.indexOf("\"\"\"", pos + 3);
+        int bodyEnd = close < 0 || close >= end ? end : close;
+        String body = src.substring(Math.min(pos + 3, bodyEnd), bodyEnd);
+        pos = Math.min(end, bodyEnd + 3);
+        return token(Kind.STRING, unescape(body.strip()));
+    }
+
+    private Kind readPythonString(boolean formatted, boolean raw) {
+        char quote = src.charAt(pos);
+        String delimiter = src.startsWith(String.valueOf(quote).repeat(3), pos) ? String.valueOf(quote).repeat(3) : String.valueOf(quote);
+        int bodyStart = pos + delimiter.length();
+        int i = bodyStart;
+        while (i < end && !src.startsWith(delimiter, i)) {
+            char c = src.charAt(i);
+            if (c == '\n' && delimiter.length() == 1) {
+                break;
+            }
+            i += c == '\\' ? 2 : 1;
+        }
+        int bodyEnd = Math.min(i, end);
+        pos = Math.min(end, bodyEnd + (src.startsWith(delimiter, bodyEnd) ? delimiter.length() : 0));
+        if (formatted) {
+            scanPlaceholders(bodyStart, bodyEnd, "{");
+        }
+        String body = src.substring(bodyStart, bodyEnd);
+        token(Kind.STRING, raw ? body : unescape(body));
+        interpolated = formatted;
+        return kind;
+    }
+
+    private Kind readTemplate() {
+        int bodyStart = pos + 1;
+        int i = bodyStart;
+        int depth = 0;
+        while (i < end) {
+            char c = src.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (depth == 0 && c == '`') {
+                break;
+            }
+            if (c == '$' && i + 1 < end && src.charAt(i + 1) == '{') {
+                depth++;
+                i++;
+            } else if (c == '}' && depth > 0) {
+                depth--;
+            }
+            i++;
+        }
+        int bodyEnd = Math.min(i, end);
+        pos = Math.min(end, bodyEnd + 1);
+        String body = src.substring(bodyStart, bodyEnd);
+        if (body.contains("${")) {
+            scanPlaceholders(bodyStart, bodyEnd, "${");
+            token(Kind.STRING, "");
+            interpolated = true;
+            return kind;
+        }
+        return token(Kind.STRING, body);
+    }
+
+    // Scans the code inside {...} / ${...} placeholders of a formatted literal
+    private void scanPlaceholders(int from, int to, String opener) {
+        int i = from;
+        while (i < to) {
+            if (src.startsWith("{{", i) && opener.equals("{")) {
+                i += 2;
+            } else if (src.startsWith(opener, i)) {
+                int codeStart = i + opener.length();
+                int depth = 1;
+                int j = codeStart;
+                while (j < to && depth > 0) {
+                    char c = src.charAt(j);
+                    if (c == '{') {
+                        depth++;
+                    } else if (c == '}') {
+                        depth--;
+                    }
+                    j++;
+                }
+                int codeEnd = depth == 0 ? j - 1 : to;
+                new ImportScanner(language, src, codeStart, codeEnd, sink).run();
+                i = j;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // A '/' starts a regular expression unless it follows an operand
+    private boolean regexAllowed() {
+        if (lastKind == null || lastKind == Kind.END) {
+            return true;
+        }
+        if (lastKind == Kind.WORD) {
+            return JS_REGEX_KEYWORDS.contains(" " + lastText + " ");
+        }
+        if (lastKind == Kind.STRING) {
+            return false;
+        }
+        return !lastText.equals(")") && !lastText.equals("]") && !lastText.equals("}");
+    }
+
+    // Skips a regex literal; returns false (leaving pos alone) if the line ends first
+    private boolean skipRegex() {
+        int i = pos + 1;
+        boolean inClass = false;
+        while (i < end) {
+            char c = src.charAt(i);
+            if (c == '\n') {
+                return false;
+            }
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                i++;
+                while (i < end && isWordChar(src.charAt(i))) {
+                    i++;
+                }
+                pos = i;
+                return true;
+            }
+            i++;
+        }
+        return false;
+    }
+
+    // C and C++: header names in preprocessor directives, outside comments and literals
+    private void scanPreprocessor() {
+        boolean lineStart = true;
+        while (pos < end) {
+            char c = src.charAt(pos);
+            if (c == '\n') {
+                lineStart = true;
+                pos++;
+            } else if (c == ' ' || c == '\t' || c == '\r' || c == '\f') {
+                pos++;
+            } else if (c == '\\' && pos + 1 < end && src.charAt(pos + 1) == '\n') {
+                pos += 2;
+            } else if (lineStart && (c == '#' || src.startsWith("%:", pos))) {
+                // %: is the digraph spelling of #
+                pos += c == '#' ? 0 : 1;
+                scanDirective();
+                lineStart = true;
+            } else if (src.startsWith("//", pos)) {
+                skipToLineEnd();
+            } else if (src.startsWith("/*", pos)) {
+                // A comment is a single space, so a directive may still follow
+                int close = src.indexOf("*/", pos + 2);
+                pos = close < 0 ? end : close + 2;
+            } else if (c == 'R' && pos + 1 < end && src.charAt(pos + 1) == '"' && "C++".equals(language)) {
+                skipRawString();
+                lineStart = false;
+            } else if (c == '"' || c == '\'') {
+                readQuoted(c);
+                lineStart = false;
+            } else {
+                pos++;
+                lineStart = false;
+            }
+        }
+    }
+
+    // Reports <...> and "..." spans of one directive, following line continuations
+    private void scanDirective() {
+        pos++;
+        StringBuilder span = null;
+        char close = 0;
+        int spanStart = 0;
+        while (pos < end && src.charAt(pos) != '\n') {
+            char c = src.charAt(pos);
+            if (c == '\\' && pos + 1 < end && src.charAt(pos + 1) == '\n') {
+                pos += 2;
+                continue;
+            }
+            if (span == null) {
+                if (src.startsWith("/*", pos)) {
+                    int commentEnd = src.indexOf("*/", pos + 2);
+                    pos = commentEnd < 0 ? end : commentEnd + 2;
+                    continue;
+                }
+                if (src.startsWith("//", pos)) {
+                    skipToLineEnd();
+                    return;
+                }
+                if (c == '<' || c == '"') {
+                    span = new StringBuilder();
+                    close = c == '<' ? '>' : '"';
+                    spanStart = pos;
+                }
+            } else if (c == close) {
+                sink.accept("<" + span.toString().trim() + ">", spanStart);
+                span = null;
+            } else {
+                span.append(c);
+            }
+            pos++;
+        }
+    }
+
+    private void skipRawString() {
+        int open = src.indexOf('(', pos + 2);
+        if (open < 0) {
+            pos = end;
+            return;
+        }
+        String terminator = ")" + src.substring(pos + 2, open) + "\"";
+        int close = src.indexOf(terminator, open + 1);
+        pos = close < 0 ? end : close + terminator.length();
+    }
+
+    // Character classes
+
+    private boolean isQuote(char c) {
+        return c == '"' || c == '\'' || (c == '`' && (javaScript || go));
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private boolean isIdentifierEscape(int at) {
+        return javaScript && src.startsWith("\\u", at);
+    }
+
+    private static boolean isStringPrefix(String word) {
+        return word.length() <= 2 && word.chars().allMatch(ch -> "rRbBuUfF".indexOf(ch) >= 0);
+    }
+
+    // Resolves hex, unicode and octal escapes; any other escaped character stands for itself
+    private static String unescape(String body) {
+        if (body.indexOf('\\') < 0) {
+            return body;
+        }
+        StringBuilder value = new StringBuilder(body.length());
+        int i = 0;
+        while (i < body.length()) {
+            if (body.charAt(i) == '\\' && i + 1 < body.length()) {
+                i = appendEscape(body, i, value);
+            } else {
+                value.append(body.charAt(i++));
+            }
+        }
+        return value.toString();
+    }
+
+    // Appends the character of the escape at text[at] and returns the index after it
+    private static int appendEscape(String text, int at, StringBuilder out) {
+        int i = at + 1;
+        if (i >= text.length()) {
+            return i;
+        }
+        char kind = text.charAt(i);
+        int digitsStart = i + 1;
+        int digitsEnd;
+        int resume;
+        int radix = 16;
+        if (kind == 'x') {
+            digitsEnd = Math.min(text.length(), digitsStart + 2);
+            resume = digitsEnd;
+        } else if (kind == 'u' && text.startsWith("{", digitsStart)) {
+            digitsStart++;
+            digitsEnd = text.indexOf('}', digitsStart);
+            resume = digitsEnd + 1;
+        } else if (kind == 'u') {
+            digitsEnd = Math.min(text.length(), digitsStart + 4);
+            resume = digitsEnd;
+        } else if (kind >= '0' && kind <= '7') {
+            radix = 8;
+            digitsStart = i;
+            digitsEnd = i + 1;
+            while (digitsEnd < Math.min(text.length(), i + 3) && text.charAt(digitsEnd) >= '0' && text.charAt(digitsEnd) <= '7') {
+                digitsEnd++;
+            }
+            resume = digitsEnd;
+        } else {
+            out.append(kind);
+            return i + 1;
+        }
+        try {
+            out.appendCodePoint(Integer.parseInt(text.substring(digitsStart, digitsEnd), radix));
+            return resume;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            // Not a numeric escape; the escaped character stands for itself
+            out.append(kind);
+            return i + 1;
+        }
+    }
+
+    private static String decodeUnicodeEscapes(String code) {
+        StringBuilder decoded = new StringBuilder(code.length());
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == '\\' && i + 1 < code.length() && code.charAt(i + 1) == 'u') {
+                int j = i + 1;
+                while (j < code.length() && code.charAt(j) == 'u') {
+                    j++;
+                }
+                if (j + 4 <= code.length()) {
+                    try {
+                        decoded.append((char) Integer.parseInt(code.substring(j, j + 4), 16));
+                        i = j + 3;
+                        continue;
+                    } catch (NumberFormatException e) {
+                        // Not an escape; keep the text as written
+                    }
+                }
+            }
+            decoded.append(c);
+        }
+        return decoded.toString();
+    }
+}
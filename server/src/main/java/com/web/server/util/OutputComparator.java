@@ -0,0 +1,111 @@
+package com.web.server.util;
+
+import com.web.server.dto.JudgeDiff;
+
+import java.util.regex.Pattern;
+
+/**
+ * Compares a program's output with the expected output of a test.
+ *
+ * EXACT compares line by line, ignoring only line endings and the whitespace
+ * around the whole output (program output is returned trimmed). WHITESPACE
+ * compares the whitespace-separated tokens. FLOAT does too, but accepts two
+ * numeric tokens whose absolute or relative difference is within the
+ * tolerance. Only plain decimal and scientific notation count as numeric:
+ * Java literals such as "1f", "1d" or "0x1p0", which Double.parseDouble also
+ * accepts, must match exactly.
+ */
+public class OutputComparator {
+
+    private static final int MAX_SHOWN_CHARS = 200;
+    private static final Pattern DECIMAL = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+    public enum Mode { EXACT, WHITESPACE, FLOAT }
+
+    private final Mode mode;
+    private final double tolerance;
+
+    public OutputComparator(Mode mode, double tolerance) {
+        this.mode = mode;
+        this.tolerance = tolerance;
+    }
+
+    // Mode from its name in a request (case-insensitive); null means WHITESPACE
+    public static Mode parseMode(String name) {
+        if (name == null || name.isBlank()) {
+            return Mode.WHITESPACE;
+        }
+        try {
+            return Mode.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown comparison: " + name + " (use exact, whitespace or float)");
+        }
+    }
+
+    // The first difference, or null if the output is accepted
+    public JudgeDiff compare(int test, String expected, String actual) {
+        return mode == Mode.EXACT
+            ? compareLines(test, expected, actual)
+            : compareTokens(test, expected, actual);
+    }
+
+    private JudgeDiff compareLines(int test, String expected, String actual) {
+        String[] expectedLines = lines(expected);
+        String[] actualLines = lines(actual);
+        for (int i = 0; i < Math.max(expectedLines.length, actualLines.length); i++) {
+            String want = i < expectedLines.length ? expectedLines[i] : null;
+            String got = i < actualLines.length ? actualLines[i] : null;
+            if (want == null || !want.equals(got)) {
+                return new JudgeDiff(test, "line " + (i + 1), shown(want), shown(got));
+            }
+        }
+        return null;
+    }
+
+    private JudgeDiff compareTokens(int test, String expected, String actual) {
+        String[] expectedTokens = tokens(expected);
+        String[] actualTokens = tokens(actual);
+        for (int i = 0; i < Math.max(expectedTokens.length, actualTokens.length); i++) {
+            String want = i < expectedTokens.length ? expectedTokens[i] : null;
+            String got = i < actualTokens.length ? actualTokens[i] : null;
+            if (want == null || got == null || !tokenMatches(want, got)) {
+                return new JudgeDiff(test, "token " + (i + 1), shown(want), shown(got));
+            }
+        }
+        return null;
+    }
+
+    private boolean tokenMatches(String expected, String actual) {
+        if (expected.equals(actual)) {
+            return true;
+        }
+        if (mode != Mode.FLOAT || !DECIMAL.matcher(expected).matches() || !DECIMAL.matcher(actual).matches()) {
+            return false;
+        }
+        double want = Double.parseDouble(expected);
+        double got = Double.parseDouble(actual);
+        if (!Double.isFinite(want) || !Double.isFinite(got)) {
+            return false;
+        }
+        double difference = Math.abs(want - got);
+        return difference <= tolerance || difference <= tolerance * Math.abs(want);
+    }
+
+    private static String[] lines(String text) {
+        String trimmed = text == null ? "" : text.replace("\r\n", "\n").strip();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\n", -1);
+    }
+
+    private static String[] tokens(String text) {
+        String trimmed = text == null ? "" : text.strip();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+
+    // Text cut to a length fit for a verdict; missing lines and tokens show as null
+    public static String shown(String text) {
+        if (text == null || text.length() <= MAX_SHOWN_CHARS) {
+            return text;
+        }
+        return text.substring(0, MAX_SHOWN_CHARS) + "...";
+    }
+}
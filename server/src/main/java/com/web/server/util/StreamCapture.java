@@ -0,0 +1,91 @@
+package com.web.server.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains a child process stream on a virtual thread into a size-capped buffer.
+ *
+ * Bytes beyond the cap are read and discarded so the child never blocks on a
+ * full pipe, and the captured text ends with a truncation marker. Reading is
+ * done in raw chunks; the text is decoded once when the capture is collected.
+ */
+public class StreamCapture {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final InputStream in;
+    private final int maxBytes;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private byte[] buffer = new byte[256];
+    private int length;
+    private long totalBytes;
+
+    private StreamCapture(InputStream in, int maxBytes) {
+        this.in = in;
+        this.maxBytes = maxBytes;
+    }
+
+    public static StreamCapture start(InputStream in, int maxBytes, String name) {
+        StreamCapture capture = new StreamCapture(in, maxBytes);
+        Thread.ofVirtual().name("capture-" + name).start(capture::drain);
+        return capture;
+    }
+
+    // Wait up to graceMs for end of stream, then return whatever has been captured
+    public String await(long graceMs) throws InterruptedException {
+        finished.await(graceMs, TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            return format(buffer, length, totalBytes, maxBytes);
+        }
+    }
+
+    // Decode captured bytes, marking output that was cut off at the cap
+    public static String format(byte[] bytes, int length, long totalBytes, int maxBytes) {
+        String text = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        if (totalBytes > length) {
+            text += "\n... [output truncated after " + maxBytes + " bytes]";
+        }
+        return text;
+    }
+
+    public synchronized boolean isTruncated() {
+        return totalBytes > length;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void drain() {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (InputStream stream = in) {
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                append(chunk, read);
+            }
+        } catch (IOException e) {
+            // Stream closed because the process was killed; keep what was read
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    private synchronized void append(byte[] chunk, int count) {
+        totalBytes += count;
+        int accepted = Math.min(count, maxBytes - length);
+        if (accepted <= 0) {
+            return;
+        }
+        if (length + accepted > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(maxBytes, Math.max(buffer.length * 2, length + accepted)));
+        }
+        System.arraycopy(chunk, 0, buffer, length, accepted);
+        length += accepted;
+    }
+}
@@ -0,0 +1,23 @@
+// Pre-started Node.js worker. Waits for the path of a program on the first line of
+// stdin, then runs it as the main module; the rest of stdin is the program's input.
+const fs = require("fs");
+const path = require("path");
+const Module = require("module");
+
+function readLine() {
+  const byte = Buffer.alloc(1);
+  const line = [];
+  while (fs.readSync(0, byte, 0, 1, null) === 1 && byte[0] !== 10) {
+    line.push(byte[0]);
+  }
+  return Buffer.from(line).toString();
+}
+
+const program = readLine();
+if (!program) {
+  process.exit(0);
+}
+
+process.chdir(path.dirname(program));
+process.argv = [process.argv[0], program];
+Module.runMain();
@@ -0,0 +1,39 @@
+# Pre-started Python worker. Waits for the path of a program on the first line of
+# stdin, then runs it as __main__; the rest of stdin is the program's input.
+import os
+import runpy
+import sys
+import traceback
+
+# Modules typical submissions import, loaded before the job arrives
+import bisect, collections, decimal, fractions, functools, heapq, itertools, math, random, re, statistics, string
+
+
+def _read_line():
+    line = bytearray()
+    while True:
+        char = os.read(0, 1)
+        if not char or char == b"\n":
+            return line.decode()
+        line += char
+
+
+_program = _read_line()
+if not _program:
+    sys.exit(0)
+
+os.chdir(os.path.dirname(_program))
+sys.argv = [os.path.basename(_program)]
+sys.path[0] = os.path.dirname(_program)
+
+try:
+    runpy.run_path(sys.argv[0], run_name="__main__")
+except SystemExit:
+    raise
+except BaseException as error:
+    # Hide the worker's own frames, as if the program had been started directly
+    tb = error.__traceback__
+    while tb is not None and tb.tb_frame.f_code.co_filename != sys.argv[0]:
+        tb = tb.tb_next
+    traceback.print_exception(type(error), error, tb)
+    sys.exit(1)
@@ -0,0 +1,217 @@
+/*
+ * Runs a submission under resource limits and records what it used.
+ *
+ *   launcher [-t cpu-seconds] [-m memory-bytes] [-f file-size-bytes] [-n open-files]
+ *            [-p processes] [-g cgroup-dir] [-s stats-dir] [-e] -- command [args...]
+ *
+ * Limits are set with setrlimit in the child just before exec. Memory is
+ * limited through RLIMIT_DATA rather than RLIMIT_AS, because the JVM and V8
+ * reserve far more address space than they ever touch. RLIMIT_NPROC counts
+ * every task of the user, so the process limit is added to the number the
+ * user already runs. With -g the launcher first moves itself into the given
+ * cgroup, which the command then inherits.
+ *
+ * The launcher is a child subreaper, so processes the command leaves behind
+ * are re-parented to it rather than to init. They stay in the launcher's
+ * process tree while it runs, and are killed and reaped once the command
+ * exits.
+ *
+ * After the command exits, "<cpu-us> <max-rss-kb> <signal>" is written to
+ * <stats-dir>/<launcher pid>.stats, and the launcher exits with the command's
+ * status, or 128 + signal if a signal killed it.
+ *
+ * With -e the launcher sets the limits and execs the command in place instead,
+ * for long-lived processes whose owner needs their pid: there is then no
+ * subreaper and no stats file.
+ */
+#define _GNU_SOURCE
+#include <ctype.h>
+#include <dirent.h>
+#include <errno.h>
+#include <signal.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <sys/prctl.h>
+#include <sys/resource.h>
+#include <sys/wait.h>
+#include <unistd.h>
+
+// Exit status for failures of the launcher itself
+#define LAUNCHER_FAILED 125
+
+static void set_limit(int resource, rlim_t soft, rlim_t hard) {
+    struct rlimit current;
+    if (getrlimit(resource, &current) == 0 && current.rlim_max != RLIM_INFINITY && hard > current.rlim_max) {
+        hard = current.rlim_max;
+    }
+    struct rlimit limit = { soft < hard ? soft : hard, hard };
+    setrlimit(resource, &limit);
+}
+
+// Threads count against RLIMIT_NPROC as well as processes
+static long long user_tasks(uid_t uid) {
+    DIR *proc = opendir("/proc");
+    if (proc == NULL) {
+        return 0;
+    }
+    long long total = 0;
+    struct dirent *entry;
+    char path[300], line[256];
+    while ((entry = readdir(proc)) != NULL) {
+        if (!isdigit((unsigned char) entry->d_name[0])) {
+            continue;
+        }
+        snprintf(path, sizeof path, "/proc/%s/status", entry->d_name);
+        FILE *status = fopen(path, "r");
+        if (status == NULL) {
+            continue;
+        }
+        long owner = -1;
+        while (fgets(line, sizeof line, status) != NULL) {
+            if (strncmp(line, "Uid:", 4) == 0) {
+                owner = strtol(line + 4, NULL, 10);
+            } else if (strncmp(line, "Threads:", 8) == 0) {
+                if (owner == (long) uid) {
+                    total += strtol(line + 8, NULL, 10);
+                }
+                break;
+            }
+        }
+        fclose(status);
+    }
+    closedir(proc);
+    return total;
+}
+
+static int join_cgroup(const char *cgroup) {
+    char path[4096];
+    snprintf(path, sizeof path, "%s/cgroup.procs", cgroup);
+    FILE *procs = fopen(path, "w");
+    if (procs == NULL) {
+        return -1;
+    }
+    int written = fprintf(procs, "%d\n", (int) getpid());
+    return fclose(procs) == 0 && written > 0 ? 0 : -1;
+}
+
+// Kills and reaps everything the command left behind, including processes that
+// changed their process group; orphans of those are re-parented here in turn
+static void kill_orphans(pid_t group) {
+    char path[64];
+    snprintf(path, sizeof path, "/proc/self/task/%d/children", (int) getpid());
+    kill(-group, SIGKILL);
+    for (;;) {
+        FILE *children = fopen(path, "r");
+        if (children != NULL) {
+            int pid;
+            while (fscanf(children, "%d", &pid) == 1) {
+                kill(pid, SIGKILL);
+            }
+            fclose(children);
+        }
+        if (waitpid(-1, NULL, 0) < 0 && errno != EINTR) {
+            return;
+        }
+    }
+}
+
+// Runs in the command's process, before exec
+static void apply_limits(long long cpu, long long memory, long long file_size, long long open_files, long long max_tasks) {
+    // Its own process group, so that it can be killed with everything it started
+    setpgid(0, 0);
+    // SIGXCPU at the soft limit, SIGKILL a second later if it is ignored
+    if (cpu > 0) set_limit(RLIMIT_CPU, cpu, cpu + 1);
+    if (memory > 0) set_limit(RLIMIT_DATA, memory, memory);
+    if (file_size > 0) set_limit(RLIMIT_FSIZE, file_size, file_size);
+    if (open_files > 0) set_limit(RLIMIT_NOFILE, open_files, open_files);
+    if (max_tasks > 0) set_limit(RLIMIT_NPROC, max_tasks, max_tasks);
+    set_limit(RLIMIT_CORE, 0, 0);
+}
+
+static void write_stats(const char *stats_dir, const struct rusage *usage, int signal) {
+    char path[4096], tmp[4096];
+    snprintf(path, sizeof path, "%s/%d.stats", stats_dir, (int) getpid());
+    snprintf(tmp, sizeof tmp, "%s/%d.tmp", stats_dir, (int) getpid());
+    FILE *stats = fopen(tmp, "w");
+    if (stats == NULL) {
+        return;
+    }
+    long long cpu_us = (long long) (usage->ru_utime.tv_sec + usage->ru_stime.tv_sec) * 1000000
+        + usage->ru_utime.tv_usec + usage->ru_stime.tv_usec;
+    fprintf(stats, "%lld %ld %d\n", cpu_us, usage->ru_maxrss, signal);
+    // Renamed into place so a reader never sees a partial file
+    if (fclose(stats) == 0) {
+        rename(tmp, path);
+    }
+}
+
+int main(int argc, char **argv) {
+    long long cpu = 0, memory = 0, file_size = 0, open_files = 0, processes = 0;
+    const char *cgroup = NULL, *stats_dir = NULL;
+    int in_place = 0;
+    int opt;
+    while ((opt = getopt(argc, argv, "+t:m:f:n:p:g:s:e")) != -1) {
+        switch (opt) {
+            case 't': cpu = atoll(optarg); break;
+            case 'm': memory = atoll(optarg); break;
+            case 'f': file_size = atoll(optarg); break;
+            case 'n': open_files = atoll(optarg); break;
+            case 'p': processes = atoll(optarg); break;
+            case 'g': cgroup = optarg; break;
+            case 's': stats_dir = optarg; break;
+            case 'e': in_place = 1; break;
+            default: return LAUNCHER_FAILED;
+        }
+    }
+    if (optind >= argc) {
+        fprintf(stderr, "launcher: no command\n");
+        return LAUNCHER_FAILED;
+    }
+
+    if (cgroup != NULL && join_cgroup(cgroup) != 0) {
+        fprintf(stderr, "launcher: cannot join cgroup %s: %s\n", cgroup, strerror(errno));
+        return LAUNCHER_FAILED;
+    }
+
+    // Root is exempt from RLIMIT_NPROC; only a cgroup pids limit applies to it
+    long long max_tasks = processes > 0 && getuid() != 0 ? user_tasks(getuid()) + processes : 0;
+
+    if (in_place) {
+        apply_limits(cpu, memory, file_size, open_files, max_tasks);
+        execvp(argv[optind], argv + optind);
+        fprintf(stderr, "launcher: %s: %s\n", argv[optind], strerror(errno));
+        return errno == ENOENT ? 127 : 126;
+    }
+
+    prctl(PR_SET_CHILD_SUBREAPER, 1);
+
+    pid_t child = fork();
+    if (child < 0) {
+        perror("launcher: fork");
+        return LAUNCHER_FAILED;
+    }
+    if (child == 0) {
+        apply_limits(cpu, memory, file_size, open_files, max_tasks);
+        execvp(argv[optind], argv + optind);
+        fprintf(stderr, "launcher: %s: %s\n", argv[optind], strerror(errno));
+        _exit(errno == ENOENT ? 127 : 126);
+    }
+
+    int status;
+    struct rusage usage;
+    while (wait4(child, &status, 0, &usage) < 0) {
+        if (errno != EINTR) {
+            perror("launcher: wait");
+            return LAUNCHER_FAILED;
+        }
+    }
+
+    kill_orphans(child);
+
+    int signal = WIFSIGNALED(status) ? WTERMSIG(status) : 0;
+    if (stats_dir != NULL) {
+        write_stats(stats_dir, &usage, signal);
+    }
+    return signal != 0 ? 128 + signal : WEXITSTATUS(status);
+}
@@ -0,0 +1,123 @@
+package com.web.server.service;
+
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import com.web.server.dto.InputResult;
+import com.web.server.dto.ResourceUsage;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientQuotasTest {
+
+	// Clients from app.clients, with the given app.clients.* properties
+	private static ClientQuotas quotas(String clients, String... properties) {
+		MockEnvironment environment = new MockEnvironment();
+		for (int i = 0; i < properties.length; i += 2) {
+			environment.setProperty(properties[i], properties[i + 1]);
+		}
+		AppConfig config = new AppConfig();
+		ReflectionTestUtils.setField(config, "environment", environment);
+		ReflectionTestUtils.setField(config, "secretKey", "default-key");
+		ReflectionTestUtils.setField(config, "clientNames", Arrays.asList(clients.split(",")));
+		ReflectionTestUtils.setField(config, "schedulerRetryAfterSeconds", 3);
+		ClientQuotas quotas = new ClientQuotas();
+		ReflectionTestUtils.setField(quotas, "config", config);
+		quotas.init();
+		return quotas;
+	}
+
+	private static ClientQuotas.Client client(ClientQuotas quotas, String name) {
+		return quotas.getClients().stream().filter(client -> client.getName().equals(name)).findFirst().orElseThrow();
+	}
+
+	@Test
+	void authenticatesByKey() {
+		ClientQuotas quotas = quotas("ci", "app.clients.ci.key", "ci-key");
+		assertEquals("default", quotas.authenticate("default-key").getName());
+		assertEquals("ci", quotas.authenticate("ci-key").getName());
+		assertNull(quotas.authenticate("ci-key2"));
+		assertNull(quotas.authenticate(""));
+		assertNull(quotas.authenticate(null));
+	}
+
+	@Test
+	void readsSettingsWithFallbacks() {
+		ClientQuotas quotas = quotas("ci, batch",
+			"app.clients.ci.key", "ci-key",
+			"app.clients.ci.weight", "4",
+			"app.clients.batch.key", "batch-key",
+			"app.clients.max-concurrent", "2");
+		ApiClient ci = quotas.authenticate("ci-key");
+		ApiClient batch = quotas.authenticate("batch-key");
+		assertEquals(4.0, ci.getWeight());
+		assertEquals(1.0, batch.getWeight());
+		assertEquals(2, ci.getMaxConcurrent());
+		assertEquals(2, quotas.authenticate("default-key").getMaxConcurrent());
+		assertEquals(10, batch.getBurst());
+	}
+
+	@Test
+	void rejectsClientsWithoutKeysOrConfiguredTwice() {
+		assertThrows(IllegalStateException.class, () -> quotas("ci"));
+		assertThrows(IllegalStateException.class, () -> quotas("default", "app.clients.default.key", "other"));
+	}
+
+	@Test
+	void capsExecutionsInProgress() {
+		ClientQuotas quotas = quotas("ci", "app.clients.ci.key", "ci-key", "app.clients.ci.max-concurrent", "1");
+		ApiClient ci = quotas.authenticate("ci-key");
+		ClientQuotas.Lease lease = quotas.admit(ci);
+		QuotaExceededException e = assertThrows(QuotaExceededException.class, () -> quotas.admit(ci));
+		assertEquals(3, e.getRetryAfterSeconds());
+		// Other clients are not held back
+		quotas.admit(quotas.authenticate("default-key"));
+
+		lease.close(null);
+		lease.close(null);
+		assertEquals(0, client(quotas, "ci").getActive());
+		assertSame(ci, quotas.admit(ci).getClient());
+		assertEquals(1, client(quotas, "ci").getOverQuota());
+	}
+
+	@Test
+	void limitsRequestRateToTheBurst() {
+		ClientQuotas quotas = quotas("ci", "app.clients.ci.key", "ci-key",
+			"app.clients.ci.requests-per-second", "0.01", "app.clients.ci.burst", "2");
+		ApiClient ci = quotas.authenticate("ci-key");
+		quotas.admit(ci).close(null);
+		quotas.admit(ci).close(null);
+		QuotaExceededException e = assertThrows(QuotaExceededException.class, () -> quotas.admit(ci));
+		assertTrue(e.getRetryAfterSeconds() > 90 && e.getRetryAfterSeconds() <= 100);
+
+		ClientQuotas.Client client = client(quotas, "ci");
+		assertEquals(2, client.getAccepted());
+		assertEquals(1, client.getRateLimited());
+		assertEquals(0, client.getActive());
+	}
+
+	@Test
+	void recordsUsageWhenLeasesClose() {
+		ClientQuotas quotas = quotas("");
+		InputResult measured = new InputResult(0, "out", 0, false, 50);
+		measured.setUsage(new ResourceUsage(40L, 1024L, null));
+		InputResult unmeasured = new InputResult(1, "out", 0, false, 50);
+
+		ClientQuotas.Lease lease = quotas.admit(quotas.authenticate("default-key"));
+		lease.close(List.of(measured, unmeasured));
+		lease.close(List.of(measured));
+
+		ClientQuotas.Client client = client(quotas, "default");
+		assertEquals(2, client.getInputs());
+		assertEquals(40, client.getCpuTimeMs());
+	}
+}
@@ -0,0 +1,119 @@
+package com.web.server.service;
+
+import com.web.server.config.ApiClient;
+import com.web.server.config.AppConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutionSchedulerTest {
+
+	private static final ApiClient A = new ApiClient("a", "a-key", 1.0, 0, 0, 0);
+	private static final ApiClient B = new ApiClient("b", "b-key", 1.0, 0, 0, 0);
+	private static final ApiClient HEAVY = new ApiClient("heavy", "heavy-key", 2.0, 0, 0, 0);
+
+	private final ExecutionScheduler scheduler = new ExecutionScheduler();
+	private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	// One run thread, so queued tasks start one at a time in queue order
+	@BeforeEach
+	void startScheduler() {
+		AppConfig config = new AppConfig();
+		ReflectionTestUtils.setField(config, "schedulerThreads", 1);
+		ReflectionTestUtils.setField(config, "schedulerQueueCapacity", 10);
+		ReflectionTestUtils.setField(config, "schedulerCompileThreads", 1);
+		ReflectionTestUtils.setField(config, "schedulerCompileQueueCapacity", 1);
+		ReflectionTestUtils.setField(config, "schedulerRetryAfterSeconds", 1);
+		ReflectionTestUtils.setField(scheduler, "config", config);
+		scheduler.init();
+	}
+
+	@AfterEach
+	void stopScheduler() {
+		release.countDown();
+		scheduler.shutdown();
+	}
+
+	// Occupies the run thread until release, so that later tasks queue up
+	private Future<String> block() throws InterruptedException {
+		CountDownLatch running = new CountDownLatch(1);
+		Future<String> blocker = scheduler.submitAll(List.<Callable<String>>of(() -> {
+			running.countDown();
+			release.await();
+			return "blocker";
+		}), ApiClient.INTERNAL).get(0);
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		return blocker;
+	}
+
+	private List<Future<String>> submit(ApiClient client, int count) {
+		List<Callable<String>> tasks = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			String name = client.getName() + i;
+			tasks.add(() -> {
+				started.add(name);
+				return name;
+			});
+		}
+		return scheduler.submitAll(tasks, client);
+	}
+
+	private static void await(List<Future<String>> futures) throws Exception {
+		for (Future<String> future : futures) {
+			future.get(5, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	void aSingleTaskIsNotQueuedBehindAnotherClientsBacklog() throws Exception {
+		block();
+		List<Future<String>> backlog = submit(A, 5);
+		List<Future<String>> single = submit(B, 1);
+		release.countDown();
+		await(backlog);
+		await(single);
+		assertEquals(List.of("a0", "b0", "a1", "a2", "a3", "a4"), started);
+	}
+
+	@Test
+	void slotsAreSharedInProportionToWeight() throws Exception {
+		block();
+		List<Future<String>> light = submit(A, 3);
+		List<Future<String>> heavy = submit(HEAVY, 4);
+		release.countDown();
+		await(light);
+		await(heavy);
+		// Ties on virtual finish time go in arrival order
+		assertEquals(List.of("heavy0", "a0", "heavy1", "heavy2", "a1", "heavy3", "a2"), started);
+	}
+
+	@Test
+	void admitsAllTasksOfARequestOrNone() throws Exception {
+		// One run thread and ten queue slots, one of them taken by the blocker
+		block();
+		assertEquals(10, scheduler.getAvailableSlots());
+		assertThrows(ExecutionRejectedException.class, () -> submit(A, 11));
+		assertEquals(10, scheduler.getAvailableSlots());
+		assertEquals(1, scheduler.getRejectedRequests());
+
+		List<Future<String>> admitted = submit(A, 10);
+		assertEquals(0, scheduler.getAvailableSlots());
+		release.countDown();
+		await(admitted);
+		assertEquals(10, started.size());
+	}
+}
@@ -0,0 +1,83 @@
+package com.web.server.service;
+
+import com.web.server.config.AppConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResultCacheTest {
+
+	private static ResultCache cache(int maxEntries, long maxBytes, long ttlSeconds) {
+		AppConfig config = new AppConfig();
+		ReflectionTestUtils.setField(config, "resultCacheMaxEntries", maxEntries);
+		ReflectionTestUtils.setField(config, "resultCacheMaxBytes", maxBytes);
+		ReflectionTestUtils.setField(config, "resultCacheTtlSeconds", ttlSeconds);
+		ResultCache cache = new ResultCache();
+		ReflectionTestUtils.setField(cache, "config", config);
+		return cache;
+	}
+
+	@Test
+	void keysDependOnProgramAndInput() {
+		ResultCache cache = cache(10, 1 << 20, 60);
+		assertEquals(cache.key("p", "1 2"), cache.key("p", "1 2"));
+		assertNotEquals(cache.key("p", "1 2"), cache.key("p", "1 3"));
+		assertNotEquals(cache.key("p", "1 2"), cache.key("q", "1 2"));
+		assertEquals(cache.key("p", ""), cache.key("p", null));
+	}
+
+	@Test
+	void returnsStoredOutputsAndCountsHitsAndMisses() {
+		ResultCache cache = cache(10, 1 << 20, 60);
+		assertNull(cache.lookup("a"));
+		cache.store("a", "out");
+		assertEquals("out", cache.lookup("a"));
+		cache.store("a", "new");
+		assertEquals("new", cache.lookup("a"));
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedBeyondMaxEntries() {
+		ResultCache cache = cache(2, 1 << 20, 60);
+		cache.store("a", "1");
+		cache.store("b", "2");
+		cache.lookup("a");
+		cache.store("c", "3");
+		assertEquals(2, cache.size());
+		assertNull(cache.lookup("b"));
+		assertEquals("1", cache.lookup("a"));
+		assertEquals("3", cache.lookup("c"));
+	}
+
+	@Test
+	void keepsTotalSizeWithinMaxBytes() {
+		// Each entry is 128 bytes of overhead plus two bytes per character
+		ResultCache cache = cache(100, 700, 60);
+		cache.store("a", "x".repeat(99));
+		cache.store("b", "x".repeat(99));
+		cache.store("c", "x".repeat(99));
+		assertEquals(2, cache.size());
+		assertEquals(656, cache.totalBytes());
+		assertNull(cache.lookup("a"));
+
+		cache.store("d", "x".repeat(300));
+		assertNull(cache.lookup("d"));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	void expiresEntriesAfterTheirTtl() throws InterruptedException {
+		ResultCache cache = cache(10, 1 << 20, 0);
+		cache.store("a", "out");
+		Thread.sleep(1);
+		assertNull(cache.lookup("a"));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.totalBytes());
+	}
+}
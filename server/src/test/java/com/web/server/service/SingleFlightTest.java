@@ -0,0 +1,229 @@
+package com.web.server.service;
+
+import com.web.server.dto.InputResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+	private final SingleFlight singleFlight = new SingleFlight();
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void stopThreads() {
+		executor.shutdownNow();
+	}
+
+	private static InputResult result(int index) {
+		return new InputResult(index, "out " + index, 0, false, 1);
+	}
+
+	// Waits until the given number of requests have joined a flight as followers
+	private static void awaitFollowers(LongSupplier followers, long count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (followers.getAsLong() < count) {
+			assertTrue(System.nanoTime() < deadline, "no follower joined");
+			Thread.sleep(5);
+		}
+	}
+
+	// Every event a request sees, in order
+	private static class Recorder implements ExecutionListener {
+		final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void onCompiled(String compileError) {
+			events.add("compiled:" + compileError);
+		}
+
+		@Override
+		public void onResult(InputResult result) {
+			events.add("result:" + result.getIndex());
+		}
+	}
+
+	@Test
+	void executionKeysSeparateFields() {
+		String key = singleFlight.executionKey("Python", "print(1)", List.of("a", "b"));
+		assertEquals(key, singleFlight.executionKey("Python", "print(1)", List.of("a", "b")));
+		assertNotEquals(key, singleFlight.executionKey("Python", "print(1)", List.of("ab")));
+		assertNotEquals(key, singleFlight.executionKey("Python", "print(1)", List.of("b", "a")));
+		assertNotEquals(singleFlight.executionKey("Python", "ab", List.of("c")), singleFlight.executionKey("Python", "a", List.of("bc")));
+		assertEquals(singleFlight.executionKey("Go", "x", List.of("")), singleFlight.executionKey("Go", "x", Collections.singletonList(null)));
+	}
+
+	@Test
+	void followersShareTheLeadersRun() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger runs = new AtomicInteger();
+		List<InputResult> results = List.of(result(0), result(1));
+
+		Recorder leaderEvents = new Recorder();
+		Future<List<InputResult>> leader = executor.submit(() -> singleFlight.execute("key", leaderEvents, listener -> {
+			runs.incrementAndGet();
+			listener.onCompiled("");
+			listener.onResult(results.get(0));
+			started.countDown();
+			release.await();
+			listener.onResult(results.get(1));
+			return results;
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		Recorder followerEvents = new Recorder();
+		Future<List<InputResult>> follower = executor.submit(() -> singleFlight.execute("key", followerEvents, listener -> {
+			runs.incrementAndGet();
+			return List.of();
+		}));
+		awaitFollowers(singleFlight::getExecutionFollowers, 1);
+		release.countDown();
+
+		assertSame(results, leader.get(5, TimeUnit.SECONDS));
+		assertSame(results, follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1, runs.get());
+		assertEquals(List.of("compiled:", "result:0", "result:1"), leaderEvents.events);
+		// Events from before the follower joined are replayed to it
+		assertEquals(List.of("compiled:", "result:0", "result:1"), followerEvents.events);
+		assertEquals(1, singleFlight.getExecutionLeaders());
+		assertEquals(1, singleFlight.getExecutionFollowers());
+
+		// Nothing is kept once the flight lands
+		singleFlight.execute("key", ExecutionListener.NONE, listener -> {
+			runs.incrementAndGet();
+			return results;
+		});
+		assertEquals(2, runs.get());
+	}
+
+	@Test
+	void aSlowFollowerDoesNotHoldUpTheLeader() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<InputResult> results = List.of(result(0), result(1));
+		Future<List<InputResult>> leader = executor.submit(() -> singleFlight.execute("key", ExecutionListener.NONE, listener -> {
+			started.countDown();
+			release.await();
+			listener.onResult(results.get(0));
+			listener.onResult(results.get(1));
+			return results;
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		CountDownLatch unblock = new CountDownLatch(1);
+		Recorder followerEvents = new Recorder() {
+			@Override
+			public void onResult(InputResult result) {
+				super.onResult(result);
+				try {
+					unblock.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		Future<List<InputResult>> follower = executor.submit(() -> singleFlight.execute("key", followerEvents, listener -> List.of()));
+		awaitFollowers(singleFlight::getExecutionFollowers, 1);
+		release.countDown();
+
+		assertSame(results, leader.get(5, TimeUnit.SECONDS));
+		assertFalse(follower.isDone());
+		unblock.countDown();
+		assertSame(results, follower.get(5, TimeUnit.SECONDS));
+		assertEquals(List.of("result:0", "result:1"), followerEvents.events);
+	}
+
+	@Test
+	void followersStartOverWhenTheLeaderIsCancelled() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<List<InputResult>> leader = executor.submit(() -> singleFlight.execute("key", ExecutionListener.NONE, listener -> {
+			listener.onCompiled("");
+			listener.onResult(result(0));
+			started.countDown();
+			release.await();
+			throw new InterruptedException();
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		Recorder followerEvents = new Recorder();
+		List<InputResult> results = List.of(result(0), result(1));
+		Future<List<InputResult>> follower = executor.submit(() -> singleFlight.execute("key", followerEvents, listener -> {
+			listener.onCompiled("");
+			listener.onResult(results.get(0));
+			listener.onResult(results.get(1));
+			return results;
+		}));
+		awaitFollowers(singleFlight::getExecutionFollowers, 1);
+		release.countDown();
+
+		ExecutionException cancelled = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(InterruptedException.class, cancelled.getCause());
+		assertSame(results, follower.get(5, TimeUnit.SECONDS));
+		// The follower led the second flight, and saw what it had already been sent only once
+		assertEquals(2, singleFlight.getExecutionLeaders());
+		assertEquals(List.of("compiled:", "result:0", "result:1"), followerEvents.events);
+	}
+
+	@Test
+	void followersReceiveTheLeadersFailure() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<String> leader = executor.submit(() -> singleFlight.compile("key", () -> {
+			started.countDown();
+			release.await();
+			throw new IllegalStateException("compiler crashed");
+		}).value());
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		Future<String> follower = executor.submit(() -> singleFlight.compile("key", () -> "never runs").value());
+		awaitFollowers(singleFlight::getCompileFollowers, 1);
+		release.countDown();
+
+		assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+		ExecutionException failed = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+		assertEquals("compiler crashed", failed.getCause().getMessage());
+		assertEquals(1, singleFlight.getCompileLeaders());
+	}
+
+	@Test
+	void compilesReportWhetherTheyWereShared() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<SingleFlight.Landed<String>> leader = executor.submit(() -> singleFlight.compile("key", () -> {
+			started.countDown();
+			release.await();
+			return "";
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		Future<SingleFlight.Landed<String>> follower = executor.submit(() -> singleFlight.compile("key", () -> "not shared"));
+		awaitFollowers(singleFlight::getCompileFollowers, 1);
+		release.countDown();
+
+		assertFalse(leader.get(5, TimeUnit.SECONDS).shared());
+		assertTrue(follower.get(5, TimeUnit.SECONDS).shared());
+		assertEquals("", follower.get().value());
+		assertFalse(singleFlight.compile("key", () -> "again").shared());
+	}
+}
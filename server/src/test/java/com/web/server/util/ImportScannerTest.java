@@ -0,0 +1,218 @@
+package com.web.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportScannerTest {
+
+	private final CodeValidator validator = new CodeValidator();
+
+	private static List<String> imports(String language, String code) {
+		List<String> modules = new ArrayList<>();
+		ImportScanner.scan(language, code, (module, offset) -> modules.add(module));
+		return modules;
+	}
+
+	private List<String> violations(String language, String code) {
+		return validator.findViolations(language, code).stream().map(CodeValidator.Violation::getName).toList();
+	}
+
+	// Python
+
+	@Test
+	void pythonFindsImportStatements() {
+		assertEquals(List.of("sys", "os.path", "collections"),
+			imports("Python", "import sys as s, os.path\nfrom collections import deque\nfrom . import sibling\n"));
+		assertEquals(List.of("os"), violations("Python", "x = 1; import os"));
+	}
+
+	@Test
+	void pythonIgnoresImportsInCommentsAndStrings() {
+		String code = "# import os\n"
+			+ "s = 'import os'\n"
+			+ "t = \"\"\"\nimport subprocess\n\"\"\"\n"
+			+ "u = r'__import__(\"os\")'\n"
+			+ "cost = 1  # no rule for 'os' inside other words\n";
+		assertEquals(List.of(), imports("Python", code));
+		assertNull(validator.validateCode("Python", code));
+	}
+
+	@Test
+	void pythonFollowsLineContinuations() {
+		assertEquals(List.of("os"), violations("Python", "import \\\n    os\n"));
+		assertEquals(List.of("subprocess"), violations("Python", "from \\\nsubprocess import run\n"));
+		assertEquals(List.of("os"), violations("Python", "import math, \\\n    os\n"));
+	}
+
+	@Test
+	void pythonFindsDynamicImports() {
+		assertEquals(List.of("os"), violations("Python", "__import__('os').system('ls')"));
+		assertEquals(List.of("os"), violations("Python", "__import__(\"o\\x73\")"));
+		assertEquals(List.of("importlib", "subprocess"),
+			violations("Python", "import importlib\nimportlib.import_module('subprocess')"));
+		assertEquals(List.of("os"), violations("Python", "print(f\"{__import__('os').getcwd()}\")"));
+	}
+
+	@Test
+	void pythonRejectsImportsOfComputedNames() {
+		assertEquals(List.of("__import__(...)"), violations("Python", "__import__('o' + 's')"));
+		assertEquals(List.of("__import__(...)"), violations("Python", "__import__('o' 's')"));
+		assertEquals(List.of("__import__(...)"), violations("Python", "__import__(f'{\"o\"}s')"));
+		assertEquals(List.of("__import__(...)"), violations("Python", "load = __import__\nload('os')"));
+		assertEquals(List.of("__builtins__"), violations("Python", "getattr(__builtins__, '__imp' + 'ort__')('os')"));
+	}
+
+	// JavaScript
+
+	@Test
+	void javaScriptFindsRequireAndImports() {
+		String code = "const fs = require('fs');\n"
+			+ "import path from \"path\";\n"
+			+ "import { spawn } from 'child_process';\n"
+			+ "export * from 'net';\n"
+			+ "import('os');\n"
+			+ "import.meta.url;\n";
+		assertEquals(List.of("fs", "path", "child_process", "net", "os"), imports("JavaScript", code));
+		assertEquals(List.of("fs"), violations("JavaScript", "require('node:fs')"));
+		assertEquals(List.of("fs"), violations("JavaScript", "process.mainModule.require('fs')"));
+	}
+
+	@Test
+	void javaScriptIgnoresImportsInCommentsStringsAndRegexes() {
+		String code = "// require('fs')\n"
+			+ "/* import fs from 'fs' */\n"
+			+ "const s = \"require('child_process')\";\n"
+			+ "const t = `import os from 'os'`;\n"
+			+ "const r = /require\\('fs'\\)/g;\n";
+		assertEquals(List.of(), imports("JavaScript", code));
+	}
+
+	@Test
+	void javaScriptRejectsRequireOfComputedNames() {
+		assertEquals(List.of("require(...)"), violations("JavaScript", "require('f' + 's')"));
+		assertEquals(List.of("require(...)"), violations("JavaScript", "require(`${'f'}s`)"));
+		assertEquals(List.of("require(...)"), violations("JavaScript", "const name = 'fs'; require(name)"));
+		assertEquals(List.of("require(...)"), violations("JavaScript", "const load = require; load('fs')"));
+		assertEquals(List.of("import(...)"), violations("JavaScript", "import('f'.concat('s'))"));
+		assertEquals(List.of("fs"), violations("JavaScript", "require(`fs`)"));
+	}
+
+	@Test
+	void javaScriptDecodesEscapes() {
+		assertEquals(List.of("fs"), violations("JavaScript", "req\\u0075ire('fs')"));
+		assertEquals(List.of("fs"), violations("JavaScript", "require('\\x66\\u{73}')"));
+	}
+
+	// Go
+
+	@Test
+	void goFindsImports() {
+		String code = "package main\n"
+			+ "import (\n"
+			+ "\t\"fmt\" // \"os\"\n"
+			+ "\tx \"os/exec\"\n"
+			+ "\t_ `net`\n"
+			+ ")\n"
+			+ "import . \"syscall\"\n";
+		assertEquals(List.of("fmt", "os/exec", "net", "syscall"), imports("Go", code));
+		assertEquals(List.of("os", "net", "syscall"), violations("Go", code));
+	}
+
+	@Test
+	void goIgnoresImportsInCommentsAndStrings() {
+		String code = "package main\n"
+			+ "// import \"os\"\n"
+			+ "/* import \"syscall\" */\n"
+			+ "var s = \"import \\\"os\\\"\"\n"
+			+ "var r = `import \"unsafe\"`\n";
+		assertEquals(List.of(), imports("Go", code));
+	}
+
+	// Java
+
+	@Test
+	void javaFindsQualifiedNames() {
+		assertEquals(List.of("java.io"), violations("Java", "import java.io.*;"));
+		assertEquals(List.of("java.lang.Runtime"), violations("Java", "java.lang.Runtime.getRuntime().exec(\"ls\");"));
+		assertEquals(List.of("java.io"), violations("Java", "new java . io /* */ . File(\"x\");"));
+	}
+
+	@Test
+	void javaIgnoresNamesInCommentsAndStrings() {
+		String code = "// import java.io.File;\n"
+			+ "/* java.net.Socket */\n"
+			+ "String s = \"java.io.File\";\n"
+			+ "String t = \"\"\"\n    java.net.URL\n    \"\"\";\n"
+			+ "char c = '\"';\n";
+		assertEquals(List.of(), violations("Java", code));
+	}
+
+	@Test
+	void javaDecodesUnicodeEscapesFirst() {
+		assertEquals(List.of("java.io"), violations("Java", "import java\\u002eio.File;"));
+		assertEquals(List.of("java.io"), violations("Java", "import \\u006aava.io.File;"));
+		assertEquals(List.of("java.net"), violations("Java", "import java.\\uuuu006eet.Socket;"));
+		// An escaped line break ends a // comment early
+		assertEquals(List.of("java.io"), violations("Java", "// harmless \\u000a import java.io.File;"));
+	}
+
+	@Test
+	void javaFindsClassesLoadedByName() {
+		assertEquals(List.of("java.lang.Runtime"), violations("Java", "Class.forName(\"java.lang.Runtime\");"));
+		assertEquals(List.of("java.lang.ProcessBuilder"),
+			violations("Java", "ClassLoader.getSystemClassLoader().loadClass(\"java.lang.ProcessBuilder\");"));
+		assertEquals(List.of("java.lang.Runtime"), violations("Java", "Class.forName(\"\"\"\n    java.lang.Runtime\"\"\");"));
+		assertEquals(List.of("forName(...)"), violations("Java", "Class.forName(\"java.lang.\" + \"Runtime\");"));
+	}
+
+	// C and C++
+
+	@Test
+	void cFindsIncludes() {
+		assertEquals(List.of("<stdio.h>", "<unistd.h>"), imports("C", "#include <stdio.h>\n  #  include \"unistd.h\"\n"));
+		assertEquals(List.of("<unistd.h>"), violations("C", "/* note */ #include <unistd.h>\n"));
+	}
+
+	@Test
+	void cIgnoresIncludesInCommentsAndStrings() {
+		String code = "// #include <unistd.h>\n"
+			+ "/*\n#include <signal.h>\n*/\n"
+			+ "const char *s = \"#include <pthread.h>\";\n"
+			+ "int x = 1; #include <fcntl.h>\n";
+		assertEquals(List.of(), violations("C", code));
+		assertEquals(List.of(), violations("C++", "auto s = R\"x(\n#include <unistd.h>\n)x\";\n"));
+	}
+
+	@Test
+	void cFollowsLineContinuationsAndDigraphs() {
+		assertEquals(List.of("<unistd.h>"), violations("C", "#\\\ninclude <unistd.h>\n"));
+		assertEquals(List.of("<unistd.h>"), violations("C", "#include \\\n<unistd.h>\n"));
+		assertEquals(List.of("<unistd.h>"), violations("C++", "%:include <unistd.h>\n"));
+		assertEquals(List.of("<signal.h>"), violations("C", "#define H <signal.h>\n#include H\n"));
+	}
+
+	@Test
+	void cNormalizesHeaderPaths() {
+		assertEquals(List.of("<unistd.h>"), violations("C", "#include <sys/../unistd.h>\n"));
+		assertEquals(List.of("<sys/socket.h>"), violations("C", "#include <./sys/socket.h>\n"));
+		assertEquals(List.of("<sys/socket.h>"), violations("C", "#include </usr/include/x86_64-linux-gnu/sys/socket.h>\n"));
+		assertNull(validator.validateCode("C", "#include <my_unistd.h>\n"));
+	}
+
+	@Test
+	void reportsEveryViolationWithItsPosition() {
+		List<CodeValidator.Violation> found = validator.findViolations("Python", "import math\nimport os\nx = 1; import sys");
+		assertEquals(2, found.size());
+		assertEquals(2, found.get(0).getLine());
+		assertEquals(8, found.get(0).getColumn());
+		assertEquals(3, found.get(1).getLine());
+		assertEquals(15, found.get(1).getColumn());
+		assertTrue(validator.validateCode("Python", "import os, sys").contains("import of 'sys' is not allowed (line 1, column 12)"));
+	}
+}
@@ -0,0 +1,105 @@
+package com.web.server.util;
+
+import com.web.server.dto.JudgeDiff;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OutputComparatorTest {
+
+	private static final OutputComparator EXACT = new OutputComparator(OutputComparator.Mode.EXACT, 0);
+	private static final OutputComparator WHITESPACE = new OutputComparator(OutputComparator.Mode.WHITESPACE, 0);
+	private static final OutputComparator FLOAT = new OutputComparator(OutputComparator.Mode.FLOAT, 1e-6);
+
+	@Test
+	void parsesModes() {
+		assertEquals(OutputComparator.Mode.WHITESPACE, OutputComparator.parseMode(null));
+		assertEquals(OutputComparator.Mode.WHITESPACE, OutputComparator.parseMode(" "));
+		assertEquals(OutputComparator.Mode.FLOAT, OutputComparator.parseMode(" Float "));
+		assertThrows(IllegalArgumentException.class, () -> OutputComparator.parseMode("fuzzy"));
+	}
+
+	@Test
+	void exactIgnoresLineEndingsAndSurroundingWhitespace() {
+		assertNull(EXACT.compare(0, "1 2\n3\n", "1 2\r\n3"));
+		assertNull(EXACT.compare(0, "", null));
+	}
+
+	@Test
+	void exactReportsTheFirstDifferentLine() {
+		JudgeDiff diff = EXACT.compare(2, "a\nb\nc", "a\nb  \nc");
+		assertNotNull(diff);
+		assertEquals(2, diff.getTest());
+		assertEquals("line 2", diff.getPosition());
+		assertEquals("b", diff.getExpected());
+		assertEquals("b  ", diff.getActual());
+	}
+
+	@Test
+	void exactReportsMissingAndExtraLines() {
+		JudgeDiff missing = EXACT.compare(0, "a\nb", "a");
+		assertEquals("line 2", missing.getPosition());
+		assertNull(missing.getActual());
+
+		JudgeDiff extra = EXACT.compare(0, "a", "a\nb");
+		assertEquals("line 2", extra.getPosition());
+		assertNull(extra.getExpected());
+		assertEquals("b", extra.getActual());
+	}
+
+	@Test
+	void whitespaceComparesTokens() {
+		assertNull(WHITESPACE.compare(0, "1 2\n3", "1\t2   3\n"));
+		JudgeDiff diff = WHITESPACE.compare(0, "1 2 3", "1 2 4");
+		assertEquals("token 3", diff.getPosition());
+		assertEquals("3", diff.getExpected());
+		assertEquals("4", diff.getActual());
+	}
+
+	@Test
+	void whitespaceDoesNotAcceptCloseNumbers() {
+		assertNotNull(WHITESPACE.compare(0, "0.5", "0.50"));
+		assertNotNull(WHITESPACE.compare(0, "1 2", "1 2 3"));
+	}
+
+	@Test
+	void floatAcceptsNumbersWithinTolerance() {
+		assertNull(FLOAT.compare(0, "0.5 2", "0.500000 2.0000001"));
+		assertNull(FLOAT.compare(0, "1000000", "1000000.5"));
+		assertNull(FLOAT.compare(0, "1.5e3 -2", "1500 -2.0"));
+		assertNull(FLOAT.compare(0, ".5", "+0.5"));
+		assertNotNull(FLOAT.compare(0, "0.5", "0.51"));
+	}
+
+	@Test
+	void floatStillComparesWordsExactly() {
+		assertNull(FLOAT.compare(0, "YES 0.5", "YES 0.5000001"));
+		assertNotNull(FLOAT.compare(0, "YES 0.5", "yes 0.5"));
+	}
+
+	@Test
+	void floatRejectsJavaLiteralsThatAreNotPlainNumbers() {
+		assertNotNull(FLOAT.compare(0, "1", "1f"));
+		assertNotNull(FLOAT.compare(0, "1", "1d"));
+		assertNotNull(FLOAT.compare(0, "1", "0x1p0"));
+		assertNotNull(FLOAT.compare(0, "1f", "1"));
+	}
+
+	@Test
+	void floatRejectsNonFiniteNumbers() {
+		assertNotNull(FLOAT.compare(0, "1", "NaN"));
+		assertNotNull(FLOAT.compare(0, "1e400", "1e401"));
+		assertNotNull(FLOAT.compare(0, "Infinity", "1e400"));
+	}
+
+	@Test
+	void shortensLongTextInDiffs() {
+		String longLine = "x".repeat(500);
+		JudgeDiff diff = EXACT.compare(0, "a", longLine);
+		assertEquals(203, diff.getActual().length());
+		assertEquals(longLine.substring(0, 200) + "...", diff.getActual());
+	}
+}